@@ -0,0 +1,98 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.magiclen.json.CDL;
+import org.magiclen.json.JSONArray;
+import org.magiclen.json.JSONObject;
+import org.magiclen.json.XML;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * json.org的XML與CDL(CSV)轉換。CSV的每一列是文件主要陣列中一個物件的純量成員，所以只使用由物件組成主要陣列的文件。
+ *
+ * @author Magic Len
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    // -----物件變數-----
+    @Param({"TWITTER", "CITM"})
+    public Corpus corpus;
+    private JSONObject object;
+    private String xml;
+    private JSONArray rows;
+    private String csv;
+
+    // -----物件方法-----
+    @Setup
+    public void setup() {
+        object = new JSONObject(corpus.json());
+        xml = XML.toString(object, "document");
+        final JSONArray array = (JSONArray) object.query(corpus.arrayPointer);
+        rows = new JSONArray();
+        for (int i = 0; i < array.length(); i++) {
+            final JSONObject element = array.getJSONObject(i);
+            final JSONObject row = new JSONObject();
+            for (final String key : element.keySet()) {
+                final Object value = element.get(key);
+                if (!(value instanceof JSONObject) && !(value instanceof JSONArray)) {
+                    row.put(key, value);
+                }
+            }
+            rows.put(row);
+        }
+        csv = CDL.toString(rows);
+    }
+
+    @Benchmark
+    public String toXML() {
+        return XML.toString(object, "document");
+    }
+
+    @Benchmark
+    public JSONObject fromXML() {
+        return XML.toJSONObject(xml);
+    }
+
+    @Benchmark
+    public String toCSV() {
+        return CDL.toString(rows);
+    }
+
+    @Benchmark
+    public JSONArray fromCSV() {
+        return CDL.toJSONArray(csv);
+    }
+}
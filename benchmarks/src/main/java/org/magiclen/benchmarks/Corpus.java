@@ -0,0 +1,296 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.magiclen.gson.Gson;
+
+/**
+ * 基準測試用的JSON文件，仿照常見的twitter.json、citm_catalog.json與canada.json的結構，在本機以固定的亂數種子產生，每次執行的內容都相同。
+ *
+ * @author Magic Len
+ */
+public enum Corpus {
+
+    // -----類別列舉-----
+    /**
+     * 推文搜尋結果，字串多，且含有大量非ASCII字元。
+     */
+    TWITTER(Models.Twitter.class, "/statuses", "/statuses/50/user/screen_name") {
+        @Override
+        Object generate(final Random random) {
+            final Models.Twitter twitter = new Models.Twitter();
+            twitter.statuses = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                twitter.statuses.add(status(random, 505874924095815681L + i * 7919L));
+            }
+            final Models.SearchMetadata metadata = new Models.SearchMetadata();
+            metadata.completed_in = 0.087;
+            metadata.max_id = 505874924095815681L;
+            metadata.query = "%E4%B8%80";
+            metadata.count = 100;
+            twitter.search_metadata = metadata;
+            return twitter;
+        }
+    },
+    /**
+     * 節目目錄，以數字字串為鍵的物件與整數陣列多。
+     */
+    CITM(Models.Citm.class, "/performances", "/performances/100/prices/0/amount") {
+        @Override
+        Object generate(final Random random) {
+            final Models.Citm citm = new Models.Citm();
+            citm.areaNames = names(random, 205705993L, 17);
+            citm.audienceSubCategoryNames = names(random, 337100890L, 1);
+            citm.seatCategoryNames = names(random, 338937235L, 64);
+            citm.subTopicNames = names(random, 337184262L, 19);
+            citm.topicNames = names(random, 107888604L, 4);
+            citm.venueNames = new LinkedHashMap<>();
+            citm.venueNames.put("PLEYEL_PLEYEL", "Salle Pleyel");
+            citm.topicSubTopics = new LinkedHashMap<>();
+            for (final String topic : citm.topicNames.keySet()) {
+                citm.topicSubTopics.put(topic, ints(random, 337184262, 6));
+            }
+            citm.events = new LinkedHashMap<>();
+            final long[] eventIds = new long[184];
+            for (int i = 0; i < eventIds.length; i++) {
+                final Models.Event event = new Models.Event();
+                event.id = eventIds[i] = 138586341L + i * 17L;
+                event.name = words(random, 2 + random.nextInt(4));
+                event.logo = random.nextBoolean() ? "/images/UE0AAAAACEKo6QAAAAVDSVRN" : null;
+                event.subTopicIds = ints(random, 337184262, 1 + random.nextInt(3));
+                event.topicIds = ints(random, 107888604, 1 + random.nextInt(2));
+                citm.events.put(Long.toString(event.id), event);
+            }
+            citm.performances = new ArrayList<>();
+            for (int i = 0; i < 243; i++) {
+                final Models.Performance performance = new Models.Performance();
+                performance.id = 339887544L + i * 13L;
+                performance.eventId = eventIds[random.nextInt(eventIds.length)];
+                performance.prices = new ArrayList<>();
+                performance.seatCategories = new ArrayList<>();
+                for (int j = 1 + random.nextInt(5); j > 0; j--) {
+                    final long seatCategoryId = 338937235L + random.nextInt(64);
+                    final Models.Price price = new Models.Price();
+                    price.amount = 9000 + random.nextInt(80) * 500;
+                    price.audienceSubCategoryId = 337100890L;
+                    price.seatCategoryId = seatCategoryId;
+                    performance.prices.add(price);
+                    final Models.SeatCategory seatCategory = new Models.SeatCategory();
+                    seatCategory.seatCategoryId = seatCategoryId;
+                    seatCategory.areas = new ArrayList<>();
+                    for (int k = 1 + random.nextInt(6); k > 0; k--) {
+                        final Models.Area area = new Models.Area();
+                        area.areaId = 205705993L + random.nextInt(17);
+                        area.blockIds = new int[0];
+                        seatCategory.areas.add(area);
+                    }
+                    performance.seatCategories.add(seatCategory);
+                }
+                performance.seatMapImage = null;
+                performance.start = 1372701600000L + i * 86400000L;
+                performance.venueCode = "PLEYEL_PLEYEL";
+                citm.performances.add(performance);
+            }
+            return citm;
+        }
+    },
+    /**
+     * 國界的多邊形，幾乎都是有效位數很多的浮點數。
+     */
+    CANADA(Models.Canada.class, "/features/0/geometry/coordinates", "/features/0/geometry/coordinates/10/5/1") {
+        @Override
+        Object generate(final Random random) {
+            final Models.Geometry geometry = new Models.Geometry();
+            geometry.type = "Polygon";
+            geometry.coordinates = new double[480][][];
+            for (int i = 0; i < geometry.coordinates.length; i++) {
+                final double[][] ring = new double[8 + random.nextInt(224)][];
+                double longitude = -141 + random.nextDouble() * 88;
+                double latitude = 42 + random.nextDouble() * 41;
+                for (int j = 0; j < ring.length; j++) {
+                    longitude += (random.nextDouble() - 0.5) * 0.01;
+                    latitude += (random.nextDouble() - 0.5) * 0.01;
+                    ring[j] = new double[]{longitude, latitude};
+                }
+                geometry.coordinates[i] = ring;
+            }
+            final Models.Feature feature = new Models.Feature();
+            feature.type = "Feature";
+            feature.properties = new LinkedHashMap<>();
+            feature.properties.put("name", "Canada");
+            feature.geometry = geometry;
+            final Models.Canada canada = new Models.Canada();
+            canada.type = "FeatureCollection";
+            canada.features = new ArrayList<>();
+            canada.features.add(feature);
+            return canada;
+        }
+    };
+
+    // -----類別常數-----
+    private static final long SEED = 20150101L;
+    private static final String[] WORDS = {"magic", "len", "json", "mson", "gson", "stream", "tree", "value", "array", "object", "concert", "opera", "orchestra", "quartet", "piano", "violin"};
+    private static final String KANA = "あいうえおかきくけこさしすせそたちつてとなにぬねのはひふへほまみむめもやゆよらりるれろわをん一二三四五六七八九十日月火水木金土";
+
+    // -----物件常數-----
+    /**
+     * 文件對應的物件模型。
+     */
+    public final Class<?> model;
+    /**
+     * 文件中主要陣列的JSON Pointer，用來測試JSONArray。
+     */
+    public final String arrayPointer;
+    /**
+     * 用來測試JSONPointer查詢的路徑。
+     */
+    public final String queryPointer;
+
+    // -----物件變數-----
+    private String json;
+
+    // -----建構子-----
+    private Corpus(final Class<?> model, final String arrayPointer, final String queryPointer) {
+        this.model = model;
+        this.arrayPointer = arrayPointer;
+        this.queryPointer = queryPointer;
+    }
+
+    // -----物件方法-----
+    /**
+     * 產生文件的物件模型。
+     *
+     * @param random 傳入亂數產生器
+     * @return 傳回物件模型
+     */
+    abstract Object generate(final Random random);
+
+    /**
+     * 取得文件的JSON字串，第一次呼叫時產生。
+     *
+     * @return 傳回JSON字串
+     */
+    public synchronized String json() {
+        if (json == null) {
+            json = new Gson().toJson(generate(new Random(SEED)));
+        }
+        return json;
+    }
+
+    // -----類別方法-----
+    private static Models.Status status(final Random random, final long id) {
+        final Models.User user = new Models.User();
+        user.id = 1186275104L + random.nextInt(1 << 20);
+        user.id_str = Long.toString(user.id);
+        user.screen_name = "user_" + Long.toString(user.id, 36);
+        user.name = kana(random, 2 + random.nextInt(6));
+        user.location = random.nextBoolean() ? kana(random, 3) : "";
+        user.description = kana(random, 20 + random.nextInt(60));
+        user.url = random.nextBoolean() ? "http://t.co/" + Long.toString(user.id, 36) : null;
+        user.followers_count = random.nextInt(5000);
+        user.friends_count = random.nextInt(5000);
+        user.listed_count = random.nextInt(50);
+        user.created_at = "Sun Feb 24 13:59:08 +0000 2013";
+        user.favourites_count = random.nextInt(1000);
+        user.verified = random.nextInt(20) == 0;
+        user.statuses_count = random.nextInt(100000);
+        user.lang = "ja";
+        user.profile_image_url = "http://pbs.twimg.com/profile_images/" + user.id + "/normal.jpeg";
+
+        final Models.Entities entities = new Models.Entities();
+        entities.hashtags = new ArrayList<>();
+        entities.user_mentions = new ArrayList<>();
+        entities.urls = new ArrayList<>();
+        for (int i = random.nextInt(3); i > 0; i--) {
+            final Models.Hashtag hashtag = new Models.Hashtag();
+            hashtag.text = kana(random, 4);
+            hashtag.indices = new int[]{i * 10, i * 10 + 5};
+            entities.hashtags.add(hashtag);
+        }
+        for (int i = random.nextInt(3); i > 0; i--) {
+            final Models.UserMention mention = new Models.UserMention();
+            mention.id = 1186275104L + random.nextInt(1 << 20);
+            mention.id_str = Long.toString(mention.id);
+            mention.screen_name = "user_" + Long.toString(mention.id, 36);
+            mention.name = kana(random, 4);
+            mention.indices = new int[]{3, 3 + mention.screen_name.length()};
+            entities.user_mentions.add(mention);
+        }
+        if (random.nextBoolean()) {
+            final Models.Url url = new Models.Url();
+            url.url = "http://t.co/" + Long.toString(random.nextLong() >>> 16, 36);
+            url.expanded_url = "http://magiclen.org/" + words(random, 2).replace(' ', '-');
+            url.display_url = url.expanded_url.substring(7);
+            url.indices = new int[]{100, 122};
+            entities.urls.add(url);
+        }
+
+        final Models.Status status = new Models.Status();
+        status.created_at = "Sun Aug 31 00:29:15 +0000 2014";
+        status.id = id;
+        status.id_str = Long.toString(id);
+        status.text = kana(random, 10 + random.nextInt(40)) + " " + words(random, random.nextInt(6));
+        status.source = "<a href=\"http://twitter.com/download/iphone\" rel=\"nofollow\">Twitter for iPhone</a>";
+        status.in_reply_to_status_id = random.nextInt(4) == 0 ? id - 1 : null;
+        status.user = user;
+        status.entities = entities;
+        status.retweet_count = random.nextInt(100);
+        status.favorite_count = random.nextInt(100);
+        status.lang = "ja";
+        return status;
+    }
+
+    private static Map<String, String> names(final Random random, final long firstId, final int count) {
+        final Map<String, String> names = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            names.put(Long.toString(firstId + i), words(random, 1 + random.nextInt(3)));
+        }
+        return names;
+    }
+
+    private static int[] ints(final Random random, final int base, final int count) {
+        final int[] ints = new int[count];
+        for (int i = 0; i < count; i++) {
+            ints[i] = base + random.nextInt(32);
+        }
+        return ints;
+    }
+
+    private static String words(final Random random, final int count) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String kana(final Random random, final int count) {
+        final char[] chars = new char[count];
+        for (int i = 0; i < count; i++) {
+            chars[i] = KANA.charAt(random.nextInt(KANA.length()));
+        }
+        return new String(chars);
+    }
+}
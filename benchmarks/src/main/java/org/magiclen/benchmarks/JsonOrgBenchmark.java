@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.magiclen.json.JSONArray;
+import org.magiclen.json.JSONObject;
+import org.magiclen.json.JSONPointer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * json.org的JSONObject與JSONArray的解析與輸出，以及JSONPointer的查詢。
+ *
+ * @author Magic Len
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class JsonOrgBenchmark {
+
+    // -----物件變數-----
+    @Param({"TWITTER", "CITM", "CANADA"})
+    public Corpus corpus;
+    private String json;
+    private JSONObject object;
+    private String arrayJson;
+    private JSONArray array;
+    private JSONPointer pointer;
+
+    // -----物件方法-----
+    @Setup
+    public void setup() {
+        json = corpus.json();
+        object = new JSONObject(json);
+        array = (JSONArray) object.query(corpus.arrayPointer);
+        arrayJson = array.toString();
+        pointer = new JSONPointer(corpus.queryPointer);
+    }
+
+    @Benchmark
+    public JSONObject parseObject() {
+        return new JSONObject(json);
+    }
+
+    @Benchmark
+    public String writeObject() {
+        return object.toString();
+    }
+
+    @Benchmark
+    public JSONArray parseArray() {
+        return new JSONArray(arrayJson);
+    }
+
+    @Benchmark
+    public String writeArray() {
+        return array.toString();
+    }
+
+    @Benchmark
+    public Object query() {
+        return pointer.queryFrom(object);
+    }
+
+    @Benchmark
+    public Object parseAndQuery() {
+        return object.query(corpus.queryPointer);
+    }
+}
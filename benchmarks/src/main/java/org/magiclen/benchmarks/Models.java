@@ -0,0 +1,206 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 測試資料的物件模型，欄位名稱與JSON的鍵相同，供Gson與Mson.toObject綁定。
+ *
+ * @author Magic Len
+ * @see Corpus
+ */
+public final class Models {
+
+    // -----內部類別-----
+    /**
+     * twitter.json形式的搜尋結果。
+     */
+    public static final class Twitter {
+
+        public List<Status> statuses;
+        public SearchMetadata search_metadata;
+    }
+
+    public static final class Status {
+
+        public String created_at;
+        public long id;
+        public String id_str;
+        public String text;
+        public String source;
+        public boolean truncated;
+        public Long in_reply_to_status_id;
+        public User user;
+        public Entities entities;
+        public int retweet_count;
+        public int favorite_count;
+        public boolean favorited;
+        public boolean retweeted;
+        public String lang;
+    }
+
+    public static final class User {
+
+        public long id;
+        public String id_str;
+        public String name;
+        public String screen_name;
+        public String location;
+        public String description;
+        public String url;
+        public int followers_count;
+        public int friends_count;
+        public int listed_count;
+        public String created_at;
+        public int favourites_count;
+        public boolean verified;
+        public int statuses_count;
+        public String lang;
+        public String profile_image_url;
+    }
+
+    public static final class Entities {
+
+        public List<Hashtag> hashtags;
+        public List<UserMention> user_mentions;
+        public List<Url> urls;
+    }
+
+    public static final class Hashtag {
+
+        public String text;
+        public int[] indices;
+    }
+
+    public static final class UserMention {
+
+        public String screen_name;
+        public String name;
+        public long id;
+        public String id_str;
+        public int[] indices;
+    }
+
+    public static final class Url {
+
+        public String url;
+        public String expanded_url;
+        public String display_url;
+        public int[] indices;
+    }
+
+    public static final class SearchMetadata {
+
+        public double completed_in;
+        public long max_id;
+        public String query;
+        public int count;
+    }
+
+    /**
+     * citm_catalog.json形式的節目目錄，以數字字串為鍵的物件很多。
+     */
+    public static final class Citm {
+
+        public Map<String, String> areaNames;
+        public Map<String, String> audienceSubCategoryNames;
+        public Map<String, Event> events;
+        public List<Performance> performances;
+        public Map<String, String> seatCategoryNames;
+        public Map<String, String> subTopicNames;
+        public Map<String, String> topicNames;
+        public Map<String, int[]> topicSubTopics;
+        public Map<String, String> venueNames;
+    }
+
+    public static final class Event {
+
+        public String description;
+        public long id;
+        public String logo;
+        public String name;
+        public int[] subTopicIds;
+        public String subjectCode;
+        public String subtitle;
+        public int[] topicIds;
+    }
+
+    public static final class Performance {
+
+        public long eventId;
+        public long id;
+        public String logo;
+        public String name;
+        public List<Price> prices;
+        public List<SeatCategory> seatCategories;
+        public String seatMapImage;
+        public long start;
+        public String venueCode;
+    }
+
+    public static final class Price {
+
+        public int amount;
+        public long audienceSubCategoryId;
+        public long seatCategoryId;
+    }
+
+    public static final class SeatCategory {
+
+        public List<Area> areas;
+        public long seatCategoryId;
+    }
+
+    public static final class Area {
+
+        public long areaId;
+        public int[] blockIds;
+    }
+
+    /**
+     * canada.json形式的GeoJSON，幾乎都是浮點數陣列。
+     */
+    public static final class Canada {
+
+        public String type;
+        public List<Feature> features;
+    }
+
+    public static final class Feature {
+
+        public String type;
+        public Map<String, String> properties;
+        public Geometry geometry;
+    }
+
+    public static final class Geometry {
+
+        public String type;
+        public double[][][] coordinates;
+    }
+
+    // -----建構子-----
+    /**
+     * 私有的建構子，將無法被實體化。
+     */
+    private Models() {
+
+    }
+}
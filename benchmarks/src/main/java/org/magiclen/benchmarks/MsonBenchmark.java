@@ -0,0 +1,86 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.magiclen.json.JSONObject;
+import org.magiclen.mson.JSONType;
+import org.magiclen.mson.Mson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mson的fromString、toString、clone與toObject。
+ *
+ * @author Magic Len
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class MsonBenchmark {
+
+    // -----物件變數-----
+    @Param({"TWITTER", "CITM", "CANADA"})
+    public Corpus corpus;
+    private String json;
+    private JSONObject object;
+
+    // -----物件方法-----
+    @Setup
+    public void setup() {
+        json = corpus.json();
+        object = (JSONObject) Mson.fromString(json);
+    }
+
+    @Benchmark
+    public JSONType fromString() {
+        return Mson.fromString(json);
+    }
+
+    @Benchmark
+    public String toStringCompact() {
+        return Mson.toString(object, false);
+    }
+
+    @Benchmark
+    public String toStringFormatted() {
+        return Mson.toString(object, true);
+    }
+
+    @Benchmark
+    public JSONType deepClone() {
+        return Mson.clone(object);
+    }
+
+    @Benchmark
+    public Object toObject() {
+        return Mson.toObject(object, corpus.model);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.magiclen.json.JSONArray;
+import org.magiclen.mson.Mson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mson.sort。排序會改變陣列，所以每次都先複製一份亂序的陣列，複製本身的成本由copy單獨量測，兩者相減即為排序的成本。
+ *
+ * @author Magic Len
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class MsonSortBenchmark {
+
+    // -----類別常數-----
+    private static final Comparator<Object> ASCENDING = new Comparator<Object>() {
+        @Override
+        public int compare(final Object o1, final Object o2) {
+            return Integer.compare((Integer) o1, (Integer) o2);
+        }
+    };
+
+    // -----物件變數-----
+    @Param({"1000", "100000"})
+    public int size;
+    private List<Integer> shuffled;
+
+    // -----物件方法-----
+    @Setup
+    public void setup() {
+        final Random random = new Random(size);
+        shuffled = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            shuffled.add(random.nextInt());
+        }
+    }
+
+    @Benchmark
+    public JSONArray copy() {
+        return new JSONArray(shuffled);
+    }
+
+    @Benchmark
+    public JSONArray sort() {
+        final JSONArray array = new JSONArray(shuffled);
+        Mson.sort(array, ASCENDING);
+        return array;
+    }
+}
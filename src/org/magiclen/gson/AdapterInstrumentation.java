@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.FilterReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.magiclen.gson.internal.$Gson$Types;
+import org.magiclen.gson.internal.ClassLoaders;
+import org.magiclen.gson.internal.bind.InstrumentedTypeAdapter;
+import org.magiclen.gson.reflect.TypeToken;
+
+/**
+ * Collects per-type counts and timings of the type adapters of a
+ * {@link Gson}. Enable it with
+ * {@link GsonBuilder#enableAdapterInstrumentation(int)}, then read it with
+ * {@link #getAdapterStats()} or over JMX after {@link #registerMBean(ObjectName)}.
+ *
+ * <p>
+ * The adapters of user-defined types, collections, maps and enums, and those
+ * of user-registered type adapters, are instrumented. The adapters of
+ * primitives, strings and other built-in platform types are not, since they
+ * are called far too often to be worth it and never dominate the cost on
+ * their own.
+ */
+public final class AdapterInstrumentation implements AdapterInstrumentationMXBean {
+
+    private final int sampleInterval;
+    private final ConcurrentMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder> recorders
+            = new ConcurrentHashMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder>();
+    /**
+     * The recorders of types that involve classes from foreign class loaders,
+     * stored on such a class like the weak entries of the adapter cache, so
+     * they do not keep the class loader alive.
+     */
+    private final ClassValue<ConcurrentMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder>> foreignRecorders
+            = new ClassValue<ConcurrentMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder>>() {
+                @Override
+                protected ConcurrentMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder> computeValue(
+                        Class<?> type) {
+                    return new ConcurrentHashMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder>();
+                }
+            };
+    /**
+     * The classes that hold foreign recorders, held weakly.
+     */
+    private final Set<Class<?>> foreignAnchors
+            = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>()));
+
+    AdapterInstrumentation(int sampleInterval) {
+        this.sampleInterval = sampleInterval;
+    }
+
+    <T> TypeAdapter<T> wrap(TypeToken<T> type, TypeAdapter<T> adapter) {
+        return new InstrumentedTypeAdapter<T>(adapter, recorder(type));
+    }
+
+    InstrumentedTypeAdapter.Recorder recorder(TypeToken<?> type) {
+        ConcurrentMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder> recorders = recordersOf(type);
+        InstrumentedTypeAdapter.Recorder recorder = recorders.get(type);
+        if (recorder == null) {
+            InstrumentedTypeAdapter.Recorder newRecorder = new InstrumentedTypeAdapter.Recorder(sampleInterval);
+            recorder = recorders.putIfAbsent(type, newRecorder);
+            if (recorder == null) {
+                recorder = newRecorder;
+                if (recorders != this.recorders) {
+                    foreignAnchors.add(ClassLoaders.foreignClass(type.getType()));
+                }
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * Returns the map that holds the recorder of {@code type}.
+     */
+    private ConcurrentMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder> recordersOf(TypeToken<?> type) {
+        Class<?> anchor = ClassLoaders.foreignClass(type.getType());
+        if (anchor == null) {
+            return recorders;
+        }
+        return foreignRecorders.get(anchor);
+    }
+
+    /**
+     * Returns all maps of recorders, including those of foreign types that
+     * are still loaded.
+     */
+    private List<ConcurrentMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder>> allRecorders() {
+        List<ConcurrentMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder>> all
+                = new ArrayList<ConcurrentMap<TypeToken<?>, InstrumentedTypeAdapter.Recorder>>();
+        all.add(recorders);
+        synchronized (foreignAnchors) {
+            for (Class<?> anchor : foreignAnchors) {
+                all.add(foreignRecorders.get(anchor));
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of every type that has been read or
+     * written, ordered by their estimated total time, most expensive first.
+     */
+    @Override
+    public List<AdapterStats> getAdapterStats() {
+        List<AdapterStats> stats = new ArrayList<AdapterStats>(recorders.size());
+        for (Map<TypeToken<?>, InstrumentedTypeAdapter.Recorder> map : allRecorders()) {
+            for (Map.Entry<TypeToken<?>, InstrumentedTypeAdapter.Recorder> entry : map.entrySet()) {
+                stats.add(snapshot(entry.getKey(), entry.getValue()));
+            }
+        }
+        Collections.sort(stats, new Comparator<AdapterStats>() {
+            @Override
+            public int compare(AdapterStats a, AdapterStats b) {
+                long x = a.getEstimatedTotalNanos();
+                long y = b.getEstimatedTotalNanos();
+                return x > y ? -1 : x < y ? 1 : 0;
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of {@code type}, or null if its
+     * adapter has not been instrumented.
+     */
+    public AdapterStats getAdapterStats(TypeToken<?> type) {
+        InstrumentedTypeAdapter.Recorder recorder = recordersOf(type).get(type);
+        return recorder != null ? snapshot(type, recorder) : null;
+    }
+
+    private AdapterStats snapshot(TypeToken<?> type, InstrumentedTypeAdapter.Recorder recorder) {
+        InstrumentedTypeAdapter.Histogram reads = recorder.getReadLatency();
+        InstrumentedTypeAdapter.Histogram writes = recorder.getWriteLatency();
+        return new AdapterStats($Gson$Types.typeToString(type.getType()), sampleInterval,
+                recorder.getReadCount(), recorder.getWriteCount(),
+                recorder.getCharsRead(), recorder.getCharsWritten(),
+                reads.getTotalNanos(), writes.getTotalNanos(),
+                reads.getBuckets(), writes.getBuckets());
+    }
+
+    /**
+     * Adds to the chars read for {@code type} if it is instrumented.
+     */
+    void addCharsRead(Type type, long chars) {
+        TypeToken<?> token = TypeToken.get(type);
+        InstrumentedTypeAdapter.Recorder recorder = recordersOf(token).get(token);
+        if (recorder != null) {
+            recorder.addCharsRead(chars);
+        }
+    }
+
+    /**
+     * Adds to the chars written for {@code type} if it is instrumented.
+     */
+    void addCharsWritten(Type type, long chars) {
+        TypeToken<?> token = TypeToken.get(type);
+        InstrumentedTypeAdapter.Recorder recorder = recordersOf(token).get(token);
+        if (recorder != null) {
+            recorder.addCharsWritten(chars);
+        }
+    }
+
+    /**
+     * Clears the statistics of every type. Updates made concurrently may be
+     * lost.
+     */
+    @Override
+    public void reset() {
+        for (Map<TypeToken<?>, InstrumentedTypeAdapter.Recorder> map : allRecorders()) {
+            for (InstrumentedTypeAdapter.Recorder recorder : map.values()) {
+                recorder.reset();
+            }
+        }
+    }
+
+    /**
+     * Registers this instrumentation with the platform MBean server under
+     * {@code name}.
+     *
+     * @throws JMException if the registration fails, for example because the
+     * name is taken.
+     */
+    public void registerMBean(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+    }
+
+    /**
+     * Counts the chars read through it.
+     */
+    static final class CountingReader extends FilterReader {
+
+        long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = in.read();
+            if (c != -1) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Counts the chars written through it.
+     */
+    static final class CountingWriter extends FilterWriter {
+
+        long count;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String s, int offset, int length) throws IOException {
+            out.write(s, offset, length);
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A snapshot of the instrumentation data of the type adapter of one type.
+ *
+ * <p>
+ * Reads and writes are counted exactly. Their durations are measured for a
+ * sample of one in {@link #getSampleInterval()} calls and include the time
+ * spent in the adapters of nested values. They are kept in histograms whose
+ * bucket {@code i} counts the durations of {@code i} significant bits in
+ * nanoseconds, that is, from {@code 2^(i-1)} up to {@code 2^i - 1}.
+ *
+ * <p>
+ * Chars are only counted for the type passed to {@code toJson} or
+ * {@code fromJson}, as the length of the whole JSON text.
+ *
+ * @see AdapterInstrumentation
+ */
+public final class AdapterStats {
+
+    private final String type;
+    private final int sampleInterval;
+    private final long readCount;
+    private final long writeCount;
+    private final long charsRead;
+    private final long charsWritten;
+    private final long readTotalNanos;
+    private final long writeTotalNanos;
+    private final long[] readLatencyHistogram;
+    private final long[] writeLatencyHistogram;
+
+    @ConstructorProperties({"type", "sampleInterval", "readCount", "writeCount", "charsRead", "charsWritten",
+        "readTotalNanos", "writeTotalNanos", "readLatencyHistogram", "writeLatencyHistogram"})
+    public AdapterStats(String type, int sampleInterval, long readCount, long writeCount, long charsRead,
+            long charsWritten, long readTotalNanos, long writeTotalNanos, long[] readLatencyHistogram,
+            long[] writeLatencyHistogram) {
+        this.type = type;
+        this.sampleInterval = sampleInterval;
+        this.readCount = readCount;
+        this.writeCount = writeCount;
+        this.charsRead = charsRead;
+        this.charsWritten = charsWritten;
+        this.readTotalNanos = readTotalNanos;
+        this.writeTotalNanos = writeTotalNanos;
+        this.readLatencyHistogram = readLatencyHistogram.clone();
+        this.writeLatencyHistogram = writeLatencyHistogram.clone();
+    }
+
+    /**
+     * Returns the name of the type.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns how many calls there are for each timed call.
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Returns the number of values read.
+     */
+    public long getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * Returns the number of values written.
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Returns the number of chars of JSON text read for this type.
+     */
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    /**
+     * Returns the number of chars of JSON text written for this type.
+     */
+    public long getCharsWritten() {
+        return charsWritten;
+    }
+
+    /**
+     * Returns the total duration of the timed reads.
+     */
+    public long getReadTotalNanos() {
+        return readTotalNanos;
+    }
+
+    /**
+     * Returns the total duration of the timed writes.
+     */
+    public long getWriteTotalNanos() {
+        return writeTotalNanos;
+    }
+
+    /**
+     * Returns the histogram of the durations of the timed reads.
+     */
+    public long[] getReadLatencyHistogram() {
+        return readLatencyHistogram.clone();
+    }
+
+    /**
+     * Returns the histogram of the durations of the timed writes.
+     */
+    public long[] getWriteLatencyHistogram() {
+        return writeLatencyHistogram.clone();
+    }
+
+    /**
+     * Returns the estimated time spent reading and writing values of this
+     * type, extrapolated from the timed calls.
+     */
+    public long getEstimatedTotalNanos() {
+        return (readTotalNanos + writeTotalNanos) * sampleInterval;
+    }
+
+    /**
+     * Returns an upper bound of the given quantile of the read durations, or 0
+     * if no read was timed.
+     *
+     * @param quantile between 0 and 1, such as 0.99 for the 99th percentile.
+     */
+    public long readLatencyQuantile(double quantile) {
+        return quantile(readLatencyHistogram, quantile);
+    }
+
+    /**
+     * Returns an upper bound of the given quantile of the write durations, or
+     * 0 if no write was timed.
+     *
+     * @param quantile between 0 and 1, such as 0.99 for the 99th percentile.
+     */
+    public long writeLatencyQuantile(double quantile) {
+        return quantile(writeLatencyHistogram, quantile);
+    }
+
+    private static long quantile(long[] histogram, double quantile) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) {
+                return i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "{type:" + type + ",readCount:" + readCount + ",writeCount:" + writeCount
+                + ",charsRead:" + charsRead + ",charsWritten:" + charsWritten
+                + ",estimatedTotalNanos:" + getEstimatedTotalNanos() + "}";
+    }
+}
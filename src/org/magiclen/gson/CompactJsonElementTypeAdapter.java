@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2009 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.magiclen.gson.internal.CompactLinkedMap;
+import org.magiclen.gson.internal.LazilyParsedNumber;
+import org.magiclen.gson.internal.bind.TypeAdapters;
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonWriter;
+
+/**
+ * Reads parse trees that take less heap than those of
+ * {@link TypeAdapters#JSON_ELEMENT}, for applications that keep large trees
+ * resident. Objects are backed by a {@link CompactLinkedMap}, arrays are
+ * trimmed to their size, and {@code true}, {@code false}, the empty string and
+ * small integers are shared {@link JsonPrimitive} instances. The trees are
+ * otherwise indistinguishable from ordinary ones, and are written the same
+ * way.
+ */
+final class CompactJsonElementTypeAdapter extends TypeAdapter<JsonElement> {
+
+    static final CompactJsonElementTypeAdapter INSTANCE = new CompactJsonElementTypeAdapter();
+
+    static final TypeAdapterFactory FACTORY
+            = TypeAdapters.newTypeHierarchyFactory(JsonElement.class, INSTANCE);
+
+    private static final JsonPrimitive TRUE = new JsonPrimitive(Boolean.TRUE);
+    private static final JsonPrimitive FALSE = new JsonPrimitive(Boolean.FALSE);
+    private static final JsonPrimitive EMPTY_STRING = new JsonPrimitive("");
+
+    private static final int MIN_CACHED_INT = -128;
+    private static final int MAX_CACHED_INT = 1023;
+    private static final JsonPrimitive[] SMALL_INTS = new JsonPrimitive[MAX_CACHED_INT - MIN_CACHED_INT + 1];
+
+    static {
+        for (int i = MIN_CACHED_INT; i <= MAX_CACHED_INT; i++) {
+            SMALL_INTS[i - MIN_CACHED_INT] = new JsonPrimitive(new LazilyParsedNumber(Integer.toString(i)));
+        }
+    }
+
+    private CompactJsonElementTypeAdapter() {
+    }
+
+    /**
+     * Returns the shared primitive for {@code number} if it is a small integer
+     * written in its canonical form, or null.
+     */
+    private static JsonPrimitive smallInt(String number) {
+        int length = number.length();
+        int start = number.charAt(0) == '-' ? 1 : 0;
+        int digits = length - start;
+        if (digits < 1 || digits > 4 || (digits > 1 && number.charAt(start) == '0')) {
+            return null;
+        }
+        int value = 0;
+        for (int i = start; i < length; i++) {
+            char c = number.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (start == 1) {
+            if (value == 0) {
+                return null; // keep "-0" as written
+            }
+            value = -value;
+        }
+        return value >= MIN_CACHED_INT && value <= MAX_CACHED_INT ? SMALL_INTS[value - MIN_CACHED_INT] : null;
+    }
+
+    @Override
+    public JsonElement read(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case STRING:
+                String string = in.nextString();
+                return string.isEmpty() ? EMPTY_STRING : new JsonPrimitive(string);
+            case NUMBER:
+                String number = in.nextString();
+                JsonPrimitive shared = smallInt(number);
+                return shared != null ? shared : new JsonPrimitive(new LazilyParsedNumber(number));
+            case BOOLEAN:
+                return in.nextBoolean() ? TRUE : FALSE;
+            case NULL:
+                in.nextNull();
+                return JsonNull.INSTANCE;
+            case BEGIN_ARRAY:
+                List<JsonElement> elements = new ArrayList<JsonElement>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    elements.add(read(in));
+                }
+                in.endArray();
+                return JsonArray.trimmed(elements);
+            case BEGIN_OBJECT:
+                JsonObject object = new JsonObject(new CompactLinkedMap<String, JsonElement>());
+                in.beginObject();
+                while (in.hasNext()) {
+                    object.add(in.nextName(), read(in));
+                }
+                in.endObject();
+                object.trimToSize();
+                return object;
+            case END_DOCUMENT:
+            case NAME:
+            case END_OBJECT:
+            case END_ARRAY:
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public void write(JsonWriter out, JsonElement value) throws IOException {
+        TypeAdapters.JSON_ELEMENT.write(out, value);
+    }
+}
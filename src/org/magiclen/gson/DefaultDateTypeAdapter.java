@@ -25,6 +25,7 @@ import java.util.Date;
 import java.util.Locale;
 
 import org.magiclen.gson.internal.bind.util.ISO8601Utils;
+import org.magiclen.gson.internal.bind.util.ThreadLocalDateFormat;
 import org.magiclen.gson.stream.JsonReader;
 import org.magiclen.gson.stream.JsonToken;
 import org.magiclen.gson.stream.JsonWriter;
@@ -41,8 +42,8 @@ final class DefaultDateTypeAdapter extends TypeAdapter<Date> {
     private static final String SIMPLE_NAME = "DefaultDateTypeAdapter";
 
     private final Class<? extends Date> dateType;
-    private final DateFormat enUsFormat;
-    private final DateFormat localFormat;
+    private final ThreadLocalDateFormat enUsFormat;
+    private final ThreadLocalDateFormat localFormat;
 
     DefaultDateTypeAdapter(Class<? extends Date> dateType) {
         this(dateType,
@@ -75,18 +76,16 @@ final class DefaultDateTypeAdapter extends TypeAdapter<Date> {
             throw new IllegalArgumentException("Date type must be one of " + Date.class + ", " + Timestamp.class + ", or " + java.sql.Date.class + " but was " + dateType);
         }
         this.dateType = dateType;
-        this.enUsFormat = enUsFormat;
-        this.localFormat = localFormat;
+        this.enUsFormat = new ThreadLocalDateFormat(enUsFormat);
+        this.localFormat = new ThreadLocalDateFormat(localFormat);
     }
 
-    // These methods need to be synchronized since JDK DateFormat classes are not thread-safe
-    // See issue 162
+    // JDK DateFormat classes are not thread-safe (see issue 162), so every
+    // thread formats and parses with its own copy of them
     @Override
     public void write(JsonWriter out, Date value) throws IOException {
-        synchronized (localFormat) {
-            String dateFormatAsString = enUsFormat.format(value);
-            out.value(dateFormatAsString);
-        }
+        String dateFormatAsString = enUsFormat.format(value);
+        out.value(dateFormatAsString);
     }
 
     @Override
@@ -108,20 +107,18 @@ final class DefaultDateTypeAdapter extends TypeAdapter<Date> {
     }
 
     private Date deserializeToDate(String s) {
-        synchronized (localFormat) {
-            try {
-                return localFormat.parse(s);
-            } catch (ParseException ignored) {
-            }
-            try {
-                return enUsFormat.parse(s);
-            } catch (ParseException ignored) {
-            }
-            try {
-                return ISO8601Utils.parse(s, new ParsePosition(0));
-            } catch (ParseException e) {
-                throw new JsonSyntaxException(s, e);
-            }
+        Date date = localFormat.parse(s);
+        if (date != null) {
+            return date;
+        }
+        date = enUsFormat.parse(s);
+        if (date != null) {
+            return date;
+        }
+        try {
+            return ISO8601Utils.parse(s, new ParsePosition(0));
+        } catch (ParseException e) {
+            throw new JsonSyntaxException(s, e);
         }
     }
 
@@ -129,7 +126,7 @@ final class DefaultDateTypeAdapter extends TypeAdapter<Date> {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(SIMPLE_NAME);
-        sb.append('(').append(localFormat.getClass().getSimpleName()).append(')');
+        sb.append('(').append(localFormat.getPrototype().getClass().getSimpleName()).append(')');
         return sb.toString();
     }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+/**
+ * Defines how Gson reads and writes the fields of reflectively bound classes
+ * and invokes their no-args constructors.
+ *
+ * @see GsonBuilder#setFieldAccessPolicy(FieldAccessPolicy)
+ */
+public enum FieldAccessPolicy {
+    /**
+     * Uses {@link java.lang.reflect.Field} and
+     * {@link java.lang.reflect.Constructor} directly. This is the default.
+     */
+    REFLECTION,
+    /**
+     * Uses {@link java.lang.invoke.MethodHandle}s unreflected from the fields
+     * and constructors, with unboxed paths for primitive fields. Members that
+     * cannot be unreflected, such as {@code final} fields, fall back to
+     * {@link #REFLECTION}.
+     */
+    METHOD_HANDLES
+}
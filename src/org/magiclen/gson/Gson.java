@@ -15,8 +15,12 @@
  */
 package org.magiclen.gson;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -24,32 +28,48 @@ import java.io.Writer;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.magiclen.gson.internal.$Gson$Types;
 import org.magiclen.gson.internal.ConstructorConstructor;
 import org.magiclen.gson.internal.Excluder;
+import org.magiclen.gson.internal.JsonSplitter;
+import org.magiclen.gson.internal.MappedFileReader;
 import org.magiclen.gson.internal.Primitives;
 import org.magiclen.gson.internal.Streams;
+import org.magiclen.gson.internal.TypeAdapterCache;
 import org.magiclen.gson.internal.bind.ArrayTypeAdapter;
 import org.magiclen.gson.internal.bind.CollectionTypeAdapterFactory;
 import org.magiclen.gson.internal.bind.DateTypeAdapter;
+import org.magiclen.gson.internal.bind.GeneratedTypeAdapterFactory;
 import org.magiclen.gson.internal.bind.JsonAdapterAnnotationTypeAdapterFactory;
 import org.magiclen.gson.internal.bind.JsonTreeReader;
 import org.magiclen.gson.internal.bind.JsonTreeWriter;
 import org.magiclen.gson.internal.bind.MapTypeAdapterFactory;
 import org.magiclen.gson.internal.bind.ObjectTypeAdapter;
+import org.magiclen.gson.internal.bind.PrimitiveArrayTypeAdapterFactory;
 import org.magiclen.gson.internal.bind.ReflectiveTypeAdapterFactory;
 import org.magiclen.gson.internal.bind.SqlDateTypeAdapter;
 import org.magiclen.gson.internal.bind.TimeTypeAdapter;
 import org.magiclen.gson.internal.bind.TypeAdapters;
 import org.magiclen.gson.reflect.TypeToken;
+import org.magiclen.gson.stream.BinaryJsonReader;
+import org.magiclen.gson.stream.BinaryJsonWriter;
 import org.magiclen.gson.stream.JsonReader;
 import org.magiclen.gson.stream.JsonToken;
 import org.magiclen.gson.stream.JsonWriter;
@@ -115,9 +135,18 @@ public final class Gson {
     static final boolean DEFAULT_SERIALIZE_NULLS = false;
     static final boolean DEFAULT_COMPLEX_MAP_KEYS = false;
     static final boolean DEFAULT_SPECIALIZE_FLOAT_VALUES = false;
+    static final int DEFAULT_ADAPTER_CACHE_SIZE = 0;
+    static final boolean DEFAULT_WEAK_ADAPTER_CACHE_KEYS = false;
+    static final boolean DEFAULT_COMPACT_JSON_TREE = false;
+    static final int DEFAULT_INSTRUMENTATION_SAMPLE_INTERVAL = 0;
 
     private static final TypeToken<?> NULL_KEY_SURROGATE = TypeToken.get(Object.class);
     private static final String JSON_NON_EXECUTABLE_PREFIX = ")]}'\n";
+    /**
+     * The least length of the chunks bound by fromJsonParallel, in chars or
+     * bytes.
+     */
+    private static final int PARALLEL_CHUNK_LENGTH = 256 * 1024;
 
     /**
      * This thread local guards against reentrant calls to getAdapter(). In
@@ -129,7 +158,7 @@ public final class Gson {
     private final ThreadLocal<Map<TypeToken<?>, FutureTypeAdapter<?>>> calls
             = new ThreadLocal<Map<TypeToken<?>, FutureTypeAdapter<?>>>();
 
-    private final Map<TypeToken<?>, TypeAdapter<?>> typeTokenCache = new ConcurrentHashMap<TypeToken<?>, TypeAdapter<?>>();
+    private final TypeAdapterCache typeTokenCache;
 
     private final List<TypeAdapterFactory> factories;
     private final ConstructorConstructor constructorConstructor;
@@ -142,6 +171,12 @@ public final class Gson {
     private final boolean prettyPrinting;
     private final boolean lenient;
     private final JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory;
+    private final AdapterInstrumentation instrumentation;
+    /**
+     * Whether the adapters created by each of {@link #factories} are
+     * instrumented.
+     */
+    private final boolean[] instrumentedFactories;
 
     /**
      * Constructs a Gson object with default configuration. The default
@@ -193,16 +228,20 @@ public final class Gson {
                 Collections.<Type, InstanceCreator<?>>emptyMap(), DEFAULT_SERIALIZE_NULLS,
                 DEFAULT_COMPLEX_MAP_KEYS, DEFAULT_JSON_NON_EXECUTABLE, DEFAULT_ESCAPE_HTML,
                 DEFAULT_PRETTY_PRINT, DEFAULT_LENIENT, DEFAULT_SPECIALIZE_FLOAT_VALUES,
-                LongSerializationPolicy.DEFAULT, Collections.<TypeAdapterFactory>emptyList());
+                LongSerializationPolicy.DEFAULT, FieldAccessPolicy.REFLECTION,
+                DEFAULT_ADAPTER_CACHE_SIZE, DEFAULT_WEAK_ADAPTER_CACHE_KEYS, DEFAULT_COMPACT_JSON_TREE,
+                DEFAULT_INSTRUMENTATION_SAMPLE_INTERVAL, Collections.<TypeAdapterFactory>emptyList());
     }
 
     Gson(final Excluder excluder, final FieldNamingStrategy fieldNamingStrategy,
             final Map<Type, InstanceCreator<?>> instanceCreators, boolean serializeNulls,
             boolean complexMapKeySerialization, boolean generateNonExecutableGson, boolean htmlSafe,
             boolean prettyPrinting, boolean lenient, boolean serializeSpecialFloatingPointValues,
-            LongSerializationPolicy longSerializationPolicy,
-            List<TypeAdapterFactory> typeAdapterFactories) {
-        this.constructorConstructor = new ConstructorConstructor(instanceCreators);
+            LongSerializationPolicy longSerializationPolicy, FieldAccessPolicy fieldAccessPolicy,
+            int adapterCacheSize, boolean weakAdapterCacheKeys, boolean compactJsonTree,
+            int instrumentationSampleInterval, List<TypeAdapterFactory> typeAdapterFactories) {
+        this.typeTokenCache = new TypeAdapterCache(adapterCacheSize, weakAdapterCacheKeys);
+        this.constructorConstructor = new ConstructorConstructor(instanceCreators, fieldAccessPolicy);
         this.excluder = excluder;
         this.fieldNamingStrategy = fieldNamingStrategy;
         this.serializeNulls = serializeNulls;
@@ -210,18 +249,27 @@ public final class Gson {
         this.htmlSafe = htmlSafe;
         this.prettyPrinting = prettyPrinting;
         this.lenient = lenient;
+        this.instrumentation = instrumentationSampleInterval > 0
+                ? new AdapterInstrumentation(instrumentationSampleInterval) : null;
 
         List<TypeAdapterFactory> factories = new ArrayList<TypeAdapterFactory>();
 
         // built-in type adapters that cannot be overridden
-        factories.add(TypeAdapters.JSON_ELEMENT_FACTORY);
-        factories.add(ObjectTypeAdapter.FACTORY);
+        if (compactJsonTree) {
+            factories.add(CompactJsonElementTypeAdapter.FACTORY);
+            factories.add(ObjectTypeAdapter.COMPACT_FACTORY);
+        } else {
+            factories.add(TypeAdapters.JSON_ELEMENT_FACTORY);
+            factories.add(ObjectTypeAdapter.FACTORY);
+        }
 
         // the excluder must precede all adapters that handle user-defined types
         factories.add(excluder);
 
         // user's type adapters
+        int userFactoriesStart = factories.size();
         factories.addAll(typeAdapterFactories);
+        int userFactoriesEnd = factories.size();
 
         // type adapters for basic platform types
         factories.add(TypeAdapters.STRING_FACTORY);
@@ -231,10 +279,10 @@ public final class Gson {
         factories.add(TypeAdapters.SHORT_FACTORY);
         TypeAdapter<Number> longAdapter = longAdapter(longSerializationPolicy);
         factories.add(TypeAdapters.newFactory(long.class, Long.class, longAdapter));
-        factories.add(TypeAdapters.newFactory(double.class, Double.class,
-                doubleAdapter(serializeSpecialFloatingPointValues)));
-        factories.add(TypeAdapters.newFactory(float.class, Float.class,
-                floatAdapter(serializeSpecialFloatingPointValues)));
+        TypeAdapter<Number> doubleAdapter = doubleAdapter(serializeSpecialFloatingPointValues);
+        factories.add(TypeAdapters.newFactory(double.class, Double.class, doubleAdapter));
+        TypeAdapter<Number> floatAdapter = floatAdapter(serializeSpecialFloatingPointValues);
+        factories.add(TypeAdapters.newFactory(float.class, Float.class, floatAdapter));
         factories.add(TypeAdapters.NUMBER_FACTORY);
         factories.add(TypeAdapters.ATOMIC_INTEGER_FACTORY);
         factories.add(TypeAdapters.ATOMIC_BOOLEAN_FACTORY);
@@ -258,19 +306,30 @@ public final class Gson {
         factories.add(TimeTypeAdapter.FACTORY);
         factories.add(SqlDateTypeAdapter.FACTORY);
         factories.add(TypeAdapters.TIMESTAMP_FACTORY);
+        factories.add(new PrimitiveArrayTypeAdapterFactory(doubleAdapter, floatAdapter,
+                serializeSpecialFloatingPointValues));
         factories.add(ArrayTypeAdapter.FACTORY);
         factories.add(TypeAdapters.CLASS_FACTORY);
 
         // type adapters for composite and user-defined types
+        int compositeFactoriesStart = factories.size();
         factories.add(new CollectionTypeAdapterFactory(constructorConstructor));
         factories.add(new MapTypeAdapterFactory(constructorConstructor, complexMapKeySerialization));
         this.jsonAdapterFactory = new JsonAdapterAnnotationTypeAdapterFactory(constructorConstructor);
         factories.add(jsonAdapterFactory);
         factories.add(TypeAdapters.ENUM_FACTORY);
+        factories.add(new GeneratedTypeAdapterFactory(jsonAdapterFactory));
         factories.add(new ReflectiveTypeAdapterFactory(
-                constructorConstructor, fieldNamingStrategy, excluder, jsonAdapterFactory));
+                constructorConstructor, fieldNamingStrategy, excluder, jsonAdapterFactory,
+                fieldAccessPolicy, doubleAdapter, serializeSpecialFloatingPointValues));
 
         this.factories = Collections.unmodifiableList(factories);
+
+        this.instrumentedFactories = new boolean[factories.size()];
+        for (int i = 0; i < instrumentedFactories.length; i++) {
+            instrumentedFactories[i] = instrumentation != null
+                    && (i >= userFactoriesStart && i < userFactoriesEnd || i >= compositeFactoriesStart);
+        }
     }
 
     public Excluder excluder() {
@@ -452,9 +511,12 @@ public final class Gson {
             FutureTypeAdapter<T> call = new FutureTypeAdapter<T>();
             threadCalls.put(type, call);
 
-            for (TypeAdapterFactory factory : factories) {
-                TypeAdapter<T> candidate = factory.create(this, type);
+            for (int i = 0, size = factories.size(); i < size; i++) {
+                TypeAdapter<T> candidate = factories.get(i).create(this, type);
                 if (candidate != null) {
+                    if (instrumentedFactories[i]) {
+                        candidate = instrumentation.wrap(type, candidate);
+                    }
                     call.setDelegate(candidate);
                     typeTokenCache.put(type, candidate);
                     return candidate;
@@ -470,6 +532,139 @@ public final class Gson {
         }
     }
 
+    /**
+     * Creates and caches the type adapters for {@code types} ahead of their
+     * first use, so that the first call to {@code toJson} or {@code fromJson}
+     * for these types does not pay for adapter discovery.
+     *
+     * @throws IllegalArgumentException if this GSON cannot serialize and
+     * deserialize one of the types.
+     */
+    public void prewarm(Type... types) {
+        for (Type type : types) {
+            getAdapter(TypeToken.get(type));
+        }
+    }
+
+    /**
+     * Like {@link #prewarm(Type...)}, but creates the type adapters
+     * concurrently on {@code executor} and waits until all of them are done.
+     *
+     * @throws IllegalArgumentException if this GSON cannot serialize and
+     * deserialize one of the types.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void prewarm(Executor executor, Type... types) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(types.length);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+        for (final Type type : types) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        getAdapter(TypeToken.get(type));
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        done.await();
+        RuntimeException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the current statistics of the type adapter cache.
+     *
+     * @see GsonBuilder#setAdapterCacheMaximumSize(int)
+     */
+    public AdapterCacheStats getAdapterCacheStats() {
+        return new AdapterCacheStats(typeTokenCache.hitCount(), typeTokenCache.missCount(),
+                typeTokenCache.evictionCount(), typeTokenCache.size());
+    }
+
+    /**
+     * Returns the per-type statistics of the type adapters of this Gson.
+     *
+     * @throws IllegalStateException if instrumentation is not enabled.
+     * @see GsonBuilder#enableAdapterInstrumentation(int)
+     */
+    public AdapterInstrumentation getAdapterInstrumentation() {
+        if (instrumentation == null) {
+            throw new IllegalStateException("Adapter instrumentation is not enabled");
+        }
+        return instrumentation;
+    }
+
+    /**
+     * Returns the types whose type adapters are held strongly in the cache of
+     * this Gson.
+     */
+    public List<Type> getResolvedTypes() {
+        List<Type> types = new ArrayList<Type>();
+        for (TypeToken<?> typeToken : typeTokenCache.types()) {
+            types.add(typeToken.getType());
+        }
+        return types;
+    }
+
+    /**
+     * Writes the types whose type adapters have been created so far to
+     * {@code writer}, one per line. Record them after a warm-up run and pass
+     * them to {@link #readResolvedTypes(Reader, ClassLoader)} and
+     * {@link #prewarm(Type...)} at the next startup. Types containing type
+     * variables are left out.
+     *
+     * @throws JsonIOException if there was a problem writing to the writer
+     */
+    public void writeResolvedTypes(Appendable writer) throws JsonIOException {
+        try {
+            for (Type type : getResolvedTypes()) {
+                if (!$Gson$Types.containsTypeVariable(type)) {
+                    writer.append($Gson$Types.typeToString(type)).append('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Reads the types written by {@link #writeResolvedTypes(Appendable)}. Types
+     * naming classes that cannot be loaded by {@code classLoader} are skipped.
+     *
+     * @throws JsonIOException if there was a problem reading from the reader
+     * @throws JsonSyntaxException if a line is not a valid type
+     */
+    public static List<Type> readResolvedTypes(Reader reader, ClassLoader classLoader)
+            throws JsonIOException, JsonSyntaxException {
+        List<Type> types = new ArrayList<Type>();
+        BufferedReader lines = new BufferedReader(reader);
+        try {
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                line = line.trim();
+                if (line.length() == 0) {
+                    continue;
+                }
+                try {
+                    types.add($Gson$Types.parseType(line, classLoader));
+                } catch (ClassNotFoundException e) {
+                    // the class has gone away since the snapshot was taken
+                } catch (IllegalArgumentException e) {
+                    throw new JsonSyntaxException("Malformed type: " + line, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return types;
+    }
+
     /**
      * This method is used to get an alternate type adapter for the specified
      * type. This is used to access a type adapter that is overridden by a
@@ -695,8 +890,14 @@ public final class Gson {
      */
     public void toJson(Object src, Type typeOfSrc, Appendable writer) throws JsonIOException {
         try {
-            JsonWriter jsonWriter = newJsonWriter(Streams.writerForAppendable(writer));
-            toJson(src, typeOfSrc, jsonWriter);
+            Writer out = Streams.writerForAppendable(writer);
+            if (instrumentation == null) {
+                toJson(src, typeOfSrc, newJsonWriter(out));
+                return;
+            }
+            AdapterInstrumentation.CountingWriter counter = new AdapterInstrumentation.CountingWriter(out);
+            toJson(src, typeOfSrc, newJsonWriter(counter));
+            instrumentation.addCharsWritten(typeOfSrc, counter.count);
         } catch (IOException e) {
             throw new JsonIOException(e);
         }
@@ -785,6 +986,28 @@ public final class Gson {
         return jsonReader;
     }
 
+    /**
+     * Returns a new binary JSON writer configured for the settings on this
+     * Gson instance. Pass it to {@link #toJson(Object, Type, JsonWriter)} to
+     * write objects in the binary encoding.
+     */
+    public BinaryJsonWriter newBinaryJsonWriter(OutputStream out) {
+        BinaryJsonWriter jsonWriter = new BinaryJsonWriter(out);
+        jsonWriter.setSerializeNulls(serializeNulls);
+        return jsonWriter;
+    }
+
+    /**
+     * Returns a new binary JSON reader configured for the settings on this
+     * Gson instance. Pass it to {@link #fromJson(JsonReader, Type)} to read
+     * objects in the binary encoding.
+     */
+    public BinaryJsonReader newBinaryJsonReader(InputStream in) {
+        BinaryJsonReader jsonReader = new BinaryJsonReader(in);
+        jsonReader.setLenient(lenient);
+        return jsonReader;
+    }
+
     /**
      * Writes the JSON for {@code jsonElement} to {@code writer}.
      *
@@ -891,9 +1114,7 @@ public final class Gson {
      * @since 1.2
      */
     public <T> T fromJson(Reader json, Class<T> classOfT) throws JsonSyntaxException, JsonIOException {
-        JsonReader jsonReader = newJsonReader(json);
-        Object object = fromJson(jsonReader, classOfT);
-        assertFullConsumption(object, jsonReader);
+        Object object = fromJson(json, (Type) classOfT);
         return Primitives.wrap(classOfT).cast(object);
     }
 
@@ -923,12 +1144,70 @@ public final class Gson {
      */
     @SuppressWarnings("unchecked")
     public <T> T fromJson(Reader json, Type typeOfT) throws JsonIOException, JsonSyntaxException {
+        AdapterInstrumentation.CountingReader counter = null;
+        if (instrumentation != null) {
+            json = counter = new AdapterInstrumentation.CountingReader(json);
+        }
         JsonReader jsonReader = newJsonReader(json);
         T object = (T) fromJson(jsonReader, typeOfT);
         assertFullConsumption(object, jsonReader);
+        if (counter != null) {
+            instrumentation.addCharsRead(typeOfT, counter.count);
+        }
         return object;
     }
 
+    /**
+     * This method deserializes the UTF-8 encoded Json in the file at
+     * {@code json} into an object of the specified class. The file is
+     * memory-mapped and decoded straight into the parser's buffer, so large
+     * files are read without copying them through intermediate buffers.
+     *
+     * @param <T> the type of the desired object
+     * @param json the path of the file holding the Json
+     * @param classOfT the class of T
+     * @return an object of type T from the file. Returns {@code null} if the
+     * file is empty.
+     * @throws JsonIOException if there was a problem reading the file
+     * @throws JsonSyntaxException if the file does not hold a valid
+     * representation for an object of type classOfT
+     */
+    public <T> T fromJson(Path json, Class<T> classOfT) throws JsonSyntaxException, JsonIOException {
+        Object object = fromJson(json, (Type) classOfT);
+        return Primitives.wrap(classOfT).cast(object);
+    }
+
+    /**
+     * This method deserializes the UTF-8 encoded Json in the file at
+     * {@code json} into an object of the specified type. See
+     * {@link #fromJson(Path, Class)}.
+     *
+     * @param <T> the type of the desired object
+     * @param json the path of the file holding the Json
+     * @param typeOfT The specific genericized type of src
+     * @return an object of type T from the file. Returns {@code null} if the
+     * file is empty.
+     * @throws JsonIOException if there was a problem reading the file
+     * @throws JsonSyntaxException if the file does not hold a valid
+     * representation for an object of type typeOfT
+     */
+    public <T> T fromJson(Path json, Type typeOfT) throws JsonIOException, JsonSyntaxException {
+        MappedFileReader reader;
+        try {
+            reader = new MappedFileReader(json);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        try {
+            return fromJson(reader, typeOfT);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
     private static void assertFullConsumption(Object obj, JsonReader reader) {
         try {
             if (obj != null && reader.peek() != JsonToken.END_DOCUMENT) {
@@ -982,6 +1261,301 @@ public final class Gson {
         }
     }
 
+    /**
+     * Returns an iterator that binds the values of {@code json} one at a time,
+     * for JSON texts too large to be bound at once. The text is either a single
+     * top-level array, whose elements are returned, or a sequence of top-level
+     * values such as newline-delimited JSON, as stated by {@code layout}. The
+     * reader is closed with the iterator, or once the last value has been
+     * returned.
+     *
+     * <p>
+     * Java 7 has no {@code java.util.stream}; the returned iterator is also
+     * {@link java.io.Closeable} so it can be used in try-with-resources.
+     *
+     * @param <T> the type of the values
+     * @param json the reader producing the JSON text
+     * @param layout whether the values are the elements of a top-level array
+     * or a sequence of top-level values
+     * @param classOfT the class of each value
+     * @return an iterator over the values, in order
+     */
+    public <T> JsonValueIterator<T> stream(Reader json, JsonLayout layout, Class<T> classOfT) {
+        return stream(json, layout, TypeToken.get(classOfT));
+    }
+
+    /**
+     * Returns an iterator that binds the values of {@code json} one at a time.
+     * See {@link #stream(Reader, JsonLayout, Class)}.
+     *
+     * @param <T> the type of the values
+     * @param json the reader producing the JSON text
+     * @param layout whether the values are the elements of a top-level array
+     * or a sequence of top-level values
+     * @param typeOfT the type of each value
+     * @return an iterator over the values, in order
+     */
+    @SuppressWarnings("unchecked")
+    public <T> JsonValueIterator<T> stream(Reader json, JsonLayout layout, Type typeOfT) {
+        return stream(json, layout, (TypeToken<T>) TypeToken.get(typeOfT));
+    }
+
+    private <T> JsonValueIterator<T> stream(Reader json, JsonLayout layout, TypeToken<T> typeToken) {
+        return new JsonValueIterator<T>(newJsonReader(json), layout, getAdapter(typeToken));
+    }
+
+    /**
+     * Returns a binder for UTF-8 encoded JSON that arrives in chunks, such as
+     * a request body on a non-blocking server. Chunks are pushed to the binder
+     * as they are received, and it returns the values completed so far without
+     * ever blocking. The input is either a single top-level array, whose
+     * elements are bound, or a sequence of top-level values, as stated by
+     * {@code layout}.
+     *
+     * @param <T> the type of the values
+     * @param layout whether the values are the elements of a top-level array
+     * or a sequence of top-level values
+     * @param classOfT the class of each value
+     * @return a new binder for a single input
+     * @see org.magiclen.gson.stream.NonBlockingJsonReader
+     */
+    public <T> JsonPushBinder<T> newPushBinder(JsonLayout layout, Class<T> classOfT) {
+        return new JsonPushBinder<T>(layout, getAdapter(classOfT));
+    }
+
+    /**
+     * Returns a binder for UTF-8 encoded JSON that arrives in chunks. See
+     * {@link #newPushBinder(JsonLayout, Class)}.
+     *
+     * @param <T> the type of the values
+     * @param layout whether the values are the elements of a top-level array
+     * or a sequence of top-level values
+     * @param typeOfT the type of each value
+     * @return a new binder for a single input
+     */
+    @SuppressWarnings("unchecked")
+    public <T> JsonPushBinder<T> newPushBinder(JsonLayout layout, Type typeOfT) {
+        return new JsonPushBinder<T>(layout, (TypeAdapter<T>) getAdapter(TypeToken.get(typeOfT)));
+    }
+
+    /**
+     * Returns a processor that binds a UTF-8 encoded JSON byte stream
+     * published in chunks, and publishes the values to a single subscriber.
+     * The input is either a single top-level array, whose elements are bound,
+     * or a sequence of top-level values, as stated by {@code layout}. Chunks
+     * are requested from upstream only while the subscriber has outstanding
+     * demand, so a slow subscriber slows down the source instead of filling
+     * memory.
+     *
+     * @param <T> the type of the values
+     * @param layout whether the values are the elements of a top-level array
+     * or a sequence of top-level values
+     * @param classOfT the class of each value
+     * @return a new processor for a single input
+     * @see #newPushBinder(JsonLayout, Class)
+     */
+    public <T> JsonFlow.Processor<ByteBuffer, T> newBindingProcessor(JsonLayout layout, Class<T> classOfT) {
+        return new JsonBindingProcessor<T>(newPushBinder(layout, classOfT));
+    }
+
+    /**
+     * Returns a processor that binds a UTF-8 encoded JSON byte stream
+     * published in chunks. See
+     * {@link #newBindingProcessor(JsonLayout, Class)}.
+     *
+     * @param <T> the type of the values
+     * @param layout whether the values are the elements of a top-level array
+     * or a sequence of top-level values
+     * @param typeOfT the type of each value
+     * @return a new processor for a single input
+     */
+    public <T> JsonFlow.Processor<ByteBuffer, T> newBindingProcessor(JsonLayout layout, Type typeOfT) {
+        return new JsonBindingProcessor<T>(this.<T>newPushBinder(layout, typeOfT));
+    }
+
+    /**
+     * Returns a publisher of the values of {@code source} as UTF-8 encoded
+     * JSON, one chunk per value. Values are requested from {@code source} only
+     * as chunks are requested, so the output is never buffered as a whole.
+     * Every subscriber gets a subscription to {@code source} of its own.
+     *
+     * @param <T> the type of the values
+     * @param source the publisher of the values
+     * @param typeOfT the type of each value
+     * @param newlineDelimited true to write each value on a line of its own,
+     * false to write a JSON array, whose closing bracket is one more chunk
+     * @return a publisher of the JSON text
+     */
+    public <T> JsonFlow.Publisher<ByteBuffer> toJsonPublisher(JsonFlow.Publisher<? extends T> source, Type typeOfT,
+            boolean newlineDelimited) {
+        return new JsonEncodingPublisher<T>(this, source, typeOfT, newlineDelimited);
+    }
+
+    /**
+     * Deserializes a large JSON text holding many values of the same type,
+     * binding them concurrently on {@code executor}. The text is either a
+     * single top-level array or a sequence of top-level values such as
+     * newline-delimited JSON, as stated by {@code layout}. It is read once and
+     * cut into chunks at value
+     * boundaries, which are bound in parallel while the rest of the text is
+     * still being read; the values are returned in their order in the text.
+     *
+     * <p>
+     * Only a few chunks per core are held as text at any time, so the length
+     * of the text is not limited by memory; the values themselves are all
+     * returned at once, though. The boundary scan understands standard JSON
+     * only: lenient syntax such as single-quoted strings or comments
+     * containing brackets may cut the text in the wrong places. Positions in
+     * error messages are relative to the chunk that failed.
+     *
+     * @param <T> the type of the values
+     * @param json the reader producing the JSON text. It is read to the end
+     * but not closed.
+     * @param layout whether the values are the elements of a top-level array
+     * or a sequence of top-level values
+     * @param typeOfElement the type of each value
+     * @param executor runs the binding of the chunks, such as a
+     * {@link java.util.concurrent.ForkJoinPool}
+     * @return the values, in order
+     * @throws JsonIOException if there was a problem reading from the Reader
+     * @throws JsonSyntaxException if json is not a valid representation of
+     * values of type typeOfElement
+     * @throws InterruptedException if interrupted while waiting for the chunks
+     */
+    public <T> List<T> fromJsonParallel(Reader json, JsonLayout layout, Type typeOfElement, Executor executor)
+            throws JsonIOException, JsonSyntaxException, InterruptedException {
+        return fromJsonParallel(JsonSplitter.of(json, layout, PARALLEL_CHUNK_LENGTH), layout, typeOfElement,
+                executor);
+    }
+
+    /**
+     * Deserializes a large UTF-8 encoded JSON text holding many values of the
+     * same type, binding them concurrently on {@code executor}. See
+     * {@link #fromJsonParallel(Reader, JsonLayout, Type, Executor)}. The bytes
+     * are scanned for value boundaries without decoding them first.
+     *
+     * @param <T> the type of the values
+     * @param json the stream producing the UTF-8 encoded JSON text. It is read
+     * to the end but not closed.
+     * @param layout whether the values are the elements of a top-level array
+     * or a sequence of top-level values
+     * @param typeOfElement the type of each value
+     * @param executor runs the binding of the chunks
+     * @return the values, in order
+     * @throws JsonIOException if there was a problem reading from the stream
+     * @throws JsonSyntaxException if json is not a valid representation of
+     * values of type typeOfElement
+     * @throws InterruptedException if interrupted while waiting for the chunks
+     */
+    public <T> List<T> fromJsonParallel(InputStream json, JsonLayout layout, Type typeOfElement,
+            Executor executor) throws JsonIOException, JsonSyntaxException, InterruptedException {
+        return fromJsonParallel(JsonSplitter.of(json, layout, PARALLEL_CHUNK_LENGTH), layout, typeOfElement,
+                executor);
+    }
+
+    /**
+     * Deserializes a large UTF-8 encoded JSON text holding many values of the
+     * same type, binding them concurrently on {@code executor}. See
+     * {@link #fromJsonParallel(InputStream, JsonLayout, Type, Executor)},
+     * which also takes texts that do not fit in an array.
+     *
+     * @param <T> the type of the values
+     * @param json the UTF-8 encoded JSON text
+     * @param layout whether the values are the elements of a top-level array
+     * or a sequence of top-level values
+     * @param typeOfElement the type of each value
+     * @param executor runs the binding of the chunks
+     * @return the values, in order
+     * @throws JsonSyntaxException if json is not a valid representation of
+     * values of type typeOfElement
+     * @throws InterruptedException if interrupted while waiting for the chunks
+     */
+    public <T> List<T> fromJsonParallel(byte[] json, JsonLayout layout, Type typeOfElement, Executor executor)
+            throws JsonSyntaxException, InterruptedException {
+        return fromJsonParallel(new ByteArrayInputStream(json), layout, typeOfElement, executor);
+    }
+
+    private <T> List<T> fromJsonParallel(JsonSplitter splitter, JsonLayout layout, Type typeOfElement,
+            Executor executor) throws InterruptedException {
+        @SuppressWarnings("unchecked")
+        final TypeAdapter<T> adapter = (TypeAdapter<T>) getAdapter(TypeToken.get(typeOfElement));
+        final boolean array = layout == JsonLayout.ARRAY;
+        // bounds the chunks that are read but not bound yet
+        final Semaphore inFlight = new Semaphore(Runtime.getRuntime().availableProcessors() * 2);
+        List<FutureTask<List<T>>> tasks = new ArrayList<FutureTask<List<T>>>();
+        List<List<T>> chunks = new ArrayList<List<T>>();
+        int size = 0;
+        try {
+            for (Reader chunk; (chunk = splitter.next()) != null;) {
+                final Reader reader = chunk;
+                inFlight.acquire();
+                FutureTask<List<T>> task = new FutureTask<List<T>>(new Callable<List<T>>() {
+                    @Override
+                    public List<T> call() throws IOException {
+                        try {
+                            return readChunk(reader, array, adapter);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }
+                });
+                tasks.add(task);
+                executor.execute(task);
+            }
+            for (FutureTask<List<T>> task : tasks) {
+                List<T> chunk = task.get();
+                chunks.add(chunk);
+                size += chunk.size();
+            }
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new JsonSyntaxException(cause);
+        } finally {
+            for (FutureTask<List<T>> task : tasks) {
+                task.cancel(false);
+            }
+        }
+        List<T> result = new ArrayList<T>(size);
+        for (List<T> chunk : chunks) {
+            result.addAll(chunk);
+        }
+        return result;
+    }
+
+    private <T> List<T> readChunk(Reader chunk, boolean array, TypeAdapter<T> adapter)
+            throws IOException {
+        List<T> values = new ArrayList<T>();
+        JsonReader reader = newJsonReader(chunk);
+        reader.setLenient(true);
+        try {
+            if (array) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    values.add(adapter.read(reader));
+                }
+                reader.endArray();
+            } else {
+                while (reader.peek() != JsonToken.END_DOCUMENT) {
+                    values.add(adapter.read(reader));
+                }
+            }
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (EOFException e) {
+            throw new JsonSyntaxException(e);
+        }
+        return values;
+    }
+
     /**
      * This method deserializes the Json read from the specified parse tree into
      * an object of the specified type. It is not suitable to use if the
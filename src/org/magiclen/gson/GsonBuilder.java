@@ -27,18 +27,23 @@ import java.util.Map;
 
 import org.magiclen.gson.internal.$Gson$Preconditions;
 import org.magiclen.gson.internal.Excluder;
+import org.magiclen.gson.internal.bind.StreamingTypeAdapter;
 import org.magiclen.gson.internal.bind.TreeTypeAdapter;
 import org.magiclen.gson.internal.bind.TypeAdapters;
 import org.magiclen.gson.reflect.TypeToken;
 import org.magiclen.gson.stream.JsonReader;
 
+import static org.magiclen.gson.Gson.DEFAULT_ADAPTER_CACHE_SIZE;
+import static org.magiclen.gson.Gson.DEFAULT_COMPACT_JSON_TREE;
 import static org.magiclen.gson.Gson.DEFAULT_COMPLEX_MAP_KEYS;
 import static org.magiclen.gson.Gson.DEFAULT_ESCAPE_HTML;
+import static org.magiclen.gson.Gson.DEFAULT_INSTRUMENTATION_SAMPLE_INTERVAL;
 import static org.magiclen.gson.Gson.DEFAULT_JSON_NON_EXECUTABLE;
 import static org.magiclen.gson.Gson.DEFAULT_LENIENT;
 import static org.magiclen.gson.Gson.DEFAULT_PRETTY_PRINT;
 import static org.magiclen.gson.Gson.DEFAULT_SERIALIZE_NULLS;
 import static org.magiclen.gson.Gson.DEFAULT_SPECIALIZE_FLOAT_VALUES;
+import static org.magiclen.gson.Gson.DEFAULT_WEAK_ADAPTER_CACHE_KEYS;
 
 /**
  * <p>
@@ -83,6 +88,7 @@ public final class GsonBuilder {
 
     private Excluder excluder = Excluder.DEFAULT;
     private LongSerializationPolicy longSerializationPolicy = LongSerializationPolicy.DEFAULT;
+    private FieldAccessPolicy fieldAccessPolicy = FieldAccessPolicy.REFLECTION;
     private FieldNamingStrategy fieldNamingPolicy = FieldNamingPolicy.IDENTITY;
     private final Map<Type, InstanceCreator<?>> instanceCreators
             = new HashMap<Type, InstanceCreator<?>>();
@@ -95,6 +101,7 @@ public final class GsonBuilder {
     private boolean serializeNulls = DEFAULT_SERIALIZE_NULLS;
     private String datePattern;
     private int dateStyle = DateFormat.DEFAULT;
+    private boolean iso8601Dates;
     private int timeStyle = DateFormat.DEFAULT;
     private boolean complexMapKeySerialization = DEFAULT_COMPLEX_MAP_KEYS;
     private boolean serializeSpecialFloatingPointValues = DEFAULT_SPECIALIZE_FLOAT_VALUES;
@@ -102,6 +109,10 @@ public final class GsonBuilder {
     private boolean prettyPrinting = DEFAULT_PRETTY_PRINT;
     private boolean generateNonExecutableJson = DEFAULT_JSON_NON_EXECUTABLE;
     private boolean lenient = DEFAULT_LENIENT;
+    private int adapterCacheSize = DEFAULT_ADAPTER_CACHE_SIZE;
+    private boolean weakAdapterCacheKeys = DEFAULT_WEAK_ADAPTER_CACHE_KEYS;
+    private boolean compactJsonTree = DEFAULT_COMPACT_JSON_TREE;
+    private int instrumentationSampleInterval = DEFAULT_INSTRUMENTATION_SAMPLE_INTERVAL;
 
     /**
      * Creates a GsonBuilder instance that can be used to build Gson with
@@ -296,6 +307,21 @@ public final class GsonBuilder {
         return this;
     }
 
+    /**
+     * Configures how Gson accesses the fields and no-args constructors of
+     * classes bound by reflection. By default, Gson uses
+     * {@link FieldAccessPolicy#REFLECTION}.
+     *
+     * @param fieldAccessPolicy the policy to use for accessing fields and
+     * constructors.
+     * @return a reference to this {@code GsonBuilder} object to fulfill the
+     * "Builder" pattern
+     */
+    public GsonBuilder setFieldAccessPolicy(FieldAccessPolicy fieldAccessPolicy) {
+        this.fieldAccessPolicy = fieldAccessPolicy;
+        return this;
+    }
+
     /**
      * Configures Gson to apply a specific naming policy to an object's field
      * during serialization and deserialization.
@@ -422,6 +448,73 @@ public final class GsonBuilder {
         return this;
     }
 
+    /**
+     * Limits the number of type adapters that Gson keeps in its cache. When
+     * the cache is full, adapters that have not been used recently are evicted
+     * and created again when next needed. By default, the cache is unbounded.
+     *
+     * @param maximumSize the maximum number of cached adapters, or 0 for no
+     * limit.
+     * @return a reference to this {@code GsonBuilder} object to fulfill the
+     * "Builder" pattern
+     * @see Gson#getAdapterCacheStats()
+     */
+    public GsonBuilder setAdapterCacheMaximumSize(int maximumSize) {
+        $Gson$Preconditions.checkArgument(maximumSize >= 0);
+        this.adapterCacheSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Configures Gson to cache the type adapters of types involving classes
+     * from foreign class loaders (other than Gson's own loader and its
+     * parents) without keeping those classes reachable. Use this when a
+     * long-lived Gson is shared by applications that are redeployed in their
+     * own class loaders.
+     *
+     * @return a reference to this {@code GsonBuilder} object to fulfill the
+     * "Builder" pattern
+     */
+    public GsonBuilder enableWeakAdapterCacheKeys() {
+        this.weakAdapterCacheKeys = true;
+        return this;
+    }
+
+    /**
+     * Configures Gson to deserialize {@link JsonElement} trees and untyped
+     * {@code Object} values into a compact form that takes less heap. JSON
+     * objects are backed by flat arrays while they are small, arrays and lists
+     * are trimmed to their size, and {@code true}, {@code false}, the empty
+     * string and small integers are shared instances. Use this when parsed
+     * trees stay resident for a long time.
+     *
+     * @return a reference to this {@code GsonBuilder} object to fulfill the
+     * "Builder" pattern
+     * @see JsonParser#JsonParser(boolean)
+     */
+    public GsonBuilder enableCompactJsonTree() {
+        this.compactJsonTree = true;
+        return this;
+    }
+
+    /**
+     * Configures Gson to count the values read and written by the type
+     * adapters of user-defined types, collections, maps and enums, and to
+     * time a sample of those calls. The counters are striped across threads,
+     * so the overhead on concurrent callers stays low. Read the results with
+     * {@link Gson#getAdapterInstrumentation()}.
+     *
+     * @param timingSampleInterval time one in this many calls; 1 times every
+     * call.
+     * @return a reference to this {@code GsonBuilder} object to fulfill the
+     * "Builder" pattern
+     */
+    public GsonBuilder enableAdapterInstrumentation(int timingSampleInterval) {
+        $Gson$Preconditions.checkArgument(timingSampleInterval > 0);
+        this.instrumentationSampleInterval = timingSampleInterval;
+        return this;
+    }
+
     /**
      * Configures Gson to serialize {@code Date} objects according to the
      * pattern provided. You can call this method or {@link #setDateFormat(int)}
@@ -447,6 +540,7 @@ public final class GsonBuilder {
     public GsonBuilder setDateFormat(String pattern) {
         // TODO(Joel): Make this fail fast if it is an invalid date format
         this.datePattern = pattern;
+        this.iso8601Dates = false;
         return this;
     }
 
@@ -471,6 +565,7 @@ public final class GsonBuilder {
     public GsonBuilder setDateFormat(int style) {
         this.dateStyle = style;
         this.datePattern = null;
+        this.iso8601Dates = false;
         return this;
     }
 
@@ -498,6 +593,25 @@ public final class GsonBuilder {
         this.dateStyle = dateStyle;
         this.timeStyle = timeStyle;
         this.datePattern = null;
+        this.iso8601Dates = false;
+        return this;
+    }
+
+    /**
+     * Configures Gson to serialize {@code Date} objects as ISO-8601 strings in
+     * UTC with millisecond precision, such as
+     * {@code 2016-01-02T03:04:05.678Z}. Unlike the {@code DateFormat} based
+     * formats, the ISO-8601 format is encoded and decoded without any shared
+     * mutable state, so it scales with the number of threads. You can call
+     * this method or {@link #setDateFormat(String)} multiple times, but only
+     * the last invocation will be used to decide the serialization format.
+     *
+     * @return a reference to this {@code GsonBuilder} object to fulfill the
+     * "Builder" pattern
+     */
+    public GsonBuilder setDateFormatIso8601() {
+        this.iso8601Dates = true;
+        this.datePattern = null;
         return this;
     }
 
@@ -505,10 +619,12 @@ public final class GsonBuilder {
      * Configures Gson for custom serialization or deserialization. This method
      * combines the registration of an
      * {@link TypeAdapter}, {@link InstanceCreator}, {@link JsonSerializer}, and
-     * a {@link JsonDeserializer}. It is best used when a single object
-     * {@code typeAdapter} implements all the required interfaces for custom
-     * serialization with Gson. If a type adapter was previously registered for
-     * the specified {@code type}, it is overwritten.
+     * a {@link JsonDeserializer}, or their streaming counterparts
+     * {@link JsonStreamingSerializer} and {@link JsonStreamingDeserializer}.
+     * It is best used when a single object {@code typeAdapter} implements all
+     * the required interfaces for custom serialization with Gson. If a type
+     * adapter was previously registered for the specified {@code type}, it is
+     * overwritten.
      *
      * <p>
      * This registers the type specified and no other types: you must manually
@@ -518,8 +634,9 @@ public final class GsonBuilder {
      *
      * @param type the type definition for the type adapter being registered
      * @param typeAdapter This object must implement at least one of the {@link TypeAdapter},
-     * {@link InstanceCreator}, {@link JsonSerializer}, and a
-     * {@link JsonDeserializer} interfaces.
+     * {@link InstanceCreator}, {@link JsonSerializer},
+     * {@link JsonDeserializer}, {@link JsonStreamingSerializer}, and a
+     * {@link JsonStreamingDeserializer} interfaces.
      * @return a reference to this {@code GsonBuilder} object to fulfill the
      * "Builder" pattern
      */
@@ -527,6 +644,7 @@ public final class GsonBuilder {
     public GsonBuilder registerTypeAdapter(Type type, Object typeAdapter) {
         $Gson$Preconditions.checkArgument(typeAdapter instanceof JsonSerializer<?>
                 || typeAdapter instanceof JsonDeserializer<?>
+                || StreamingTypeAdapter.isStreaming(typeAdapter)
                 || typeAdapter instanceof InstanceCreator<?>
                 || typeAdapter instanceof TypeAdapter<?>);
         if (typeAdapter instanceof InstanceCreator<?>) {
@@ -536,6 +654,10 @@ public final class GsonBuilder {
             TypeToken<?> typeToken = TypeToken.get(type);
             factories.add(TreeTypeAdapter.newFactoryWithMatchRawType(typeToken, typeAdapter));
         }
+        if (StreamingTypeAdapter.isStreaming(typeAdapter)) {
+            TypeToken<?> typeToken = TypeToken.get(type);
+            factories.add(StreamingTypeAdapter.newFactoryWithMatchRawType(typeToken, typeAdapter));
+        }
         if (typeAdapter instanceof TypeAdapter<?>) {
             factories.add(TypeAdapters.newFactory(TypeToken.get(type), (TypeAdapter) typeAdapter));
         }
@@ -568,7 +690,9 @@ public final class GsonBuilder {
      * @param baseType the class definition for the type adapter being
      * registered for the base class or interface
      * @param typeAdapter This object must implement at least one of {@link TypeAdapter},
-     *        {@link JsonSerializer} or {@link JsonDeserializer} interfaces.
+     *        {@link JsonSerializer}, {@link JsonDeserializer},
+     *        {@link JsonStreamingSerializer} or {@link JsonStreamingDeserializer}
+     *        interfaces.
      * @return a reference to this {@code GsonBuilder} object to fulfill the
      * "Builder" pattern
      * @since 1.7
@@ -577,10 +701,14 @@ public final class GsonBuilder {
     public GsonBuilder registerTypeHierarchyAdapter(Class<?> baseType, Object typeAdapter) {
         $Gson$Preconditions.checkArgument(typeAdapter instanceof JsonSerializer<?>
                 || typeAdapter instanceof JsonDeserializer<?>
+                || StreamingTypeAdapter.isStreaming(typeAdapter)
                 || typeAdapter instanceof TypeAdapter<?>);
         if (typeAdapter instanceof JsonDeserializer || typeAdapter instanceof JsonSerializer) {
             hierarchyFactories.add(TreeTypeAdapter.newTypeHierarchyFactory(baseType, typeAdapter));
         }
+        if (StreamingTypeAdapter.isStreaming(typeAdapter)) {
+            hierarchyFactories.add(StreamingTypeAdapter.newTypeHierarchyFactory(baseType, typeAdapter));
+        }
         if (typeAdapter instanceof TypeAdapter<?>) {
             factories.add(TypeAdapters.newTypeHierarchyFactory(baseType, (TypeAdapter) typeAdapter));
         }
@@ -636,16 +764,22 @@ public final class GsonBuilder {
         return new Gson(excluder, fieldNamingPolicy, instanceCreators,
                 serializeNulls, complexMapKeySerialization,
                 generateNonExecutableJson, escapeHtmlChars, prettyPrinting, lenient,
-                serializeSpecialFloatingPointValues, longSerializationPolicy, factories);
+                serializeSpecialFloatingPointValues, longSerializationPolicy, fieldAccessPolicy,
+                adapterCacheSize, weakAdapterCacheKeys, compactJsonTree, instrumentationSampleInterval,
+                factories);
     }
 
     @SuppressWarnings("unchecked")
     private void addTypeAdaptersForDate(String datePattern, int dateStyle, int timeStyle,
             List<TypeAdapterFactory> factories) {
-        DefaultDateTypeAdapter dateTypeAdapter;
+        TypeAdapter<Date> dateTypeAdapter;
         TypeAdapter<Timestamp> timestampTypeAdapter;
         TypeAdapter<java.sql.Date> javaSqlDateTypeAdapter;
-        if (datePattern != null && !"".equals(datePattern.trim())) {
+        if (iso8601Dates) {
+            dateTypeAdapter = new Iso8601DateTypeAdapter(Date.class);
+            timestampTypeAdapter = (TypeAdapter) new Iso8601DateTypeAdapter(Timestamp.class);
+            javaSqlDateTypeAdapter = (TypeAdapter) new Iso8601DateTypeAdapter(java.sql.Date.class);
+        } else if (datePattern != null && !"".equals(datePattern.trim())) {
             dateTypeAdapter = new DefaultDateTypeAdapter(Date.class, datePattern);
             timestampTypeAdapter = (TypeAdapter) new DefaultDateTypeAdapter(Timestamp.class, datePattern);
             javaSqlDateTypeAdapter = (TypeAdapter) new DefaultDateTypeAdapter(java.sql.Date.class, datePattern);
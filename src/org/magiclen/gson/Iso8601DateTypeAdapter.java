@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.util.Date;
+
+import org.magiclen.gson.internal.bind.util.ISO8601Utils;
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonToken;
+import org.magiclen.gson.stream.JsonWriter;
+
+/**
+ * This type adapter writes Date, Timestamp, and java.sql.Date as ISO-8601
+ * strings in UTC with millisecond precision, such as
+ * {@code 2016-01-02T03:04:05.678Z}, and reads any ISO-8601 form supported by
+ * {@link ISO8601Utils}. It keeps no formatter state, so it is safe to use from
+ * many threads without locking.
+ */
+final class Iso8601DateTypeAdapter extends TypeAdapter<Date> {
+
+    private final Class<? extends Date> dateType;
+
+    Iso8601DateTypeAdapter(Class<? extends Date> dateType) {
+        if (dateType != Date.class && dateType != java.sql.Date.class && dateType != Timestamp.class) {
+            throw new IllegalArgumentException("Date type must be one of " + Date.class + ", " + Timestamp.class + ", or " + java.sql.Date.class + " but was " + dateType);
+        }
+        this.dateType = dateType;
+    }
+
+    @Override
+    public void write(JsonWriter out, Date value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(ISO8601Utils.format(value, true));
+    }
+
+    @Override
+    public Date read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String s = in.nextString();
+        Date date;
+        try {
+            date = ISO8601Utils.parse(s, new ParsePosition(0));
+        } catch (ParseException e) {
+            throw new JsonSyntaxException(s, e);
+        }
+        if (dateType == Date.class) {
+            return date;
+        } else if (dateType == Timestamp.class) {
+            return new Timestamp(date.getTime());
+        } else {
+            return new java.sql.Date(date.getTime());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Iso8601DateTypeAdapter";
+    }
+}
@@ -45,6 +45,26 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
         elements = new ArrayList<JsonElement>(capacity);
     }
 
+    private JsonArray(List<JsonElement> elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Creates an array of {@code elements}, none of which may be null, with no
+     * unused capacity.
+     */
+    static JsonArray trimmed(List<JsonElement> elements) {
+        return new JsonArray(new TrimmedList(elements));
+    }
+
+    /**
+     * Returns true if this array was created by {@link #trimmed(List)}, so its
+     * backing array is as long as its size, unless it has grown since.
+     */
+    boolean isTrimmed() {
+        return elements instanceof TrimmedList;
+    }
+
     /**
      * Creates a deep copy of this element and all its children
      *
@@ -409,4 +429,18 @@ public final class JsonArray extends JsonElement implements Iterable<JsonElement
     public int hashCode() {
         return elements.hashCode();
     }
+
+    /**
+     * An {@link ArrayList} copied from a list, so its array is exactly as long
+     * as its size. Its class marks a trimmed array without a field in every
+     * JsonArray.
+     */
+    private static final class TrimmedList extends ArrayList<JsonElement> {
+
+        private static final long serialVersionUID = 1L;
+
+        TrimmedList(List<JsonElement> elements) {
+            super(elements);
+        }
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2009 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binds the values of a UTF-8 encoded JSON byte stream and publishes them to a
+ * single subscriber. Chunks are requested from upstream one at a time, and
+ * only while the subscriber has demand that the values already bound cannot
+ * satisfy, so at most one chunk's worth of values is buffered.
+ *
+ * <p>
+ * All signals are delivered from a drain loop that is entered by whichever
+ * thread changed the state, and that runs on one thread at a time.
+ */
+final class JsonBindingProcessor<T> implements JsonFlow.Processor<ByteBuffer, T>, JsonFlow.Subscription {
+
+    private final JsonPushBinder<T> binder;
+    private final Queue<T> values = new ConcurrentLinkedQueue<T>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger work = new AtomicInteger();
+
+    private volatile JsonFlow.Subscription upstream;
+    private volatile JsonFlow.Subscriber<? super T> downstream;
+    private volatile boolean chunkRequested;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+    private boolean terminated;
+
+    JsonBindingProcessor(JsonPushBinder<T> binder) {
+        this.binder = binder;
+    }
+
+    @Override
+    public void subscribe(JsonFlow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber == null");
+        }
+        boolean first;
+        synchronized (this) {
+            first = downstream == null;
+            if (first) {
+                downstream = subscriber;
+            }
+        }
+        if (first) {
+            subscriber.onSubscribe(this);
+            drain();
+            return;
+        }
+        subscriber.onSubscribe(new JsonFlow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+    }
+
+    @Override
+    public void onSubscribe(JsonFlow.Subscription subscription) {
+        if (upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(ByteBuffer chunk) {
+        if (upstreamDone) {
+            return;
+        }
+        try {
+            values.addAll(binder.feed(chunk));
+        } catch (RuntimeException e) {
+            upstream.cancel();
+            fail(e);
+            return;
+        }
+        chunkRequested = false;
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (!upstreamDone) {
+            fail(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (upstreamDone) {
+            return;
+        }
+        try {
+            values.addAll(binder.endOfInput());
+        } catch (RuntimeException e) {
+            fail(e);
+            return;
+        }
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            JsonFlow.Subscription subscription = upstream;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            fail(new IllegalArgumentException("non-positive request: " + n));
+            return;
+        }
+        long current;
+        do {
+            current = demand.get();
+        } while (!demand.compareAndSet(current, JsonFlow.addDemand(current, n)));
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        JsonFlow.Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        drain();
+    }
+
+    private void fail(Throwable throwable) {
+        error = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    private void drain() {
+        if (work.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            drainOnce();
+            missed = work.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainOnce() {
+        JsonFlow.Subscriber<? super T> subscriber = downstream;
+        if (terminated || subscriber == null) {
+            return;
+        }
+        if (cancelled) {
+            terminated = true;
+            values.clear();
+            return;
+        }
+        Throwable failure = error;
+        if (failure != null) {
+            // failures are not held back by a lack of demand
+            terminated = true;
+            values.clear();
+            subscriber.onError(failure);
+            return;
+        }
+        while (demand.get() > 0 && !values.isEmpty()) {
+            if (demand.get() != Long.MAX_VALUE) {
+                demand.decrementAndGet();
+            }
+            subscriber.onNext(values.poll());
+            if (cancelled || error != null) {
+                return;
+            }
+        }
+        if (values.isEmpty()) {
+            if (upstreamDone) {
+                terminated = true;
+                subscriber.onComplete();
+            } else if (demand.get() > 0 && !chunkRequested && upstream != null) {
+                chunkRequested = true;
+                upstream.request(1);
+            }
+        }
+    }
+}
@@ -15,12 +15,19 @@
  */
 package org.magiclen.gson;
 
+import org.magiclen.gson.internal.HeapEstimator;
 import org.magiclen.gson.internal.Streams;
 import org.magiclen.gson.stream.JsonWriter;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A class representing an element of Json. It could either be a
@@ -325,6 +332,55 @@ public abstract class JsonElement {
         throw new UnsupportedOperationException(getClass().getSimpleName());
     }
 
+    /**
+     * Estimates the heap retained by this element and all its children. The
+     * tree is walked iteratively, so deep trees are fine, and an element
+     * reached twice is counted once.
+     *
+     * @return the estimated retained bytes, broken down by category.
+     */
+    public RetainedSize estimateRetainedSize() {
+        HeapEstimator estimator = new HeapEstimator();
+        Set<JsonElement> visited = Collections.newSetFromMap(new IdentityHashMap<JsonElement, Boolean>());
+        Deque<JsonElement> stack = new ArrayDeque<JsonElement>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            JsonElement element = stack.pop();
+            if (element.isJsonNull() || !visited.add(element)) {
+                continue;
+            }
+            if (element.isJsonPrimitive()) {
+                JsonPrimitive primitive = (JsonPrimitive) element;
+                estimator.addContainer(1);
+                if (primitive.isString()) {
+                    estimator.addString(primitive.getAsString());
+                } else if (primitive.isNumber()) {
+                    estimator.addNumber(primitive.getAsNumber());
+                }
+            } else if (element.isJsonObject()) {
+                Map<String, JsonElement> members = ((JsonObject) element).members();
+                estimator.addContainer(1);
+                estimator.addMap(members);
+                for (Map.Entry<String, JsonElement> entry : members.entrySet()) {
+                    estimator.addString(entry.getKey());
+                    stack.push(entry.getValue());
+                }
+            } else {
+                JsonArray array = (JsonArray) element;
+                estimator.addContainer(1);
+                if (array.isTrimmed()) {
+                    estimator.addArrayListOfCapacity(array.size());
+                } else {
+                    estimator.addArrayList(array.size());
+                }
+                for (JsonElement child : array) {
+                    stack.push(child);
+                }
+            }
+        }
+        return estimator.toRetainedSize();
+    }
+
     /**
      * Returns a String representation of this element.
      */
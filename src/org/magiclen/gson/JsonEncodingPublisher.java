@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2009 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.magiclen.gson.stream.JsonWriter;
+
+/**
+ * Publishes the values of another publisher as a UTF-8 encoded JSON array or
+ * newline-delimited JSON. Every value becomes one chunk, and an array needs
+ * one more chunk for its closing bracket. Each subscriber gets a subscription
+ * to the source of its own, and values are requested from the source only as
+ * chunks are requested by the subscriber.
+ */
+final class JsonEncodingPublisher<T> implements JsonFlow.Publisher<ByteBuffer> {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Gson gson;
+    private final JsonFlow.Publisher<? extends T> source;
+    private final Type typeOfT;
+    private final boolean newlineDelimited;
+
+    JsonEncodingPublisher(Gson gson, JsonFlow.Publisher<? extends T> source, Type typeOfT, boolean newlineDelimited) {
+        this.gson = gson;
+        this.source = source;
+        this.typeOfT = typeOfT;
+        this.newlineDelimited = newlineDelimited;
+    }
+
+    @Override
+    public void subscribe(JsonFlow.Subscriber<? super ByteBuffer> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber == null");
+        }
+        source.subscribe(new Encoder(subscriber));
+    }
+
+    /**
+     * Subscribes to the source on behalf of one subscriber. All signals to the
+     * subscriber are delivered from a drain loop that runs on one thread at a
+     * time.
+     */
+    private final class Encoder implements JsonFlow.Subscriber<T>, JsonFlow.Subscription {
+
+        private final JsonFlow.Subscriber<? super ByteBuffer> downstream;
+        private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<ByteBuffer>();
+        private final AtomicLong demand = new AtomicLong();
+        /**
+         * Values requested from the source but not received yet.
+         */
+        private final AtomicLong outstanding = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private final StringWriter buffer = new StringWriter();
+
+        private volatile JsonFlow.Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private boolean started;
+        private boolean terminated;
+
+        Encoder(JsonFlow.Subscriber<? super ByteBuffer> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(JsonFlow.Subscription subscription) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            downstream.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void onNext(T value) {
+            if (upstreamDone) {
+                return;
+            }
+            outstanding.decrementAndGet();
+            StringBuffer text = buffer.getBuffer();
+            text.setLength(0);
+            if (!newlineDelimited) {
+                text.append(started ? ',' : '[');
+            }
+            started = true;
+            try {
+                gson.toJson(value, typeOfT, new JsonWriter(buffer));
+            } catch (RuntimeException e) {
+                upstream.cancel();
+                fail(e);
+                return;
+            }
+            if (newlineDelimited) {
+                text.append('\n');
+            }
+            chunks.add(encode(text));
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!upstreamDone) {
+                fail(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (upstreamDone) {
+                return;
+            }
+            if (!newlineDelimited) {
+                chunks.add(encode(started ? "]" : "[]"));
+            }
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.cancel();
+                fail(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            long current;
+            do {
+                current = demand.get();
+            } while (!demand.compareAndSet(current, JsonFlow.addDemand(current, n)));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+            drain();
+        }
+
+        private ByteBuffer encode(CharSequence text) {
+            return UTF_8.encode(CharBuffer.wrap(text));
+        }
+
+        private void fail(Throwable throwable) {
+            error = throwable;
+            upstreamDone = true;
+            drain();
+        }
+
+        private void drain() {
+            if (work.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                drainOnce();
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainOnce() {
+            if (terminated) {
+                return;
+            }
+            if (cancelled) {
+                terminated = true;
+                chunks.clear();
+                return;
+            }
+            Throwable failure = error;
+            if (failure != null) {
+                terminated = true;
+                chunks.clear();
+                downstream.onError(failure);
+                return;
+            }
+            while (demand.get() > 0 && !chunks.isEmpty()) {
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+                downstream.onNext(chunks.poll());
+                if (cancelled || error != null) {
+                    return;
+                }
+            }
+            if (chunks.isEmpty()) {
+                if (upstreamDone) {
+                    terminated = true;
+                    downstream.onComplete();
+                } else {
+                    // pass the demand on once the values requested before have arrived
+                    long n = demand.get();
+                    if (n > 0 && outstanding.get() == 0) {
+                        outstanding.set(n);
+                        upstream.request(n);
+                    }
+                }
+            }
+        }
+    }
+}
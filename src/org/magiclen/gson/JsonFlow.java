@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2009 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+/**
+ * Interfaces for flow-controlled streams, in which a {@link Subscriber}
+ * receives items from a {@link Publisher} only as fast as it
+ * {@link Subscription#request(long) requests} them. They have the same
+ * methods and contract as the interfaces of the Reactive Streams
+ * specification, which are also those of {@code java.util.concurrent.Flow};
+ * this library targets Java versions that predate that class, so adapting
+ * between the two takes a one-line delegate for each method.
+ *
+ * @see Gson#newBindingProcessor(JsonLayout, Class)
+ * @see Gson#toJsonPublisher(Publisher, java.lang.reflect.Type, boolean)
+ */
+public final class JsonFlow {
+
+    private JsonFlow() {
+    }
+
+    /**
+     * A producer of items that are received by subscribers.
+     *
+     * @param <T> the type of the items
+     */
+    public interface Publisher<T> {
+
+        /**
+         * Adds {@code subscriber}, which is then sent
+         * {@link Subscriber#onSubscribe(Subscription)} followed by items as
+         * they are requested.
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items. The methods are called one at a time for each
+     * subscription, never concurrently.
+     *
+     * @param <T> the type of the items
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Called once before any other method, with the subscription used to
+         * request items.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with the next item, at most as many times as requested.
+         */
+        void onNext(T item);
+
+        /**
+         * Called when the publisher fails. No more methods are called
+         * afterwards.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called when the publisher has sent all of its items. No more methods
+         * are called afterwards.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Links a publisher and a subscriber.
+     */
+    public interface Subscription {
+
+        /**
+         * Asks for up to {@code n} more items. The demand accumulates, and a
+         * total of {@link Long#MAX_VALUE} or more is unbounded. A non-positive
+         * {@code n} fails the subscription with an
+         * {@link IllegalArgumentException}.
+         */
+        void request(long n);
+
+        /**
+         * Stops the flow of items. Items may still arrive for a short while.
+         */
+        void cancel();
+    }
+
+    /**
+     * A subscriber that publishes what it makes of the items it receives.
+     *
+     * @param <T> the type of the items received
+     * @param <R> the type of the items published
+     */
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+
+    /**
+     * Adds {@code n} to {@code demand}, saturating at {@link Long#MAX_VALUE}.
+     */
+    static long addDemand(long demand, long n) {
+        long sum = demand + n;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+}
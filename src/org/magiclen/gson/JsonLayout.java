@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2009 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+/**
+ * Tells how the values of a JSON text that holds many of them are laid out.
+ * The layout is stated by the caller rather than guessed from the first
+ * token, because a sequence of values may itself start with an array.
+ *
+ * @see Gson#fromJsonParallel(java.io.Reader, JsonLayout, java.lang.reflect.Type, java.util.concurrent.Executor)
+ */
+public enum JsonLayout {
+    /**
+     * A single top-level array, whose elements are the values. For example,
+     * {@code [{"id":1},{"id":2}]}.
+     */
+    ARRAY,
+    /**
+     * A sequence of top-level values separated by whitespace, such as
+     * newline-delimited JSON. Each value is taken whole, even if it is an
+     * array. For example, {@code [1,2]\n[3,4]\n} holds two values.
+     */
+    VALUE_SEQUENCE
+}
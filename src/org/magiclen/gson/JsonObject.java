@@ -15,6 +15,7 @@
  */
 package org.magiclen.gson;
 
+import org.magiclen.gson.internal.CompactLinkedMap;
 import org.magiclen.gson.internal.LinkedTreeMap;
 
 import java.util.Map;
@@ -31,8 +32,29 @@ import java.util.Set;
  */
 public final class JsonObject extends JsonElement {
 
-    private final LinkedTreeMap<String, JsonElement> members
-            = new LinkedTreeMap<String, JsonElement>();
+    private final Map<String, JsonElement> members;
+
+    /**
+     * Creates an empty JsonObject.
+     */
+    public JsonObject() {
+        members = new LinkedTreeMap<String, JsonElement>();
+    }
+
+    /**
+     * Creates an empty JsonObject backed by {@code members}, such as a
+     * {@link CompactLinkedMap} for compact trees.
+     */
+    JsonObject(Map<String, JsonElement> members) {
+        this.members = members;
+    }
+
+    /**
+     * Returns the map backing this object.
+     */
+    Map<String, JsonElement> members() {
+        return members;
+    }
 
     /**
      * Creates a deep copy of this element and all its children
@@ -41,7 +63,8 @@ public final class JsonObject extends JsonElement {
      */
     @Override
     public JsonObject deepCopy() {
-        JsonObject result = new JsonObject();
+        JsonObject result = members instanceof CompactLinkedMap
+                ? new JsonObject(new CompactLinkedMap<String, JsonElement>()) : new JsonObject();
         for (Map.Entry<String, JsonElement> entry : members.entrySet()) {
             result.add(entry.getKey(), entry.getValue().deepCopy());
         }
@@ -130,6 +153,15 @@ public final class JsonObject extends JsonElement {
         return value == null ? JsonNull.INSTANCE : new JsonPrimitive(value);
     }
 
+    /**
+     * Releases the unused capacity of a compact object.
+     */
+    void trimToSize() {
+        if (members instanceof CompactLinkedMap) {
+            ((CompactLinkedMap<String, JsonElement>) members).trimToSize();
+        }
+    }
+
     /**
      * Returns a set of members of this object. The set is ordered, and the
      * order is in which the elements were added.
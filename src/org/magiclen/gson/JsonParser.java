@@ -33,6 +33,26 @@ import org.magiclen.gson.stream.MalformedJsonException;
  */
 public final class JsonParser {
 
+    private final boolean compact;
+
+    /**
+     * Creates a parser that builds ordinary parse trees.
+     */
+    public JsonParser() {
+        this(false);
+    }
+
+    /**
+     * Creates a parser.
+     *
+     * @param compact true to build parse trees that take less heap, with
+     * small objects backed by flat arrays and common primitives shared. Use
+     * this for trees that stay resident for a long time.
+     */
+    public JsonParser(boolean compact) {
+        this.compact = compact;
+    }
+
     /**
      * Parses the specified JSON string into a parse tree
      *
@@ -83,7 +103,9 @@ public final class JsonParser {
         boolean lenient = json.isLenient();
         json.setLenient(true);
         try {
-            return Streams.parse(json);
+            return compact
+                    ? Streams.parse(json, CompactJsonElementTypeAdapter.INSTANCE)
+                    : Streams.parse(json);
         } catch (StackOverflowError e) {
             throw new JsonParseException("Failed parsing JSON source: " + json + " to Json", e);
         } catch (OutOfMemoryError e) {
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2009 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.magiclen.gson.internal.LazilyParsedNumber;
+import org.magiclen.gson.internal.bind.JsonTreeWriter;
+import org.magiclen.gson.stream.JsonToken;
+import org.magiclen.gson.stream.MalformedJsonException;
+import org.magiclen.gson.stream.NonBlockingJsonReader;
+
+/**
+ * Binds values from UTF-8 encoded JSON that is pushed in chunks, without
+ * blocking. Obtain instances with
+ * {@link Gson#newPushBinder(JsonLayout, Class)}. Depending on its
+ * {@link JsonLayout}, the input is either a single top-level array, whose
+ * elements are bound, or a sequence of top-level values such as
+ * newline-delimited JSON.
+ *
+ * <p>
+ * Type adapters pull their input, so they cannot pause in the middle of a
+ * value. Instead, the tokens of the value being received are collected into a
+ * {@link JsonElement} tree as they arrive, and the value is bound as soon as
+ * it is complete. Only one value is held in memory at a time.
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> the type of the values
+ */
+public final class JsonPushBinder<T> {
+
+    private final boolean array;
+    private final TypeAdapter<T> adapter;
+    private final NonBlockingJsonReader reader = new NonBlockingJsonReader();
+    /**
+     * Whether the first token has been read.
+     */
+    private boolean begun;
+    private boolean arrayClosed;
+    private JsonTreeWriter value;
+
+    JsonPushBinder(JsonLayout layout, TypeAdapter<T> adapter) {
+        this.array = layout == JsonLayout.ARRAY;
+        this.adapter = adapter;
+    }
+
+    /**
+     * Consumes the remaining bytes of {@code chunk}.
+     *
+     * @return the values completed by this chunk, possibly none.
+     * @throws JsonSyntaxException if the input is not valid JSON or a value
+     * cannot be bound.
+     */
+    public List<T> feed(ByteBuffer chunk) throws JsonParseException {
+        try {
+            reader.feed(chunk);
+            return drain();
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Tells that the input is complete.
+     *
+     * @return the values completed by the end of the input, possibly none.
+     * @throws JsonSyntaxException if the input is not valid JSON, is
+     * truncated, or a value cannot be bound.
+     */
+    public List<T> endOfInput() throws JsonParseException {
+        try {
+            reader.endOfInput();
+            return drain();
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    private List<T> drain() throws IOException {
+        List<T> values = Collections.emptyList();
+        JsonToken token;
+        while ((token = reader.nextToken()) != null && token != JsonToken.END_DOCUMENT) {
+            if (!begun) {
+                begun = true;
+                if (array) {
+                    if (token != JsonToken.BEGIN_ARRAY) {
+                        throw new JsonSyntaxException("Expected a top-level array but was " + token);
+                    }
+                    continue;
+                }
+            }
+            if (arrayClosed) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+            if (value == null && array && token == JsonToken.END_ARRAY) {
+                arrayClosed = true;
+                continue;
+            }
+            JsonElement element = append(token);
+            if (element != null) {
+                if (values.isEmpty()) {
+                    values = new ArrayList<T>();
+                }
+                values.add(bind(element));
+            }
+        }
+        if (token == JsonToken.END_DOCUMENT && array && !begun) {
+            throw new JsonSyntaxException("Expected a top-level array but the input is empty");
+        }
+        return values;
+    }
+
+    /**
+     * Adds {@code token} to the value being received, and returns the value if
+     * it is complete.
+     */
+    private JsonElement append(JsonToken token) throws IOException {
+        if (value == null) {
+            switch (token) {
+                case BEGIN_ARRAY:
+                case BEGIN_OBJECT:
+                    value = new JsonTreeWriter();
+                    value.setSerializeNulls(true);
+                    break;
+                case STRING:
+                    return new JsonPrimitive(reader.getString());
+                case NUMBER:
+                    return new JsonPrimitive(new LazilyParsedNumber(reader.getString()));
+                case BOOLEAN:
+                    return new JsonPrimitive(reader.getBoolean());
+                case NULL:
+                    return JsonNull.INSTANCE;
+                default:
+                    throw new AssertionError(token);
+            }
+        }
+        switch (token) {
+            case BEGIN_ARRAY:
+                value.beginArray();
+                break;
+            case END_ARRAY:
+                value.endArray();
+                break;
+            case BEGIN_OBJECT:
+                value.beginObject();
+                break;
+            case END_OBJECT:
+                value.endObject();
+                break;
+            case NAME:
+                value.name(reader.getString());
+                break;
+            case STRING:
+                value.value(reader.getString());
+                break;
+            case NUMBER:
+                value.value(new LazilyParsedNumber(reader.getString()));
+                break;
+            case BOOLEAN:
+                value.value(reader.getBoolean());
+                break;
+            case NULL:
+                value.nullValue();
+                break;
+            default:
+                throw new AssertionError(token);
+        }
+        if (reader.getDepth() == (array ? 1 : 0)) {
+            JsonElement element = value.get();
+            value = null;
+            return element;
+        }
+        return null;
+    }
+
+    private T bind(JsonElement element) {
+        try {
+            return adapter.fromJsonTree(element);
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
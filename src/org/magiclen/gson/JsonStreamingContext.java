@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonWriter;
+
+/**
+ * Context that is passed to a {@link JsonStreamingSerializer} or a
+ * {@link JsonStreamingDeserializer}. It reads and writes nested values with
+ * the type adapters of the {@link Gson} instance, directly on the stream.
+ *
+ */
+public interface JsonStreamingContext {
+
+    /**
+     * Reads the next value of {@code in} as the specified type. It should
+     * never be invoked for the type being deserialized, since Gson will in-turn
+     * call the custom deserializer again.
+     *
+     * @param in the reader positioned at the value.
+     * @param typeOfT the type of the Object to deserialize to.
+     * @return the value, or null if it was a JSON null.
+     */
+    public <T> T read(JsonReader in, Type typeOfT) throws IOException;
+
+    /**
+     * Writes {@code src} to {@code out} with the adapter of its runtime type.
+     *
+     * @param out the writer, such as the one passed to the serializer.
+     * @param src the object that needs to be serialized, or null.
+     */
+    public void write(JsonWriter out, Object src) throws IOException;
+
+    /**
+     * Writes {@code src} to {@code out} as the specified type. It should never
+     * be invoked on the object received as a parameter of the
+     * {@link JsonStreamingSerializer#serialize(Object, Type, JsonWriter, JsonStreamingContext)}
+     * method with the same type, since Gson will in-turn call the custom
+     * serializer again.
+     *
+     * @param out the writer, such as the one passed to the serializer.
+     * @param src the object that needs to be serialized, or null.
+     * @param typeOfSrc the actual genericized type of src object.
+     */
+    public void write(JsonWriter out, Object src, Type typeOfSrc) throws IOException;
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.magiclen.gson.stream.JsonReader;
+
+/**
+ * Interface representing a custom deserializer that reads directly from the
+ * {@link JsonReader}. Unlike {@link JsonDeserializer}, the value is not parsed
+ * into a {@link JsonElement} tree first. Register it through
+ * {@link GsonBuilder#registerTypeAdapter(Type, Object)} or
+ * {@link GsonBuilder#registerTypeHierarchyAdapter(Class, Object)}.
+ *
+ * @param <T> type for which the deserializer is being registered. It is
+ * possible that a deserializer may be asked to deserialize a specific generic
+ * type of the T.
+ */
+public interface JsonStreamingDeserializer<T> {
+
+    /**
+     * Gson invokes this call-back method during deserialization when it
+     * encounters a field of the specified type. It must consume exactly one
+     * value. JSON nulls are read by Gson as null and never passed to this
+     * method.
+     *
+     * @param in the reader positioned at the value.
+     * @param typeOfT the type of the Object to deserialize to.
+     * @param context the context for reading nested values.
+     * @return a deserialized object of the specified type typeOfT which is a
+     * subclass of {@code T}
+     * @throws JsonParseException if the value is not in the expected format of
+     * {@code typeOfT}
+     */
+    public T deserialize(JsonReader in, Type typeOfT, JsonStreamingContext context) throws IOException;
+}
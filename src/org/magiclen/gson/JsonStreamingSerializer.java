@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.magiclen.gson.stream.JsonWriter;
+
+/**
+ * Interface representing a custom serializer that writes directly to the
+ * {@link JsonWriter}. Unlike {@link JsonSerializer}, no {@link JsonElement}
+ * tree is built for the value, so a serializer that only renames or reorders
+ * fields costs little more than the reflective adapter. Register it through
+ * {@link GsonBuilder#registerTypeAdapter(Type, Object)} or
+ * {@link GsonBuilder#registerTypeHierarchyAdapter(Class, Object)}:
+ *
+ * <pre>
+ * class IdSerializer implements JsonStreamingSerializer&lt;Id&gt; {
+ *   public void serialize(Id src, Type typeOfSrc, JsonWriter out, JsonStreamingContext context)
+ *       throws IOException {
+ *     out.value(src.getValue());
+ *   }
+ * }
+ * </pre>
+ *
+ * @param <T> type for which the serializer is being registered.
+ */
+public interface JsonStreamingSerializer<T> {
+
+    /**
+     * Gson invokes this call-back method during serialization when it
+     * encounters a field of the specified type. It must write exactly one
+     * value. Null values are written by Gson and never passed to this method.
+     *
+     * @param src the object that needs to be serialized.
+     * @param typeOfSrc the actual type of the source object.
+     * @param out the writer to write the value to.
+     * @param context the context for writing nested values.
+     */
+    public void serialize(T src, Type typeOfSrc, JsonWriter out, JsonStreamingContext context)
+            throws IOException;
+}
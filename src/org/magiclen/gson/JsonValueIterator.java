@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2009 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonToken;
+import org.magiclen.gson.stream.MalformedJsonException;
+
+/**
+ * Lazily binds the values of a large JSON text one at a time, so that it can
+ * be processed in constant memory. Depending on its {@link JsonLayout}, the
+ * text is either a single top-level array, whose elements are returned, or a
+ * sequence of top-level values such as newline-delimited JSON. Obtain
+ * instances with {@link Gson#stream(java.io.Reader, JsonLayout, Class)}.
+ *
+ * <p>
+ * The underlying reader is closed when the last value has been returned, when
+ * a value fails to bind, or when {@link #close()} is called. Like
+ * {@link JsonStreamParser}, this class is not thread-safe.
+ *
+ * @param <T> the type of the values
+ */
+public final class JsonValueIterator<T> implements Iterator<T>, Closeable {
+
+    private final JsonReader reader;
+    private final boolean array;
+    private final TypeAdapter<T> adapter;
+    /**
+     * Whether the opening bracket of the array, or the first token of a
+     * sequence, has been read.
+     */
+    private boolean begun;
+    private boolean closed;
+
+    JsonValueIterator(JsonReader reader, JsonLayout layout, TypeAdapter<T> adapter) {
+        this.reader = reader;
+        this.array = layout == JsonLayout.ARRAY;
+        this.adapter = adapter;
+        reader.setLenient(true);
+    }
+
+    /**
+     * Returns true if another value is available. Reaching the end of the input
+     * closes the reader.
+     *
+     * @throws JsonParseException if the input is malformed JSON.
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        try {
+            boolean more;
+            if (!begun) {
+                if (array) {
+                    reader.beginArray();
+                } else {
+                    reader.peek();
+                }
+                begun = true;
+            }
+            if (array) {
+                more = reader.hasNext();
+                if (!more) {
+                    reader.endArray();
+                    if (reader.peek() != JsonToken.END_DOCUMENT) {
+                        throw new JsonIOException("JSON document was not fully consumed.");
+                    }
+                }
+            } else {
+                more = reader.peek() != JsonToken.END_DOCUMENT;
+            }
+            if (!more) {
+                close();
+            }
+            return more;
+        } catch (EOFException e) {
+            // an empty sequence has no values
+            if (!begun && !array) {
+                closeQuietly();
+                return false;
+            }
+            throw fail(new JsonSyntaxException(e));
+        } catch (MalformedJsonException e) {
+            throw fail(new JsonSyntaxException(e));
+        } catch (IllegalStateException e) {
+            throw fail(new JsonSyntaxException(e));
+        } catch (IOException e) {
+            throw fail(new JsonIOException(e));
+        } catch (RuntimeException e) {
+            throw fail(e);
+        }
+    }
+
+    /**
+     * Binds and returns the next value.
+     *
+     * @throws JsonParseException if the input is malformed JSON or the value
+     * cannot be bound.
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return adapter.read(reader);
+        } catch (IllegalStateException e) {
+            throw fail(new JsonSyntaxException(e));
+        } catch (IOException e) {
+            throw fail(new JsonSyntaxException(e));
+        } catch (RuntimeException e) {
+            throw fail(e);
+        }
+    }
+
+    /**
+     * This optional {@link Iterator} method is not supported.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes the underlying reader. Afterwards, {@link #hasNext()} returns
+     * false.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            reader.close();
+        }
+    }
+
+    private RuntimeException fail(RuntimeException e) {
+        closeQuietly();
+        return e;
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.IOException;
+
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonToken;
+import org.magiclen.gson.stream.JsonWriter;
+
+/**
+ * Base type adapters for collections that store primitive values, such as the
+ * specialized lists of third party collection libraries. Subclasses only tell
+ * how to create, fill and index the collection; elements are read and written
+ * as JSON arrays without being boxed. For example:
+ * <pre>
+ * Gson gson = new GsonBuilder()
+ *     .registerTypeAdapter(TDoubleArrayList.class,
+ *         new PrimitiveCollectionTypeAdapters.OfDouble&lt;TDoubleArrayList&gt;() {
+ *           protected TDoubleArrayList newCollection() { return new TDoubleArrayList(); }
+ *           protected void add(TDoubleArrayList c, double value) { c.add(value); }
+ *           protected int size(TDoubleArrayList c) { return c.size(); }
+ *           protected double get(TDoubleArrayList c, int index) { return c.get(index); }
+ *         })
+ *     .create();
+ * </pre>
+ *
+ * <p>
+ * Unlike Gson's built-in {@code double} adapter, {@link OfDouble} does not
+ * honor {@link GsonBuilder#serializeSpecialFloatingPointValues()}: NaN and
+ * infinities are rejected according to the leniency of the writer.
+ */
+public final class PrimitiveCollectionTypeAdapters {
+
+    private PrimitiveCollectionTypeAdapters() {
+    }
+
+    /**
+     * A type adapter for a collection of integral values. Values are read with
+     * {@link JsonReader#nextLong()}.
+     *
+     * @param <C> the collection type.
+     */
+    public static abstract class OfLong<C> extends TypeAdapter<C> {
+
+        /**
+         * Returns a new empty collection.
+         */
+        protected abstract C newCollection();
+
+        /**
+         * Appends {@code value} to {@code collection}.
+         */
+        protected abstract void add(C collection, long value);
+
+        /**
+         * Returns the number of values in {@code collection}.
+         */
+        protected abstract int size(C collection);
+
+        /**
+         * Returns the value at {@code index} in {@code collection}.
+         */
+        protected abstract long get(C collection, int index);
+
+        @Override
+        public final C read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            C collection = newCollection();
+            in.beginArray();
+            try {
+                while (in.hasNext()) {
+                    add(collection, in.nextLong());
+                }
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+            in.endArray();
+            return collection;
+        }
+
+        @Override
+        public final void write(JsonWriter out, C collection) throws IOException {
+            if (collection == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int i = 0, size = size(collection); i < size; i++) {
+                out.value(get(collection, i));
+            }
+            out.endArray();
+        }
+    }
+
+    /**
+     * A type adapter for a collection of floating point values. Values are
+     * read with {@link JsonReader#nextDouble()}.
+     *
+     * @param <C> the collection type.
+     */
+    public static abstract class OfDouble<C> extends TypeAdapter<C> {
+
+        /**
+         * Returns a new empty collection.
+         */
+        protected abstract C newCollection();
+
+        /**
+         * Appends {@code value} to {@code collection}.
+         */
+        protected abstract void add(C collection, double value);
+
+        /**
+         * Returns the number of values in {@code collection}.
+         */
+        protected abstract int size(C collection);
+
+        /**
+         * Returns the value at {@code index} in {@code collection}.
+         */
+        protected abstract double get(C collection, int index);
+
+        @Override
+        public final C read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            C collection = newCollection();
+            in.beginArray();
+            while (in.hasNext()) {
+                add(collection, in.nextDouble());
+            }
+            in.endArray();
+            return collection;
+        }
+
+        @Override
+        public final void write(JsonWriter out, C collection) throws IOException {
+            if (collection == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int i = 0, size = size(collection); i < size; i++) {
+                out.value(get(collection, i));
+            }
+            out.endArray();
+        }
+    }
+}
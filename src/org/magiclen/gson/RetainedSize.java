@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+/**
+ * An estimate of the heap retained by a tree of JSON values, in bytes, broken
+ * down by what the memory is spent on.
+ *
+ * <p>
+ * The estimate assumes a 64-bit virtual machine with compressed references
+ * and objects aligned to 8 bytes, which is the default for heaps under 32 GB.
+ * The capacities of hash tables and array lists are derived from their
+ * growth policies rather than read from the collections. Values shared by
+ * the virtual machine, such as {@code Boolean.TRUE}, small cached boxed
+ * integers and the JSON null singletons, are not counted. Strings and numbers
+ * referenced more than once in a tree are counted once per reference.
+ *
+ * @see JsonElement#estimateRetainedSize()
+ */
+public final class RetainedSize {
+
+    private final long containers;
+    private final long tables;
+    private final long entries;
+    private final long strings;
+    private final long numbers;
+    private final long other;
+
+    public RetainedSize(long containers, long tables, long entries, long strings, long numbers, long other) {
+        this.containers = containers;
+        this.tables = tables;
+        this.entries = entries;
+        this.strings = strings;
+        this.numbers = numbers;
+        this.other = other;
+    }
+
+    /**
+     * Returns the bytes of the objects, arrays and primitives of the tree and
+     * of the maps and lists that hold their members, without their storage.
+     */
+    public long getContainers() {
+        return containers;
+    }
+
+    /**
+     * Returns the bytes of the hash tables and element arrays of the maps and
+     * lists of the tree, including their unused capacity.
+     */
+    public long getTables() {
+        return tables;
+    }
+
+    /**
+     * Returns the bytes of the entry nodes of the maps of the tree.
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the bytes of the names and string values of the tree.
+     */
+    public long getStrings() {
+        return strings;
+    }
+
+    /**
+     * Returns the bytes of the boxed and arbitrary precision numbers of the
+     * tree.
+     */
+    public long getNumbers() {
+        return numbers;
+    }
+
+    /**
+     * Returns the shallow bytes of any other value of the tree, such as a
+     * bean put into a {@code JSONObject}.
+     */
+    public long getOther() {
+        return other;
+    }
+
+    /**
+     * Returns the bytes of the whole tree.
+     */
+    public long getTotal() {
+        return containers + tables + entries + strings + numbers + other;
+    }
+
+    @Override
+    public String toString() {
+        return "RetainedSize[total=" + getTotal()
+                + ", containers=" + containers
+                + ", tables=" + tables
+                + ", entries=" + entries
+                + ", strings=" + strings
+                + ", numbers=" + numbers
+                + ", other=" + other + "]";
+    }
+}
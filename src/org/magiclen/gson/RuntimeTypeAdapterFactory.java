@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.magiclen.gson.internal.bind.ReplayingJsonReader;
+import org.magiclen.gson.reflect.TypeToken;
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonToken;
+import org.magiclen.gson.stream.JsonWriter;
+import org.magiclen.gson.stream.PreEncodedName;
+
+/**
+ * Adapts values whose runtime type may differ from their declaration type,
+ * such as the subclasses of an event base class. The runtime type is recorded
+ * as the value of a discriminator field of the JSON object:
+ *
+ * <pre>   {@code
+ *   RuntimeTypeAdapterFactory<Event> events = RuntimeTypeAdapterFactory.of(Event.class, "type")
+ *       .registerSubtype(Click.class, "click")
+ *       .registerSubtype(View.class, "view");
+ *   Gson gson = new GsonBuilder().registerTypeAdapterFactory(events).create();
+ * }</pre>
+ *
+ * <p>
+ * Values are read and written in a single pass, without building a
+ * {@link JsonElement} tree. The discriminator is always written first. When
+ * reading, the members in front of it, if any, are buffered as tokens and
+ * replayed to the adapter of the subtype; at most
+ * {@link #setLookaheadLimit(int) the lookahead limit} tokens are buffered, so
+ * documents that put the discriminator last are still read, but their size is
+ * bounded.
+ *
+ * <p>
+ * The discriminator is not a field of the subtypes. A subtype that declares a
+ * field of the same name cannot be written.
+ *
+ * @param <T> the base type.
+ */
+public final class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory {
+
+    /**
+     * The default number of tokens that may precede the discriminator.
+     */
+    public static final int DEFAULT_LOOKAHEAD_LIMIT = 1024;
+
+    private final Class<?> baseType;
+    private final String typeFieldName;
+    private final Map<String, Class<?>> labelToSubtype = new LinkedHashMap<String, Class<?>>();
+    private final Map<Class<?>, String> subtypeToLabel = new HashMap<Class<?>, String>();
+    private Class<?> defaultSubtype;
+    private int lookaheadLimit = DEFAULT_LOOKAHEAD_LIMIT;
+
+    private RuntimeTypeAdapterFactory(Class<?> baseType, String typeFieldName) {
+        if (typeFieldName == null || baseType == null) {
+            throw new NullPointerException();
+        }
+        this.baseType = baseType;
+        this.typeFieldName = typeFieldName;
+    }
+
+    /**
+     * Creates a factory for {@code baseType} that records the runtime type in
+     * the field named {@code typeFieldName}.
+     */
+    public static <T> RuntimeTypeAdapterFactory<T> of(Class<T> baseType, String typeFieldName) {
+        return new RuntimeTypeAdapterFactory<T>(baseType, typeFieldName);
+    }
+
+    /**
+     * Creates a factory for {@code baseType} that records the runtime type in
+     * the field named {@code "type"}.
+     */
+    public static <T> RuntimeTypeAdapterFactory<T> of(Class<T> baseType) {
+        return new RuntimeTypeAdapterFactory<T>(baseType, "type");
+    }
+
+    /**
+     * Registers {@code type} under {@code label}.
+     *
+     * @throws IllegalArgumentException if either the type or the label has
+     * already been registered.
+     */
+    public RuntimeTypeAdapterFactory<T> registerSubtype(Class<? extends T> type, String label) {
+        if (type == null || label == null) {
+            throw new NullPointerException();
+        }
+        if (subtypeToLabel.containsKey(type) || labelToSubtype.containsKey(label)) {
+            throw new IllegalArgumentException("types and labels must be unique");
+        }
+        labelToSubtype.put(label, type);
+        subtypeToLabel.put(type, label);
+        return this;
+    }
+
+    /**
+     * Registers {@code type} under its simple name.
+     *
+     * @throws IllegalArgumentException if either the type or its simple name
+     * has already been registered.
+     */
+    public RuntimeTypeAdapterFactory<T> registerSubtype(Class<? extends T> type) {
+        return registerSubtype(type, type.getSimpleName());
+    }
+
+    /**
+     * Reads objects without a discriminator, or with an unknown one, as
+     * {@code type}, which must also be registered. By default such objects
+     * are rejected.
+     */
+    public RuntimeTypeAdapterFactory<T> setDefaultSubtype(Class<? extends T> type) {
+        if (!subtypeToLabel.containsKey(type)) {
+            throw new IllegalArgumentException(type + " is not registered");
+        }
+        defaultSubtype = type;
+        return this;
+    }
+
+    /**
+     * Sets the most tokens that may precede the discriminator of an object.
+     * Every name, value and bracket counts as one token.
+     */
+    public RuntimeTypeAdapterFactory<T> setLookaheadLimit(int tokens) {
+        if (tokens < 1) {
+            throw new IllegalArgumentException("tokens < 1: " + tokens);
+        }
+        lookaheadLimit = tokens;
+        return this;
+    }
+
+    @Override
+    public <R> TypeAdapter<R> create(Gson gson, TypeToken<R> type) {
+        if (type.getRawType() != baseType) {
+            return null;
+        }
+
+        final Map<String, TypeAdapter<?>> labelToDelegate = new HashMap<String, TypeAdapter<?>>();
+        final Map<Class<?>, TypeAdapter<?>> subtypeToDelegate = new HashMap<Class<?>, TypeAdapter<?>>();
+        for (Map.Entry<String, Class<?>> entry : labelToSubtype.entrySet()) {
+            TypeAdapter<?> delegate = gson.getDelegateAdapter(this, TypeToken.get(entry.getValue()));
+            labelToDelegate.put(entry.getKey(), delegate);
+            subtypeToDelegate.put(entry.getValue(), delegate);
+        }
+        final TypeAdapter<?> defaultDelegate = defaultSubtype != null ? subtypeToDelegate.get(defaultSubtype) : null;
+        final Map<Class<?>, String> subtypeToLabel = new HashMap<Class<?>, String>(this.subtypeToLabel);
+        final String typeFieldName = this.typeFieldName;
+        final PreEncodedName encodedTypeFieldName = new PreEncodedName(typeFieldName);
+        final int lookaheadLimit = this.lookaheadLimit;
+
+        return new TypeAdapter<R>() {
+            @Override
+            public R read(JsonReader in) throws IOException {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                }
+                ReplayingJsonReader replaying = new ReplayingJsonReader(in);
+                String label = replaying.lookahead(typeFieldName, lookaheadLimit);
+                TypeAdapter<?> delegate = label != null ? labelToDelegate.get(label) : null;
+                if (delegate == null) {
+                    delegate = defaultDelegate;
+                }
+                if (delegate == null) {
+                    throw new JsonParseException("cannot deserialize " + baseType + (label == null
+                            ? " because it does not define a field named " + typeFieldName
+                            : " subtype named " + label + "; did you forget to register a subtype?")
+                            + " at path " + in.getPath());
+                }
+                @SuppressWarnings("unchecked") // registerSubtype requires that the subtypes extend T
+                R result = (R) delegate.read(replaying);
+                return result;
+            }
+
+            @Override
+            public void write(JsonWriter out, R value) throws IOException {
+                if (value == null) {
+                    out.nullValue();
+                    return;
+                }
+                Class<?> srcType = value.getClass();
+                String label = subtypeToLabel.get(srcType);
+                @SuppressWarnings("unchecked") // registerSubtype requires that the subtypes extend T
+                TypeAdapter<R> delegate = (TypeAdapter<R>) subtypeToDelegate.get(srcType);
+                if (delegate == null) {
+                    throw new JsonParseException("cannot serialize " + srcType.getName()
+                            + "; did you forget to register a subtype?");
+                }
+                delegate.write(new DiscriminatingJsonWriter(out, encodedTypeFieldName, label), value);
+            }
+        };
+    }
+
+    /**
+     * Forwards to another writer, inserting the discriminator as the first
+     * member of the outermost object.
+     */
+    private static final class DiscriminatingJsonWriter extends JsonWriter {
+
+        private static final Writer UNWRITABLE_WRITER = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int counter) {
+                throw new AssertionError();
+            }
+
+            @Override
+            public void flush() throws IOException {
+                throw new AssertionError();
+            }
+
+            @Override
+            public void close() throws IOException {
+                throw new AssertionError();
+            }
+        };
+
+        private final JsonWriter out;
+        private final PreEncodedName typeFieldName;
+        private final String label;
+        /**
+         * The nesting of arrays and objects, or -1 before the outermost
+         * object.
+         */
+        private int depth = -1;
+
+        DiscriminatingJsonWriter(JsonWriter out, PreEncodedName typeFieldName, String label) {
+            super(UNWRITABLE_WRITER);
+            this.out = out;
+            this.typeFieldName = typeFieldName;
+            this.label = label;
+            setLenient(out.isLenient());
+            setHtmlSafe(out.isHtmlSafe());
+            setSerializeNulls(out.getSerializeNulls());
+        }
+
+        private void beforeValue() {
+            if (depth < 0) {
+                throw new JsonParseException("cannot serialize " + label + " because it is not written as an object");
+            }
+        }
+
+        @Override
+        public JsonWriter beginArray() throws IOException {
+            beforeValue();
+            depth++;
+            out.beginArray();
+            return this;
+        }
+
+        @Override
+        public JsonWriter endArray() throws IOException {
+            depth--;
+            out.endArray();
+            return this;
+        }
+
+        @Override
+        public JsonWriter beginObject() throws IOException {
+            out.beginObject();
+            if (depth++ < 0) {
+                depth = 1;
+                out.name(typeFieldName).value(label);
+            }
+            return this;
+        }
+
+        @Override
+        public JsonWriter endObject() throws IOException {
+            depth--;
+            out.endObject();
+            return this;
+        }
+
+        @Override
+        public JsonWriter name(String name) throws IOException {
+            if (depth == 1 && name.equals(typeFieldName.getName())) {
+                throw new JsonParseException("cannot serialize " + label
+                        + " because it already defines a field named " + name);
+            }
+            out.name(name);
+            return this;
+        }
+
+        @Override
+        public JsonWriter name(PreEncodedName name) throws IOException {
+            if (depth == 1 && name.getName().equals(typeFieldName.getName())) {
+                throw new JsonParseException("cannot serialize " + label
+                        + " because it already defines a field named " + name);
+            }
+            out.name(name);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(String value) throws IOException {
+            beforeValue();
+            out.value(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter jsonValue(String value) throws IOException {
+            beforeValue();
+            out.jsonValue(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter nullValue() throws IOException {
+            beforeValue();
+            out.nullValue();
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(boolean value) throws IOException {
+            beforeValue();
+            out.value(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(Boolean value) throws IOException {
+            beforeValue();
+            out.value(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(double value) throws IOException {
+            beforeValue();
+            out.value(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(float value) throws IOException {
+            beforeValue();
+            out.value(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(long value) throws IOException {
+            beforeValue();
+            out.value(value);
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(Number value) throws IOException {
+            beforeValue();
+            out.value(value);
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
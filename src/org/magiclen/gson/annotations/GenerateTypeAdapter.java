@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2008 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation that asks the
+ * {@link org.magiclen.gson.processor.TypeAdapterProcessor} to generate the
+ * source of a {@link org.magiclen.gson.TypeAdapter} for the annotated class at
+ * compile time. {@link org.magiclen.gson.Gson} picks the generated adapter up
+ * instead of binding the class by reflection.
+ *
+ * <p>
+ * The generated adapter honours {@link SerializedName}, {@link Expose},
+ * {@link Since}, {@link Until} and {@link JsonAdapter} on fields, just like
+ * reflective binding. Because it accesses fields and the no-args constructor
+ * directly, the annotated class must not be generic, abstract or a non-static
+ * inner class, and neither its bound fields nor its no-args constructor may be
+ * {@code private}.</p>
+ *
+ * <p>
+ * Here is an example of how this annotation is meant to be used:</p>
+ * <pre>
+ * &#64GenerateTypeAdapter
+ * public class User {
+ *   &#64SerializedName("first_name") String firstName;
+ *   String lastName;
+ *   &#64Since(1.1) Address address;
+ * }
+ * </pre>
+ *
+ * <p>
+ * Compile with the processor enabled, for example
+ * {@code javac -processor org.magiclen.gson.processor.TypeAdapterProcessor}.
+ * If Gson is configured with a field naming strategy other than
+ * {@link org.magiclen.gson.FieldNamingPolicy#IDENTITY}, with exclusion
+ * strategies or with non-default excluded modifiers, or if the generated class
+ * is missing at runtime, the class is bound by reflection as usual.</p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GenerateTypeAdapter {
+}
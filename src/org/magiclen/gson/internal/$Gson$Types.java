@@ -16,6 +16,9 @@
 package org.magiclen.gson.internal;
 
 import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.GenericDeclaration;
@@ -24,11 +27,15 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.magiclen.gson.internal.$Gson$Preconditions.checkArgument;
 import static org.magiclen.gson.internal.$Gson$Preconditions.checkNotNull;
@@ -43,6 +50,51 @@ public final class $Gson$Types {
 
     static final Type[] EMPTY_TYPE_ARRAY = new Type[]{};
 
+    /**
+     * The canonical instance of every parameterized, generic array and
+     * wildcard type created by this class. Equal canonical types are the same
+     * instance, so they are compared by reference. The types are held weakly,
+     * so the table does not keep classes from being unloaded, and looking up
+     * an existing type takes no lock.
+     */
+    private static final ConcurrentMap<CanonicalReference, CanonicalReference> CANONICAL_TYPES
+            = new ConcurrentHashMap<CanonicalReference, CanonicalReference>();
+    private static final ReferenceQueue<Type> CLEARED_TYPES = new ReferenceQueue<Type>();
+
+    /**
+     * The most memoized resolutions per context class of a class loader that
+     * descends from the library's.
+     */
+    private static final int RESOLVED_LIMIT = 256;
+
+    /**
+     * The most memoized resolutions for context classes of the library's
+     * class loader and its ancestors, altogether.
+     */
+    private static final int STRONG_RESOLVED_LIMIT = 4096;
+
+    /**
+     * Memoized results of {@link #resolve} for context classes that outlive
+     * the library, which may therefore be held strongly.
+     */
+    private static final ConcurrentMap<ResolveKey, Type> STRONG_RESOLVED
+            = new ConcurrentHashMap<ResolveKey, Type>();
+
+    /**
+     * Memoized results of {@link #resolve} for context classes of class
+     * loaders that descend from the library's, stored on the context class so
+     * that they are unloaded with it. Classes of other loaders are not
+     * memoized: storing objects of the library on them would keep the
+     * library's class loader alive.
+     */
+    private static final ClassValue<ConcurrentMap<ResolveKey, Type>> OWNED_RESOLVED
+            = new ClassValue<ConcurrentMap<ResolveKey, Type>>() {
+                @Override
+                protected ConcurrentMap<ResolveKey, Type> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<ResolveKey, Type>();
+                }
+            };
+
     private $Gson$Types() {
         throw new UnsupportedOperationException();
     }
@@ -55,7 +107,7 @@ public final class $Gson$Types {
      */
     public static ParameterizedType newParameterizedTypeWithOwner(
             Type ownerType, Type rawType, Type... typeArguments) {
-        return new ParameterizedTypeImpl(ownerType, rawType, typeArguments);
+        return intern(new ParameterizedTypeImpl(ownerType, rawType, typeArguments));
     }
 
     /**
@@ -65,7 +117,7 @@ public final class $Gson$Types {
      * @return a {@link java.io.Serializable serializable} generic array type.
      */
     public static GenericArrayType arrayOf(Type componentType) {
-        return new GenericArrayTypeImpl(componentType);
+        return intern(new GenericArrayTypeImpl(componentType));
     }
 
     /**
@@ -82,7 +134,7 @@ public final class $Gson$Types {
         } else {
             upperBounds = new Type[]{bound};
         }
-        return new WildcardTypeImpl(upperBounds, EMPTY_TYPE_ARRAY);
+        return intern(new WildcardTypeImpl(upperBounds, EMPTY_TYPE_ARRAY));
     }
 
     /**
@@ -97,31 +149,35 @@ public final class $Gson$Types {
         } else {
             lowerBounds = new Type[]{bound};
         }
-        return new WildcardTypeImpl(new Type[]{Object.class}, lowerBounds);
+        return intern(new WildcardTypeImpl(new Type[]{Object.class}, lowerBounds));
     }
 
     /**
      * Returns a type that is functionally equal but not necessarily equal
      * according to {@link Object#equals(Object) Object.equals()}. The returned
-     * type is {@link java.io.Serializable}.
+     * type is {@link java.io.Serializable}. Canonical types other than classes
+     * are interned: equal ones are the same instance.
      */
     public static Type canonicalize(Type type) {
         if (type instanceof Class) {
             Class<?> c = (Class<?>) type;
-            return c.isArray() ? new GenericArrayTypeImpl(canonicalize(c.getComponentType())) : c;
+            return c.isArray() ? intern(new GenericArrayTypeImpl(canonicalize(c.getComponentType()))) : c;
+
+        } else if (isInterned(type)) {
+            return type;
 
         } else if (type instanceof ParameterizedType) {
             ParameterizedType p = (ParameterizedType) type;
-            return new ParameterizedTypeImpl(p.getOwnerType(),
-                    p.getRawType(), p.getActualTypeArguments());
+            return intern(new ParameterizedTypeImpl(p.getOwnerType(),
+                    p.getRawType(), p.getActualTypeArguments()));
 
         } else if (type instanceof GenericArrayType) {
             GenericArrayType g = (GenericArrayType) type;
-            return new GenericArrayTypeImpl(g.getGenericComponentType());
+            return intern(new GenericArrayTypeImpl(g.getGenericComponentType()));
 
         } else if (type instanceof WildcardType) {
             WildcardType w = (WildcardType) type;
-            return new WildcardTypeImpl(w.getUpperBounds(), w.getLowerBounds());
+            return intern(new WildcardTypeImpl(w.getUpperBounds(), w.getLowerBounds()));
 
         } else {
             // type is either serializable as-is or unsupported
@@ -175,6 +231,10 @@ public final class $Gson$Types {
             // also handles (a == null && b == null)
             return true;
 
+        } else if (isInterned(a) && isInterned(b)) {
+            // equal interned types are the same instance
+            return false;
+
         } else if (a instanceof Class) {
             // Class already specifies equals().
             return a.equals(b);
@@ -233,6 +293,60 @@ public final class $Gson$Types {
         return type instanceof Class ? ((Class<?>) type).getName() : type.toString();
     }
 
+    /**
+     * Returns true if {@code type} is or contains a type variable.
+     */
+    public static boolean containsTypeVariable(Type type) {
+        if (type instanceof TypeVariable) {
+            return true;
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType p = (ParameterizedType) type;
+            if (p.getOwnerType() != null && containsTypeVariable(p.getOwnerType())) {
+                return true;
+            }
+            for (Type argument : p.getActualTypeArguments()) {
+                if (containsTypeVariable(argument)) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (type instanceof GenericArrayType) {
+            return containsTypeVariable(((GenericArrayType) type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            WildcardType w = (WildcardType) type;
+            for (Type bound : w.getUpperBounds()) {
+                if (containsTypeVariable(bound)) {
+                    return true;
+                }
+            }
+            for (Type bound : w.getLowerBounds()) {
+                if (containsTypeVariable(bound)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a type written by {@link #typeToString} for a canonical type
+     * without type variables: a class name, parameterized type, generic array
+     * or wildcard.
+     *
+     * @throws ClassNotFoundException if a named class cannot be loaded by
+     * {@code classLoader}.
+     * @throws IllegalArgumentException if {@code string} is malformed.
+     */
+    public static Type parseType(String string, ClassLoader classLoader) throws ClassNotFoundException {
+        TypeParser parser = new TypeParser(string, classLoader);
+        Type type = parser.parseType();
+        parser.skipWhitespace();
+        if (parser.pos != string.length()) {
+            throw new IllegalArgumentException("Malformed type: " + string);
+        }
+        return type;
+    }
+
     /**
      * Returns the generic supertype for {@code supertype}. For example, given a
      * class {@code
@@ -338,7 +452,134 @@ public final class $Gson$Types {
         return new Type[]{Object.class, Object.class};
     }
 
+    /**
+     * Returns the canonical instance of {@code type}, making {@code type} the
+     * canonical instance if there is none yet.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Type> T intern(T type) {
+        for (Reference<? extends Type> cleared; (cleared = CLEARED_TYPES.poll()) != null;) {
+            CANONICAL_TYPES.remove(cleared);
+        }
+        CanonicalReference reference = new CanonicalReference(type, CLEARED_TYPES);
+        while (true) {
+            CanonicalReference existing = CANONICAL_TYPES.get(reference);
+            if (existing == null) {
+                existing = CANONICAL_TYPES.putIfAbsent(reference, reference);
+                if (existing == null) {
+                    if (type instanceof ParameterizedTypeImpl) {
+                        ((ParameterizedTypeImpl) type).interned = true;
+                    } else if (type instanceof GenericArrayTypeImpl) {
+                        ((GenericArrayTypeImpl) type).interned = true;
+                    } else {
+                        ((WildcardTypeImpl) type).interned = true;
+                    }
+                    return type;
+                }
+            }
+            Type canonical = existing.get();
+            if (canonical != null) {
+                return (T) canonical;
+            }
+            // cleared but not yet expunged
+            CANONICAL_TYPES.remove(existing, existing);
+        }
+    }
+
+    /**
+     * Returns whether {@code type} is a canonical instance. The flag may be
+     * seen late by other threads, which only costs them a structural
+     * comparison.
+     */
+    private static boolean isInterned(Type type) {
+        if (type instanceof ParameterizedTypeImpl) {
+            return ((ParameterizedTypeImpl) type).interned;
+        } else if (type instanceof GenericArrayTypeImpl) {
+            return ((GenericArrayTypeImpl) type).interned;
+        } else if (type instanceof WildcardTypeImpl) {
+            return ((WildcardTypeImpl) type).interned;
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the type variables of {@code toResolve} in {@code context}.
+     * Results are memoized per {@code contextRawType}, so the fields of a
+     * generic type hierarchy are resolved once.
+     */
     public static Type resolve(Type context, Class<?> contextRawType, Type toResolve) {
+        if (toResolve instanceof Class && !((Class<?>) toResolve).isArray() || contextRawType == null) {
+            return resolveUncached(context, contextRawType, toResolve);
+        }
+        ResolveKey key = new ResolveKey(context, contextRawType, toResolve);
+        Type result = STRONG_RESOLVED.get(key);
+        if (result != null) {
+            return result;
+        }
+        ClassLoader loader = contextRawType.getClassLoader();
+        ConcurrentMap<ResolveKey, Type> resolved;
+        int limit;
+        if (ClassLoaders.isStrong(loader)) {
+            resolved = STRONG_RESOLVED;
+            limit = STRONG_RESOLVED_LIMIT;
+        } else if (ClassLoaders.isOwned(loader)) {
+            resolved = OWNED_RESOLVED.get(contextRawType);
+            result = resolved.get(key);
+            if (result != null) {
+                return result;
+            }
+            limit = RESOLVED_LIMIT;
+        } else {
+            return resolveUncached(context, contextRawType, toResolve);
+        }
+        result = resolveUncached(context, contextRawType, toResolve);
+        // the memo must not keep a class loader alive that the context class does not
+        if (resolved.size() < limit && isVisible(context, loader) && isVisible(result, loader)) {
+            resolved.putIfAbsent(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether all classes in {@code type} are loaded by
+     * {@code loader} or one of its ancestors.
+     */
+    private static boolean isVisible(Type type, ClassLoader loader) {
+        if (type instanceof Class<?>) {
+            ClassLoader classLoader = ((Class<?>) type).getClassLoader();
+            for (ClassLoader l = loader; classLoader != null; l = l.getParent()) {
+                if (l == null) {
+                    return false;
+                }
+                if (l == classLoader) {
+                    return true;
+                }
+            }
+            return true;
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType p = (ParameterizedType) type;
+            for (Type argument : p.getActualTypeArguments()) {
+                if (!isVisible(argument, loader)) {
+                    return false;
+                }
+            }
+            return isVisible(p.getRawType(), loader)
+                    && (p.getOwnerType() == null || isVisible(p.getOwnerType(), loader));
+        } else if (type instanceof GenericArrayType) {
+            return isVisible(((GenericArrayType) type).getGenericComponentType(), loader);
+        } else if (type instanceof WildcardType) {
+            WildcardType w = (WildcardType) type;
+            Type[] lowerBounds = w.getLowerBounds();
+            return isVisible(w.getUpperBounds()[0], loader)
+                    && (lowerBounds.length == 0 || isVisible(lowerBounds[0], loader));
+        } else if (type instanceof TypeVariable<?>) {
+            Class<?> declaredBy = declaringClassOf((TypeVariable<?>) type);
+            return declaredBy != null && isVisible(declaredBy, loader);
+        }
+        return false;
+    }
+
+    private static Type resolveUncached(Type context, Class<?> contextRawType, Type toResolve) {
         // this implementation is made a little more complicated in an attempt to avoid object-creation
         while (true) {
             if (toResolve instanceof TypeVariable) {
@@ -351,7 +592,7 @@ public final class $Gson$Types {
             } else if (toResolve instanceof Class && ((Class<?>) toResolve).isArray()) {
                 Class<?> original = (Class<?>) toResolve;
                 Type componentType = original.getComponentType();
-                Type newComponentType = resolve(context, contextRawType, componentType);
+                Type newComponentType = resolveUncached(context, contextRawType, componentType);
                 return componentType == newComponentType
                         ? original
                         : arrayOf(newComponentType);
@@ -359,7 +600,7 @@ public final class $Gson$Types {
             } else if (toResolve instanceof GenericArrayType) {
                 GenericArrayType original = (GenericArrayType) toResolve;
                 Type componentType = original.getGenericComponentType();
-                Type newComponentType = resolve(context, contextRawType, componentType);
+                Type newComponentType = resolveUncached(context, contextRawType, componentType);
                 return componentType == newComponentType
                         ? original
                         : arrayOf(newComponentType);
@@ -367,12 +608,12 @@ public final class $Gson$Types {
             } else if (toResolve instanceof ParameterizedType) {
                 ParameterizedType original = (ParameterizedType) toResolve;
                 Type ownerType = original.getOwnerType();
-                Type newOwnerType = resolve(context, contextRawType, ownerType);
+                Type newOwnerType = resolveUncached(context, contextRawType, ownerType);
                 boolean changed = newOwnerType != ownerType;
 
                 Type[] args = original.getActualTypeArguments();
                 for (int t = 0, length = args.length; t < length; t++) {
-                    Type resolvedTypeArgument = resolve(context, contextRawType, args[t]);
+                    Type resolvedTypeArgument = resolveUncached(context, contextRawType, args[t]);
                     if (resolvedTypeArgument != args[t]) {
                         if (!changed) {
                             args = args.clone();
@@ -392,12 +633,12 @@ public final class $Gson$Types {
                 Type[] originalUpperBound = original.getUpperBounds();
 
                 if (originalLowerBound.length == 1) {
-                    Type lowerBound = resolve(context, contextRawType, originalLowerBound[0]);
+                    Type lowerBound = resolveUncached(context, contextRawType, originalLowerBound[0]);
                     if (lowerBound != originalLowerBound[0]) {
                         return supertypeOf(lowerBound);
                     }
                 } else if (originalUpperBound.length == 1) {
-                    Type upperBound = resolve(context, contextRawType, originalUpperBound[0]);
+                    Type upperBound = resolveUncached(context, contextRawType, originalUpperBound[0]);
                     if (upperBound != originalUpperBound[0]) {
                         return subtypeOf(upperBound);
                     }
@@ -451,11 +692,151 @@ public final class $Gson$Types {
         checkArgument(!(type instanceof Class<?>) || !((Class<?>) type).isPrimitive());
     }
 
+    private static final class TypeParser {
+
+        private final String string;
+        private final ClassLoader classLoader;
+        int pos;
+
+        TypeParser(String string, ClassLoader classLoader) {
+            this.string = string;
+            this.classLoader = classLoader;
+        }
+
+        Type parseType() throws ClassNotFoundException {
+            skipWhitespace();
+            if (consume("?")) {
+                skipWhitespace();
+                if (consume("extends ")) {
+                    return subtypeOf(parseType());
+                } else if (consume("super ")) {
+                    return supertypeOf(parseType());
+                }
+                return subtypeOf(Object.class);
+            }
+
+            int start = pos;
+            while (pos < string.length() && "<>,[] ".indexOf(string.charAt(pos)) == -1) {
+                pos++;
+            }
+            if (start == pos) {
+                throw new IllegalArgumentException("Malformed type: " + string);
+            }
+            Type type = loadClass(string.substring(start, pos));
+
+            skipWhitespace();
+            if (consume("<")) {
+                List<Type> arguments = new ArrayList<Type>();
+                do {
+                    arguments.add(parseType());
+                    skipWhitespace();
+                } while (consume(","));
+                if (!consume(">")) {
+                    throw new IllegalArgumentException("Malformed type: " + string);
+                }
+                Class<?> rawType = (Class<?>) type;
+                Type ownerType = Modifier.isStatic(rawType.getModifiers()) ? null : rawType.getEnclosingClass();
+                type = newParameterizedTypeWithOwner(
+                        ownerType, rawType, arguments.toArray(new Type[arguments.size()]));
+            }
+
+            while (consume("[]")) {
+                type = arrayOf(type);
+            }
+            return type;
+        }
+
+        private Class<?> loadClass(String name) throws ClassNotFoundException {
+            Class<?> primitive = Primitives.forName(name);
+            return primitive != null ? primitive : Class.forName(name, false, classLoader);
+        }
+
+        private boolean consume(String token) {
+            if (string.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        void skipWhitespace() {
+            while (pos < string.length() && string.charAt(pos) == ' ') {
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * A weak reference to a canonical type, equal to the references of equal
+     * types while it is not cleared.
+     */
+    private static final class CanonicalReference extends WeakReference<Type> {
+
+        private final int hashCode;
+
+        CanonicalReference(Type type, ReferenceQueue<Type> queue) {
+            super(type, queue);
+            this.hashCode = type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof CanonicalReference)) {
+                return false;
+            }
+            CanonicalReference that = (CanonicalReference) other;
+            Type type = get();
+            return hashCode == that.hashCode && type != null && $Gson$Types.equals(type, that.get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class ResolveKey {
+
+        private final Type context;
+        private final Class<?> contextRawType;
+        private final Type toResolve;
+        private final int hashCode;
+
+        ResolveKey(Type context, Class<?> contextRawType, Type toResolve) {
+            this.context = context;
+            this.contextRawType = contextRawType;
+            this.toResolve = toResolve;
+            this.hashCode = (hashCodeOrZero(context) * 31 + contextRawType.hashCode()) * 31 + toResolve.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ResolveKey)) {
+                return false;
+            }
+            ResolveKey that = (ResolveKey) other;
+            return hashCode == that.hashCode
+                    && contextRawType == that.contextRawType
+                    && $Gson$Types.equals(context, that.context)
+                    && $Gson$Types.equals(toResolve, that.toResolve);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     private static final class ParameterizedTypeImpl implements ParameterizedType, Serializable {
 
         private final Type ownerType;
         private final Type rawType;
         private final Type[] typeArguments;
+        private final transient int hashCode;
+        transient boolean interned;
 
         public ParameterizedTypeImpl(Type ownerType, Type rawType, Type... typeArguments) {
             // require an owner type if the raw type needs it
@@ -474,6 +855,9 @@ public final class $Gson$Types {
                 checkNotPrimitive(this.typeArguments[t]);
                 this.typeArguments[t] = canonicalize(this.typeArguments[t]);
             }
+            this.hashCode = Arrays.hashCode(this.typeArguments)
+                    ^ this.rawType.hashCode()
+                    ^ hashCodeOrZero(this.ownerType);
         }
 
         public Type[] getActualTypeArguments() {
@@ -496,9 +880,7 @@ public final class $Gson$Types {
 
         @Override
         public int hashCode() {
-            return Arrays.hashCode(typeArguments)
-                    ^ rawType.hashCode()
-                    ^ hashCodeOrZero(ownerType);
+            return hashCode;
         }
 
         @Override
@@ -516,12 +898,17 @@ public final class $Gson$Types {
             return stringBuilder.append(">").toString();
         }
 
+        private Object readResolve() {
+            return intern(new ParameterizedTypeImpl(ownerType, rawType, typeArguments));
+        }
+
         private static final long serialVersionUID = 0;
     }
 
     private static final class GenericArrayTypeImpl implements GenericArrayType, Serializable {
 
         private final Type componentType;
+        transient boolean interned;
 
         public GenericArrayTypeImpl(Type componentType) {
             this.componentType = canonicalize(componentType);
@@ -547,6 +934,10 @@ public final class $Gson$Types {
             return typeToString(componentType) + "[]";
         }
 
+        private Object readResolve() {
+            return intern(new GenericArrayTypeImpl(componentType));
+        }
+
         private static final long serialVersionUID = 0;
     }
 
@@ -559,6 +950,7 @@ public final class $Gson$Types {
 
         private final Type upperBound;
         private final Type lowerBound;
+        transient boolean interned;
 
         public WildcardTypeImpl(Type[] upperBounds, Type[] lowerBounds) {
             checkArgument(lowerBounds.length <= 1);
@@ -611,6 +1003,10 @@ public final class $Gson$Types {
             }
         }
 
+        private Object readResolve() {
+            return intern(new WildcardTypeImpl(getUpperBounds(), getLowerBounds()));
+        }
+
         private static final long serialVersionUID = 0;
     }
 }
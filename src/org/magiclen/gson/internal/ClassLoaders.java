@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tells which classes a cache of the library may hold strongly. The library's
+ * own class loader and its ancestors outlive the library, so the classes they
+ * load can be referenced from static state without keeping anything alive.
+ * Classes of other loaders, such as those of a redeployed application, are
+ * foreign and must only be referenced weakly.
+ */
+public final class ClassLoaders {
+
+    private static final Set<ClassLoader> STRONG_LOADERS = new HashSet<ClassLoader>();
+
+    static {
+        for (ClassLoader loader = ClassLoaders.class.getClassLoader(); loader != null;
+                loader = loader.getParent()) {
+            STRONG_LOADERS.add(loader);
+        }
+    }
+
+    private ClassLoaders() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns whether {@code loader} is the library's class loader, one of its
+     * ancestors, or the bootstrap loader.
+     */
+    public static boolean isStrong(ClassLoader loader) {
+        return loader == null || STRONG_LOADERS.contains(loader);
+    }
+
+    /**
+     * Returns whether {@code loader} is the library's class loader or one of
+     * its descendants. Such loaders already reference the library's loader, so
+     * their classes may hold objects of the library.
+     */
+    public static boolean isOwned(ClassLoader loader) {
+        ClassLoader library = ClassLoaders.class.getClassLoader();
+        for (; loader != null; loader = loader.getParent()) {
+            if (loader == library) {
+                return true;
+            }
+        }
+        return library == null;
+    }
+
+    /**
+     * Returns a class in {@code type} that was loaded by a foreign class
+     * loader, or null if there is none.
+     */
+    public static Class<?> foreignClass(Type type) {
+        if (type instanceof Class<?>) {
+            Class<?> c = (Class<?>) type;
+            while (c.isArray()) {
+                c = c.getComponentType();
+            }
+            return isStrong(c.getClassLoader()) ? null : c;
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType p = (ParameterizedType) type;
+            Class<?> result = foreignClass(p.getRawType());
+            for (Type argument : p.getActualTypeArguments()) {
+                if (result != null) {
+                    break;
+                }
+                result = foreignClass(argument);
+            }
+            if (result == null && p.getOwnerType() != null) {
+                result = foreignClass(p.getOwnerType());
+            }
+            return result;
+        } else if (type instanceof GenericArrayType) {
+            return foreignClass(((GenericArrayType) type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            WildcardType w = (WildcardType) type;
+            Type[] lowerBounds = w.getLowerBounds();
+            return foreignClass(lowerBounds.length == 1 ? lowerBounds[0] : w.getUpperBounds()[0]);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2012 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An insertion ordered map of non-null keys to values with a small footprint.
+ * Up to {@value #MAX_FLAT_SIZE} entries are kept in a single flat array of
+ * alternating keys and values and are found by linear search, which costs two
+ * references per entry instead of a node per entry. A larger map moves its
+ * entries to a {@link LinkedTreeMap}, which keeps lookups fast and keeps the
+ * protection of that class against colliding hash codes.
+ */
+public final class CompactLinkedMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    static final int MAX_FLAT_SIZE = 16;
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] table = EMPTY;
+    private int size;
+    private LinkedTreeMap<K, V> large;
+    private int modCount;
+
+    @Override
+    public int size() {
+        return large != null ? large.size() : size;
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        Object[] table = this.table;
+        for (int i = 0, end = size << 1; i < end; i += 2) {
+            Object k = table[i];
+            if (k == key || k.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (large != null) {
+            return large.containsKey(key);
+        }
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        if (large != null) {
+            return large.get(key);
+        }
+        int index = indexOf(key);
+        return index >= 0 ? (V) table[index + 1] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        if (large != null) {
+            return large.put(key, value);
+        }
+        int index = indexOf(key);
+        if (index >= 0) {
+            V old = (V) table[index + 1];
+            table[index + 1] = value;
+            return old;
+        }
+        if (size == MAX_FLAT_SIZE) {
+            LinkedTreeMap<K, V> map = new LinkedTreeMap<K, V>();
+            for (int i = 0, end = size << 1; i < end; i += 2) {
+                map.put((K) table[i], (V) table[i + 1]);
+            }
+            map.put(key, value);
+            large = map;
+            table = EMPTY;
+            size = 0;
+            modCount++;
+            return null;
+        }
+        int end = size << 1;
+        if (end == table.length) {
+            table = Arrays.copyOf(table, table.length == 0 ? 8 : table.length << 1);
+        }
+        table[end] = key;
+        table[end + 1] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        if (large != null) {
+            return large.remove(key);
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V old = (V) table[index + 1];
+        removeAt(index);
+        return old;
+    }
+
+    private void removeAt(int index) {
+        int end = size << 1;
+        System.arraycopy(table, index + 2, table, index, end - index - 2);
+        table[end - 2] = null;
+        table[end - 1] = null;
+        size--;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        large = null;
+        table = EMPTY;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Shrinks the storage of a small map to its current size. Call once a map
+     * has been filled, such as after parsing an object.
+     */
+    public void trimToSize() {
+        if (large == null && table.length > size << 1) {
+            table = size == 0 ? EMPTY : Arrays.copyOf(table, size << 1);
+        }
+    }
+
+    /**
+     * Returns the length of the flat array, which is zero once the map is
+     * large.
+     */
+    int tableLength() {
+        return table.length;
+    }
+
+    /**
+     * Returns the map holding the entries of a large map, or null.
+     */
+    LinkedTreeMap<K, V> large() {
+        return large;
+    }
+
+    private EntrySet entrySet;
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (large != null) {
+            return large.entrySet();
+        }
+        EntrySet result = entrySet;
+        return result != null ? result : (entrySet = new EntrySet());
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public int size() {
+            return CompactLinkedMap.this.size();
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            if (large != null) {
+                return large.entrySet().iterator();
+            }
+            return new EntryIterator();
+        }
+
+        @Override
+        public void clear() {
+            CompactLinkedMap.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size << 1;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size << 1) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next += 2;
+            return new TableEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class TableEntry implements Entry<K, V> {
+
+        private final K key;
+        private final int expectedModCount;
+        private final int index;
+
+        @SuppressWarnings("unchecked")
+        TableEntry(int index) {
+            this.key = (K) table[index];
+            this.index = index;
+            this.expectedModCount = modCount;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public V getValue() {
+            return modCount == expectedModCount ? (V) table[index + 1] : get(key);
+        }
+
+        @Override
+        public V setValue(V value) {
+            if (modCount == expectedModCount) {
+                @SuppressWarnings("unchecked")
+                V old = (V) table[index + 1];
+                table[index + 1] = value;
+                return old;
+            }
+            return put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> other = (Entry<?, ?>) o;
+            V value = getValue();
+            return key.equals(other.getKey())
+                    && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            V value = getValue();
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+    /**
+     * Serializes as a LinkedHashMap, like {@link LinkedTreeMap}, so that Gson
+     * is not needed on the other side to deserialize it.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new LinkedHashMap<K, V>(this);
+    }
+
+    private static final long serialVersionUID = 0;
+}
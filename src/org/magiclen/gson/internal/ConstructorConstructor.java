@@ -15,8 +15,12 @@
  */
 package org.magiclen.gson.internal;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayDeque;
@@ -37,6 +41,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 
+import org.magiclen.gson.FieldAccessPolicy;
 import org.magiclen.gson.InstanceCreator;
 import org.magiclen.gson.JsonIOException;
 import org.magiclen.gson.reflect.TypeToken;
@@ -47,9 +52,16 @@ import org.magiclen.gson.reflect.TypeToken;
 public final class ConstructorConstructor {
 
     private final Map<Type, InstanceCreator<?>> instanceCreators;
+    private final FieldAccessPolicy accessPolicy;
 
     public ConstructorConstructor(Map<Type, InstanceCreator<?>> instanceCreators) {
+        this(instanceCreators, FieldAccessPolicy.REFLECTION);
+    }
+
+    public ConstructorConstructor(Map<Type, InstanceCreator<?>> instanceCreators,
+            FieldAccessPolicy accessPolicy) {
         this.instanceCreators = instanceCreators;
+        this.accessPolicy = accessPolicy;
     }
 
     public <T> ObjectConstructor<T> get(TypeToken<T> typeToken) {
@@ -101,6 +113,12 @@ public final class ConstructorConstructor {
             if (!constructor.isAccessible()) {
                 constructor.setAccessible(true);
             }
+            if (accessPolicy == FieldAccessPolicy.METHOD_HANDLES) {
+                ObjectConstructor<T> handleConstructor = newMethodHandleConstructor(constructor);
+                if (handleConstructor != null) {
+                    return handleConstructor;
+                }
+            }
             return new ObjectConstructor<T>() {
                 @SuppressWarnings("unchecked") // T is the same raw type as is requested
                 @Override
@@ -126,6 +144,30 @@ public final class ConstructorConstructor {
         }
     }
 
+    private <T> ObjectConstructor<T> newMethodHandleConstructor(final Constructor<? super T> constructor) {
+        if (Modifier.isAbstract(constructor.getDeclaringClass().getModifiers())) {
+            return null; // let reflection report the InstantiationException
+        }
+        final MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+        return new ObjectConstructor<T>() {
+            @SuppressWarnings("unchecked") // T is the same raw type as is requested
+            @Override
+            public T construct() {
+                try {
+                    return (T) (Object) handle.invokeExact();
+                } catch (Throwable t) {
+                    throw new RuntimeException("Failed to invoke " + constructor + " with no args", t);
+                }
+            }
+        };
+    }
+
     /**
      * Constructors for common interface types like Map and List and their
      * subtypes.
@@ -195,6 +195,47 @@ public final class Excluder implements TypeAdapterFactory, Cloneable {
         return false;
     }
 
+    /**
+     * Returns true if fields can be checked without a {@link Field}, using
+     * {@link #excludeField(Class, double, double, boolean, boolean, boolean, boolean)}.
+     * This is not the case when exclusion strategies or non-default modifiers
+     * are configured.
+     */
+    public boolean supportsFieldDescriptors() {
+        return modifiers == (Modifier.TRANSIENT | Modifier.STATIC)
+                && serializationStrategies.isEmpty()
+                && deserializationStrategies.isEmpty();
+    }
+
+    /**
+     * Returns true if a non-static, non-transient, non-synthetic field with the
+     * given type and annotation values is excluded, either because of the field
+     * itself or because of its type. This is used by type adapters generated at
+     * compile time, which have no {@link Field} to inspect.
+     *
+     * @param since the value of the field's {@link Since}, or NaN if absent
+     * @param until the value of the field's {@link Until}, or NaN if absent
+     * @param exposed whether the field is annotated with {@link Expose}
+     * @param exposeSerialize the value of {@link Expose#serialize()}
+     * @param exposeDeserialize the value of {@link Expose#deserialize()}
+     */
+    public boolean excludeField(Class<?> fieldType, double since, double until, boolean exposed,
+            boolean exposeSerialize, boolean exposeDeserialize, boolean serialize) {
+        if (excludeClass(fieldType, serialize)) {
+            return true;
+        }
+
+        if (version != Excluder.IGNORE_VERSIONS && !isValidVersion(since, until)) {
+            return true;
+        }
+
+        if (requireExpose && (!exposed || (serialize ? !exposeSerialize : !exposeDeserialize))) {
+            return true;
+        }
+
+        return false;
+    }
+
     public boolean excludeClass(Class<?> clazz, boolean serialize) {
         if (version != Excluder.IGNORE_VERSIONS
                 && !isValidVersion(clazz.getAnnotation(Since.class), clazz.getAnnotation(Until.class))) {
@@ -236,6 +277,11 @@ public final class Excluder implements TypeAdapterFactory, Cloneable {
         return isValidSince(since) && isValidUntil(until);
     }
 
+    private boolean isValidVersion(double since, double until) {
+        // NaN compares false, so an absent annotation never excludes
+        return !(since > version) && !(until <= version);
+    }
+
     private boolean isValidSince(Since annotation) {
         if (annotation != null) {
             double annotationVersion = annotation.value();
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+import org.magiclen.gson.FieldAccessPolicy;
+
+/**
+ * Reads and writes a single field of an object. The primitive accessors
+ * avoid boxing and may only be used when the field has that exact type.
+ */
+public abstract class FieldAccessor {
+
+    /**
+     * Returns an accessor for {@code field}, which must already be accessible.
+     */
+    public static FieldAccessor create(Field field, FieldAccessPolicy policy) {
+        if (policy == FieldAccessPolicy.METHOD_HANDLES) {
+            try {
+                return new MethodHandleAccessor(field);
+            } catch (IllegalAccessException e) {
+                // final fields and the like; fall back to reflection
+            }
+        }
+        return new ReflectionAccessor(field);
+    }
+
+    public abstract Object get(Object instance) throws IllegalAccessException;
+
+    public abstract void set(Object instance, Object value) throws IllegalAccessException;
+
+    public abstract int getInt(Object instance) throws IllegalAccessException;
+
+    public abstract void setInt(Object instance, int value) throws IllegalAccessException;
+
+    public abstract long getLong(Object instance) throws IllegalAccessException;
+
+    public abstract void setLong(Object instance, long value) throws IllegalAccessException;
+
+    public abstract double getDouble(Object instance) throws IllegalAccessException;
+
+    public abstract void setDouble(Object instance, double value) throws IllegalAccessException;
+
+    public abstract boolean getBoolean(Object instance) throws IllegalAccessException;
+
+    public abstract void setBoolean(Object instance, boolean value) throws IllegalAccessException;
+
+    static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new AssertionError(t);
+    }
+
+    private static final class ReflectionAccessor extends FieldAccessor {
+
+        private final Field field;
+
+        ReflectionAccessor(Field field) {
+            this.field = field;
+        }
+
+        @Override
+        public Object get(Object instance) throws IllegalAccessException {
+            return field.get(instance);
+        }
+
+        @Override
+        public void set(Object instance, Object value) throws IllegalAccessException {
+            field.set(instance, value);
+        }
+
+        @Override
+        public int getInt(Object instance) throws IllegalAccessException {
+            return field.getInt(instance);
+        }
+
+        @Override
+        public void setInt(Object instance, int value) throws IllegalAccessException {
+            field.setInt(instance, value);
+        }
+
+        @Override
+        public long getLong(Object instance) throws IllegalAccessException {
+            return field.getLong(instance);
+        }
+
+        @Override
+        public void setLong(Object instance, long value) throws IllegalAccessException {
+            field.setLong(instance, value);
+        }
+
+        @Override
+        public double getDouble(Object instance) throws IllegalAccessException {
+            return field.getDouble(instance);
+        }
+
+        @Override
+        public void setDouble(Object instance, double value) throws IllegalAccessException {
+            field.setDouble(instance, value);
+        }
+
+        @Override
+        public boolean getBoolean(Object instance) throws IllegalAccessException {
+            return field.getBoolean(instance);
+        }
+
+        @Override
+        public void setBoolean(Object instance, boolean value) throws IllegalAccessException {
+            field.setBoolean(instance, value);
+        }
+    }
+
+    /**
+     * Holds the getter and setter twice: once adapted to {@code Object} for
+     * boxed access and once adapted to the field's primitive type, if any.
+     */
+    private static final class MethodHandleAccessor extends FieldAccessor {
+
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final MethodHandle primitiveGetter;
+        private final MethodHandle primitiveSetter;
+
+        MethodHandleAccessor(Field field) throws IllegalAccessException {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle get = lookup.unreflectGetter(field);
+            MethodHandle set = lookup.unreflectSetter(field);
+            Class<?> type = field.getType();
+            getter = get.asType(MethodType.methodType(Object.class, Object.class));
+            setter = set.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            if (type.isPrimitive()) {
+                primitiveGetter = get.asType(MethodType.methodType(type, Object.class));
+                primitiveSetter = set.asType(MethodType.methodType(void.class, Object.class, type));
+            } else {
+                primitiveGetter = null;
+                primitiveSetter = null;
+            }
+        }
+
+        @Override
+        public Object get(Object instance) {
+            try {
+                return (Object) getter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void set(Object instance, Object value) {
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public int getInt(Object instance) {
+            try {
+                return (int) primitiveGetter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setInt(Object instance, int value) {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public long getLong(Object instance) {
+            try {
+                return (long) primitiveGetter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setLong(Object instance, long value) {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public double getDouble(Object instance) {
+            try {
+                return (double) primitiveGetter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setDouble(Object instance, double value) {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(Object instance) {
+            try {
+                return (boolean) primitiveGetter.invokeExact(instance);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setBoolean(Object instance, boolean value) {
+            try {
+                primitiveSetter.invokeExact(instance, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+}
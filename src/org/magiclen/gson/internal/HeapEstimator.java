@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.magiclen.gson.RetainedSize;
+
+/**
+ * Adds up the estimated heap sizes of the parts of a tree of JSON values. The
+ * callers walk the tree; this class only knows the layouts of the objects,
+ * for a 64-bit virtual machine with compressed references and 8-byte
+ * alignment.
+ */
+public final class HeapEstimator {
+
+    private static final int HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int ARRAY_HEADER = 16;
+    /**
+     * Whether strings keep Latin-1 text in one byte per char, as they do from
+     * Java 9 on.
+     */
+    private static final boolean COMPACT_STRINGS = !System.getProperty("java.specification.version", "").startsWith("1.");
+
+    private static final long STRING = align(HEADER + REFERENCE + 4 + (COMPACT_STRINGS ? 2 : 0));
+    private static final long HASH_MAP = align(HEADER + 4 * REFERENCE + 4 * 4);
+    private static final long HASH_MAP_NODE = align(HEADER + 4 + 3 * REFERENCE);
+    private static final long ARRAY_LIST = align(HEADER + REFERENCE + 2 * 4);
+    private static final long LINKED_TREE_MAP = align(HEADER + 7 * REFERENCE + 2 * 4);
+    private static final long LINKED_TREE_MAP_NODE = align(HEADER + 7 * REFERENCE + 4);
+    private static final long COMPACT_LINKED_MAP = align(HEADER + 4 * REFERENCE + 2 * 4);
+    private static final long BIG_INTEGER = align(HEADER + REFERENCE + 5 * 4);
+    private static final long BIG_DECIMAL = align(HEADER + 2 * REFERENCE + 2 * 4 + 8);
+
+    private long containers;
+    private long tables;
+    private long entries;
+    private long strings;
+    private long numbers;
+    private long other;
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static long referenceArray(long length) {
+        return align(ARRAY_HEADER + length * REFERENCE);
+    }
+
+    /**
+     * Adds an object with {@code references} reference fields and nothing
+     * else, such as a {@code JSONObject} or a {@code JsonPrimitive}.
+     */
+    public void addContainer(int references) {
+        containers += align(HEADER + references * REFERENCE);
+    }
+
+    /**
+     * Adds a {@link HashMap} of {@code size} entries filled from its default
+     * capacity, without its keys and values.
+     */
+    public void addHashMap(int size) {
+        containers += HASH_MAP;
+        if (size == 0) {
+            return; // the table is allocated by the first put
+        }
+        long capacity = 16;
+        while (size > capacity * 3 / 4) {
+            capacity <<= 1;
+        }
+        tables += referenceArray(capacity);
+        entries += size * HASH_MAP_NODE;
+    }
+
+    /**
+     * Adds an {@link ArrayList} of {@code size} elements filled from its
+     * default capacity, without its elements.
+     */
+    public void addArrayList(int size) {
+        long capacity = 0; // empty lists share an empty array
+        if (size > 0) {
+            capacity = 10;
+            while (capacity < size) {
+                capacity += capacity >> 1;
+            }
+        }
+        addArrayListOfCapacity((int) Math.min(capacity, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Adds an {@link ArrayList} whose array has {@code capacity} slots, such
+     * as one that was trimmed to its size, without its elements.
+     */
+    public void addArrayListOfCapacity(int capacity) {
+        containers += ARRAY_LIST;
+        if (capacity > 0) {
+            tables += referenceArray(capacity);
+        }
+    }
+
+    /**
+     * Adds {@code map} without its keys and values. Maps other than the ones
+     * used by JSON trees are estimated as hash maps.
+     */
+    public void addMap(Map<?, ?> map) {
+        if (map instanceof CompactLinkedMap) {
+            CompactLinkedMap<?, ?> compact = (CompactLinkedMap<?, ?>) map;
+            containers += COMPACT_LINKED_MAP;
+            if (compact.large() != null) {
+                addLinkedTreeMap(compact.large().size());
+            } else if (compact.tableLength() > 0) {
+                tables += referenceArray(compact.tableLength());
+            }
+        } else if (map instanceof LinkedTreeMap) {
+            addLinkedTreeMap(map.size());
+        } else {
+            addHashMap(map.size());
+        }
+    }
+
+    private void addLinkedTreeMap(int size) {
+        containers += LINKED_TREE_MAP + LINKED_TREE_MAP_NODE; // with its header node
+        entries += size * LINKED_TREE_MAP_NODE;
+    }
+
+    /**
+     * Adds a string.
+     */
+    public void addString(String string) {
+        int length = string.length();
+        long bytesPerChar = 2;
+        if (COMPACT_STRINGS) {
+            bytesPerChar = 1;
+            for (int i = 0; i < length; i++) {
+                if (string.charAt(i) > 0xff) {
+                    bytesPerChar = 2;
+                    break;
+                }
+            }
+        }
+        strings += STRING + align(ARRAY_HEADER + length * bytesPerChar);
+    }
+
+    /**
+     * Adds a number, including the digits of a lazily parsed one.
+     */
+    public void addNumber(Number number) {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short) {
+            long value = number.longValue();
+            if (value < -128 || value > 127) {
+                numbers += number instanceof Long ? align(HEADER + 8) : align(HEADER + 4);
+            }
+        } else if (number instanceof Double) {
+            numbers += align(HEADER + 8);
+        } else if (number instanceof Float) {
+            numbers += align(HEADER + 4);
+        } else if (number instanceof Byte) {
+            // every byte is cached
+        } else if (number instanceof BigInteger) {
+            addBigInteger((BigInteger) number);
+        } else if (number instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) number;
+            numbers += BIG_DECIMAL;
+            if (decimal.precision() > 18) { // too large for the compact long
+                addBigInteger(decimal.unscaledValue());
+            }
+        } else if (number instanceof LazilyParsedNumber) {
+            numbers += align(HEADER + REFERENCE);
+            addString(number.toString());
+        } else {
+            numbers += align(HEADER + 8);
+        }
+    }
+
+    private void addBigInteger(BigInteger integer) {
+        numbers += BIG_INTEGER + align(ARRAY_HEADER + ((integer.bitLength() + 31) >>> 5) * 4L);
+    }
+
+    /**
+     * Adds a leaf value: a string, a number, a boolean or a character, or the
+     * shallow size of anything else. Null is not counted.
+     */
+    public void addValue(Object value) {
+        if (value == null || value instanceof Boolean) {
+            // Boolean.valueOf shares two instances
+        } else if (value instanceof String) {
+            addString((String) value);
+        } else if (value instanceof Number) {
+            addNumber((Number) value);
+        } else if (value instanceof Character) {
+            if ((Character) value > 127) {
+                other += align(HEADER + 2);
+            }
+        } else {
+            other += align(HEADER + REFERENCE);
+        }
+    }
+
+    public RetainedSize toRetainedSize() {
+        return new RetainedSize(containers, tables, entries, strings, numbers, other);
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.magiclen.gson.JsonLayout;
+import org.magiclen.gson.JsonSyntaxException;
+
+/**
+ * Splits a JSON text that holds many values into chunks of whole values, so
+ * that the chunks can be bound independently. Depending on its
+ * {@link JsonLayout}, the text is either a single top-level array, split
+ * between its elements, or a sequence of top-level values such as
+ * newline-delimited JSON, split at line breaks. The scan only
+ * tracks nesting and strings; the values themselves are validated when the
+ * chunks are read.
+ *
+ * <p>
+ * The text is read from a stream through a window that holds about one chunk,
+ * and each chunk is copied out of it as soon as it is complete, so the length
+ * of the text is not limited by memory or by the size of an array. Every chunk
+ * is opened as a {@link Reader}. The chunks of an array are presented as
+ * arrays of their own, so they can be read with
+ * {@code beginArray}/{@code endArray}; the chunks of a value sequence are a
+ * sequence of values again.
+ */
+public abstract class JsonSplitter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final boolean array;
+    private final int chunkLength;
+
+    private boolean begun;
+    private boolean closed;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+
+    /**
+     * The offset in the text of the start of the window.
+     */
+    private long windowOffset;
+    private int start;
+    private int position;
+    private int limit;
+
+    JsonSplitter(JsonLayout layout, int chunkLength) {
+        this.array = layout == JsonLayout.ARRAY;
+        this.chunkLength = chunkLength;
+    }
+
+    /**
+     * Splits the chars read from {@code json} into chunks of at least
+     * {@code chunkLength} chars, or shorter at the end of the text.
+     */
+    public static JsonSplitter of(Reader json, JsonLayout layout, int chunkLength) {
+        return new CharSplitter(json, layout, chunkLength);
+    }
+
+    /**
+     * Splits the UTF-8 encoded bytes read from {@code json} into chunks of at
+     * least {@code chunkLength} bytes, or shorter at the end of the text.
+     * Structural characters are ASCII and never occur inside multi-byte UTF-8
+     * sequences, so the bytes are scanned without decoding them.
+     */
+    public static JsonSplitter of(InputStream json, JsonLayout layout, int chunkLength) {
+        return new ByteSplitter(json, layout, chunkLength);
+    }
+
+    abstract int capacity();
+
+    abstract void grow(int capacity);
+
+    abstract void move(int from, int length);
+
+    abstract int read(int offset, int length) throws IOException;
+
+    abstract int at(int index);
+
+    abstract boolean isByteOrderMark(int c, long offset);
+
+    abstract Reader copy(int start, int end);
+
+    /**
+     * Reads the next chunk.
+     *
+     * @return the chunk, or null at the end of the text.
+     * @throws JsonSyntaxException if the layout is {@link JsonLayout#ARRAY}
+     * and the text does not start with an array, the array is not terminated
+     * or it is followed by more content.
+     */
+    public final Reader next() throws IOException {
+        if (!begun) {
+            begin();
+        }
+        if (closed) {
+            skipTrailingWhitespace();
+            return null;
+        }
+        while (true) {
+            if (position == limit && !fill()) {
+                if (array) {
+                    throw new JsonSyntaxException("Unterminated top-level array");
+                }
+                closed = true;
+                return start < limit ? chunk(start, limit, limit) : null;
+            }
+            int c = at(position++);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    inString = true;
+                    break;
+                case '[':
+                case '{':
+                    depth++;
+                    break;
+                case ']':
+                case '}':
+                    if (--depth == 0 && array) {
+                        closed = true;
+                        return chunk(start, position - 1, position);
+                    }
+                    break;
+                case ',':
+                    if (array && depth == 1 && position - start > chunkLength) {
+                        return chunk(start, position - 1, position);
+                    }
+                    break;
+                case '\n':
+                    if (!array && depth == 0 && position - start > chunkLength) {
+                        return chunk(start, position, position);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private Reader chunk(int start, int end, int next) {
+        Reader reader = copy(start, end);
+        this.start = next;
+        return array ? new BracketedReader(reader) : reader;
+    }
+
+    /**
+     * Skips the leading whitespace, and the opening bracket of an array.
+     */
+    private void begin() throws IOException {
+        begun = true;
+        while (position < limit || fill()) {
+            int c = at(position);
+            if (!isWhitespace(c) && !isByteOrderMark(c, windowOffset + position)) {
+                break;
+            }
+            position++;
+        }
+        if (array) {
+            if (position == limit || at(position) != '[') {
+                throw new JsonSyntaxException("Expected a top-level array at offset "
+                        + (windowOffset + position));
+            }
+            depth = 1;
+            position++;
+        }
+        start = position;
+    }
+
+    private void skipTrailingWhitespace() throws IOException {
+        while (position < limit || fill()) {
+            if (!isWhitespace(at(position))) {
+                throw new JsonSyntaxException("Unexpected content after the top-level array at offset "
+                        + (windowOffset + position));
+            }
+            position++;
+        }
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    /**
+     * Reads more of the text into the window, first dropping the part in front
+     * of the current chunk and growing the window if the chunk fills it.
+     */
+    private boolean fill() throws IOException {
+        if (start > 0) {
+            move(start, limit - start);
+            windowOffset += start;
+            position -= start;
+            limit -= start;
+            start = 0;
+        }
+        if (limit == capacity()) {
+            grow(capacity() * 2);
+        }
+        int count = read(limit, capacity() - limit);
+        if (count <= 0) {
+            return false;
+        }
+        limit += count;
+        return true;
+    }
+
+    private static final class CharSplitter extends JsonSplitter {
+
+        private final Reader in;
+        private char[] buffer;
+
+        CharSplitter(Reader in, JsonLayout layout, int chunkLength) {
+            super(layout, chunkLength);
+            this.in = in;
+            this.buffer = new char[Math.max(8192, chunkLength * 2)];
+        }
+
+        @Override
+        int capacity() {
+            return buffer.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            buffer = Arrays.copyOf(buffer, capacity);
+        }
+
+        @Override
+        void move(int from, int length) {
+            System.arraycopy(buffer, from, buffer, 0, length);
+        }
+
+        @Override
+        int read(int offset, int length) throws IOException {
+            return in.read(buffer, offset, length);
+        }
+
+        @Override
+        int at(int index) {
+            return buffer[index];
+        }
+
+        @Override
+        boolean isByteOrderMark(int c, long offset) {
+            return c == '\ufeff';
+        }
+
+        @Override
+        Reader copy(int start, int end) {
+            return new CharArrayReader(Arrays.copyOfRange(buffer, start, end));
+        }
+    }
+
+    private static final class ByteSplitter extends JsonSplitter {
+
+        private final InputStream in;
+        private byte[] buffer;
+
+        ByteSplitter(InputStream in, JsonLayout layout, int chunkLength) {
+            super(layout, chunkLength);
+            this.in = in;
+            this.buffer = new byte[Math.max(8192, chunkLength * 2)];
+        }
+
+        @Override
+        int capacity() {
+            return buffer.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            buffer = Arrays.copyOf(buffer, capacity);
+        }
+
+        @Override
+        void move(int from, int length) {
+            System.arraycopy(buffer, from, buffer, 0, length);
+        }
+
+        @Override
+        int read(int offset, int length) throws IOException {
+            return in.read(buffer, offset, length);
+        }
+
+        @Override
+        int at(int index) {
+            return buffer[index] & 0xff;
+        }
+
+        @Override
+        boolean isByteOrderMark(int c, long offset) {
+            return offset < 3 && c == (offset == 0 ? 0xef : offset == 1 ? 0xbb : 0xbf);
+        }
+
+        @Override
+        Reader copy(int start, int end) {
+            return new InputStreamReader(new ByteArrayInputStream(Arrays.copyOfRange(buffer, start, end)), UTF_8);
+        }
+    }
+
+    /**
+     * Presents a chunk of array elements as an array.
+     */
+    private static final class BracketedReader extends Reader {
+
+        private final Reader in;
+        private int state; // 0: before '[', 1: inside, 2: before ']', 3: done
+
+        BracketedReader(Reader in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (state == 0) {
+                buffer[offset] = '[';
+                state = 1;
+                return 1;
+            }
+            if (state == 1) {
+                int count = in.read(buffer, offset, length);
+                if (count >= 0) {
+                    return count;
+                }
+                state = 2;
+            }
+            if (state == 2) {
+                buffer[offset] = ']';
+                state = 3;
+                return 1;
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 encoded file by memory-mapping it, decoding the mapped bytes
+ * straight into the caller's buffer. Unlike a {@code FileReader}, the bytes are
+ * never copied into a heap buffer first, and the file is shared with the page
+ * cache rather than duplicated in it.
+ *
+ * <p>
+ * Files of any size are mapped in windows of at most {@link #WINDOW_SIZE}
+ * bytes, one at a time, so that large files do not exhaust the address space.
+ * A window is unmapped when it is garbage collected. A leading byte order mark
+ * is skipped, and malformed input is replaced like {@code InputStreamReader}
+ * does.
+ *
+ * <p>
+ * Marks are not supported. A {@code JsonReader} reads whole buffers and gets
+ * the decoded chars directly. A {@code JSONTokener} reads a char at a time
+ * and needs marks, so it wraps this reader in a {@code BufferedReader}; the
+ * bytes are then decoded into the buffer of that reader, which is still the
+ * only copy.
+ */
+public final class MappedFileReader extends Reader {
+
+    /**
+     * The largest number of bytes mapped at once.
+     */
+    static final int WINDOW_SIZE = 256 * 1024 * 1024;
+    /**
+     * The longest UTF-8 sequence. A window is remapped before fewer bytes
+     * remain, so no sequence is split between two windows.
+     */
+    private static final int MAX_SEQUENCE_LENGTH = 4;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder = Charset.forName("UTF-8").newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final char[] pair = new char[2];
+    private ByteBuffer window;
+    private long windowStart;
+    /**
+     * The low surrogate of a pair that did not fit into a single-char read, or
+     * 0.
+     */
+    private char pending;
+    private boolean flushed;
+
+    public MappedFileReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            map(0);
+            if (window.remaining() >= 3 && (window.get(0) & 0xff) == 0xef
+                    && (window.get(1) & 0xff) == 0xbb && (window.get(2) & 0xff) == 0xbf) {
+                window.position(3);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (window == null) {
+            throw new IOException("Reader closed");
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (pending != 0) {
+            buffer[offset] = pending;
+            pending = 0;
+            return 1;
+        }
+        if (length == 1) {
+            // a supplementary character needs room for both of its chars
+            int count = decode(pair, 0, 2);
+            if (count == 2) {
+                pending = pair[1];
+            }
+            if (count > 0) {
+                buffer[offset] = pair[0];
+                return 1;
+            }
+            return count;
+        }
+        return decode(buffer, offset, length);
+    }
+
+    private int decode(char[] buffer, int offset, int length) throws IOException {
+        if (flushed) {
+            return -1;
+        }
+        CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+        while (out.position() == offset) {
+            boolean last = windowStart + window.limit() == size;
+            if (!last && window.remaining() < MAX_SEQUENCE_LENGTH) {
+                map(windowStart + window.position());
+                continue;
+            }
+            decoder.decode(window, out, last);
+            if (last && !window.hasRemaining() && out.position() == offset) {
+                decoder.flush(out);
+                flushed = true;
+                if (out.position() == offset) {
+                    return -1;
+                }
+            }
+        }
+        return out.position() - offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
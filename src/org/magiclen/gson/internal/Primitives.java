@@ -67,6 +67,19 @@ public final class Primitives {
         backward.put(value, key);
     }
 
+    /**
+     * Returns the primitive type named {@code name}, such as {@code int}, or
+     * null if there is none.
+     */
+    public static Class<?> forName(String name) {
+        for (Class<?> primitive : PRIMITIVE_TO_WRAPPER_TYPE.keySet()) {
+            if (primitive.getName().equals(name)) {
+                return primitive;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns true if this type is a primitive.
      */
@@ -20,6 +20,7 @@ import org.magiclen.gson.JsonIOException;
 import org.magiclen.gson.JsonNull;
 import org.magiclen.gson.JsonParseException;
 import org.magiclen.gson.JsonSyntaxException;
+import org.magiclen.gson.TypeAdapter;
 import org.magiclen.gson.internal.bind.TypeAdapters;
 import org.magiclen.gson.stream.JsonReader;
 import org.magiclen.gson.stream.JsonWriter;
@@ -41,11 +42,20 @@ public final class Streams {
      * Takes a reader in any state and returns the next value as a JsonElement.
      */
     public static JsonElement parse(JsonReader reader) throws JsonParseException {
+        return parse(reader, TypeAdapters.JSON_ELEMENT);
+    }
+
+    /**
+     * Takes a reader in any state and returns the next value as a JsonElement
+     * read by {@code adapter}.
+     */
+    public static JsonElement parse(JsonReader reader, TypeAdapter<JsonElement> adapter)
+            throws JsonParseException {
         boolean isEmpty = true;
         try {
             reader.peek();
             isEmpty = false;
-            return TypeAdapters.JSON_ELEMENT.read(reader);
+            return adapter.read(reader);
         } catch (EOFException e) {
             /*
        * For compatibility with JSON 1.5 and earlier, we return a JsonNull for
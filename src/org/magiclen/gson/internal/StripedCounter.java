@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that many threads can update without contending on a single
+ * memory location. Each thread adds to one of several cells, each on its own
+ * cache line; reads sum all cells and are therefore only weakly consistent.
+ */
+public final class StripedCounter {
+
+    private static final int STRIPES;
+    /**
+     * Cells are spaced this many longs apart so that they do not share a
+     * cache line.
+     */
+    private static final int PADDING = 8;
+
+    static {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() * 2) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void add(long x) {
+        cells.getAndAdd(index(), x);
+    }
+
+    public long sum() {
+        long sum = 0L;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i * PADDING, 0L);
+        }
+    }
+
+    private static int index() {
+        return stripe(STRIPES) * PADDING;
+    }
+
+    /**
+     * Returns the stripe of the current thread out of {@code stripes}, which
+     * must be a power of two, so that other striped structures spread the
+     * threads the same way.
+     */
+    public static int stripe(int stripes) {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32));
+        h ^= (h >>> 16);
+        return h & (stripes - 1);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+}
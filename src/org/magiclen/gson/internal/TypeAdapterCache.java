@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.magiclen.gson.TypeAdapter;
+import org.magiclen.gson.reflect.TypeToken;
+
+/**
+ * The cache of type adapters held by a {@link org.magiclen.gson.Gson}.
+ *
+ * <p>
+ * By default the cache is unbounded and holds its entries strongly. It can be
+ * given a maximum size, in which case entries are evicted with a CLOCK
+ * (second chance) approximation of LRU. It can also hold weakly the adapters of
+ * types that involve classes from class loaders other than Gson's own loader
+ * and its ancestors: those are stored with {@link ClassValue} on such a class,
+ * so they do not keep the class loader of a redeployed application alive.
+ * Weakly held entries do not count towards the maximum size and are not
+ * returned by {@link #types()}.
+ */
+public final class TypeAdapterCache {
+
+    private final int maximumSize;
+    private final ConcurrentMap<TypeToken<?>, Entry> entries = new ConcurrentHashMap<TypeToken<?>, Entry>();
+    private final ConcurrentLinkedQueue<TypeToken<?>> clock;
+    private final ClassValue<ConcurrentMap<TypeToken<?>, TypeAdapter<?>>> weakEntries;
+
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
+
+    /**
+     * @param maximumSize the maximum number of strongly held entries, or 0 for
+     * no limit.
+     * @param weakClassKeys whether to hold adapters weakly for types that
+     * involve classes from foreign class loaders.
+     */
+    public TypeAdapterCache(int maximumSize, boolean weakClassKeys) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize < 0: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.clock = maximumSize > 0 ? new ConcurrentLinkedQueue<TypeToken<?>>() : null;
+        if (weakClassKeys) {
+            weakEntries = new ClassValue<ConcurrentMap<TypeToken<?>, TypeAdapter<?>>>() {
+                @Override
+                protected ConcurrentMap<TypeToken<?>, TypeAdapter<?>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<TypeToken<?>, TypeAdapter<?>>();
+                }
+            };
+        } else {
+            weakEntries = null;
+        }
+    }
+
+    /**
+     * Returns the cached adapter for {@code type}, or null.
+     */
+    public TypeAdapter<?> get(TypeToken<?> type) {
+        Entry entry = entries.get(type);
+        if (entry != null) {
+            if (clock != null && !entry.referenced) {
+                entry.referenced = true;
+            }
+            hits.increment();
+            return entry.adapter;
+        }
+        if (weakEntries != null) {
+            Class<?> anchor = ClassLoaders.foreignClass(type.getType());
+            if (anchor != null) {
+                TypeAdapter<?> adapter = weakEntries.get(anchor).get(type);
+                if (adapter != null) {
+                    hits.increment();
+                    return adapter;
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(TypeToken<?> type, TypeAdapter<?> adapter) {
+        if (weakEntries != null) {
+            Class<?> anchor = ClassLoaders.foreignClass(type.getType());
+            if (anchor != null) {
+                weakEntries.get(anchor).put(type, adapter);
+                return;
+            }
+        }
+        Entry previous = entries.put(type, new Entry(adapter));
+        if (clock != null && previous == null) {
+            clock.offer(type);
+            while (entries.size() > maximumSize && evictOne()) {
+                // keep evicting
+            }
+        }
+    }
+
+    /**
+     * Evicts the first entry in clock order that has not been referenced
+     * since the hand last passed it.
+     */
+    private boolean evictOne() {
+        TypeToken<?> type;
+        while ((type = clock.poll()) != null) {
+            Entry entry = entries.get(type);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                clock.offer(type);
+            } else if (entries.remove(type, entry)) {
+                evictions.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the types of the strongly held entries.
+     */
+    public Set<TypeToken<?>> types() {
+        return entries.keySet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private static final class Entry {
+
+        final TypeAdapter<?> adapter;
+        volatile boolean referenced;
+
+        Entry(TypeAdapter<?> adapter) {
+            this.adapter = adapter;
+        }
+    }
+}
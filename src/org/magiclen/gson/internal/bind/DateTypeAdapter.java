@@ -20,6 +20,7 @@ import org.magiclen.gson.JsonSyntaxException;
 import org.magiclen.gson.TypeAdapter;
 import org.magiclen.gson.TypeAdapterFactory;
 import org.magiclen.gson.internal.bind.util.ISO8601Utils;
+import org.magiclen.gson.internal.bind.util.ThreadLocalDateFormat;
 import org.magiclen.gson.reflect.TypeToken;
 import org.magiclen.gson.stream.JsonReader;
 import org.magiclen.gson.stream.JsonToken;
@@ -34,8 +35,8 @@ import java.util.Locale;
 /**
  * Adapter for Date. Although this class appears stateless, it is not.
  * DateFormat captures its time zone and locale when it is created, which gives
- * this class state. DateFormat isn't thread safe either, so this class has to
- * synchronize its read and write methods.
+ * this class state. DateFormat isn't thread safe either, so each thread works
+ * on its own copy of the formats.
  */
 public final class DateTypeAdapter extends TypeAdapter<Date> {
 
@@ -47,10 +48,10 @@ public final class DateTypeAdapter extends TypeAdapter<Date> {
         }
     };
 
-    private final DateFormat enUsFormat
-            = DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US);
-    private final DateFormat localFormat
-            = DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT);
+    private final ThreadLocalDateFormat enUsFormat = new ThreadLocalDateFormat(
+            DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT, Locale.US));
+    private final ThreadLocalDateFormat localFormat = new ThreadLocalDateFormat(
+            DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT));
 
     @Override
     public Date read(JsonReader in) throws IOException {
@@ -61,14 +62,14 @@ public final class DateTypeAdapter extends TypeAdapter<Date> {
         return deserializeToDate(in.nextString());
     }
 
-    private synchronized Date deserializeToDate(String json) {
-        try {
-            return localFormat.parse(json);
-        } catch (ParseException ignored) {
+    private Date deserializeToDate(String json) {
+        Date date = localFormat.parse(json);
+        if (date != null) {
+            return date;
         }
-        try {
-            return enUsFormat.parse(json);
-        } catch (ParseException ignored) {
+        date = enUsFormat.parse(json);
+        if (date != null) {
+            return date;
         }
         try {
             return ISO8601Utils.parse(json, new ParsePosition(0));
@@ -78,7 +79,7 @@ public final class DateTypeAdapter extends TypeAdapter<Date> {
     }
 
     @Override
-    public synchronized void write(JsonWriter out, Date value) throws IOException {
+    public void write(JsonWriter out, Date value) throws IOException {
         if (value == null) {
             out.nullValue();
             return;
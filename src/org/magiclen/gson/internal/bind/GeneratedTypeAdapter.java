@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal.bind;
+
+import org.magiclen.gson.Gson;
+import org.magiclen.gson.JsonSyntaxException;
+import org.magiclen.gson.TypeAdapter;
+import org.magiclen.gson.reflect.TypeToken;
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonToken;
+import org.magiclen.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Base class of the type adapters generated at compile time by
+ * {@link org.magiclen.gson.processor.TypeAdapterProcessor}. A generated
+ * adapter reads and writes the same JSON as
+ * {@link ReflectiveTypeAdapterFactory.Adapter} would for its class, but
+ * accesses fields and the constructor directly.
+ */
+public abstract class GeneratedTypeAdapter<T> extends TypeAdapter<T> {
+
+    private final Gson context;
+    private final JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory;
+
+    protected GeneratedTypeAdapter(Gson context, JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory) {
+        this.context = context;
+        this.jsonAdapterFactory = jsonAdapterFactory;
+    }
+
+    /**
+     * Returns true if a field with the given type and annotation values is
+     * bound in the given direction.
+     *
+     * @see org.magiclen.gson.internal.Excluder#excludeField(Class, double,
+     * double, boolean, boolean, boolean, boolean)
+     */
+    protected final boolean includeField(Class<?> fieldType, double since, double until,
+            boolean exposed, boolean exposeSerialize, boolean exposeDeserialize, boolean serialize) {
+        return !context.excluder().excludeField(fieldType, since, until,
+                exposed, exposeSerialize, exposeDeserialize, serialize);
+    }
+
+    protected final <F> TypeAdapter<F> fieldAdapter(TypeToken<F> fieldType) {
+        return context.getAdapter(fieldType);
+    }
+
+    /**
+     * Returns the adapter named by a {@link org.magiclen.gson.annotations.JsonAdapter}
+     * annotation on a field.
+     */
+    @SuppressWarnings("unchecked")
+    protected final <F> TypeAdapter<F> fieldAdapter(TypeToken<F> fieldType, Class<?> jsonAdapter, boolean nullSafe) {
+        return (TypeAdapter<F>) jsonAdapterFactory.getTypeAdapter(context, fieldType, jsonAdapter, nullSafe);
+    }
+
+    /**
+     * Wraps {@code delegate} so that values are written with the adapter of
+     * their runtime type, if that is more specific than the field's type.
+     */
+    protected final <F> TypeAdapter<F> runtimeTypeAdapter(TypeAdapter<F> delegate, TypeToken<F> fieldType) {
+        return new TypeAdapterRuntimeTypeWrapper<F>(context, delegate, fieldType.getType());
+    }
+
+    /**
+     * Returns a new instance using the class's no-args constructor.
+     */
+    protected abstract T newInstance();
+
+    /**
+     * Reads the value of the property {@code name} into {@code instance}.
+     *
+     * @return false if the property is not bound and its value must be skipped.
+     */
+    protected abstract boolean readField(JsonReader in, String name, T instance) throws IOException;
+
+    /**
+     * Writes the names and values of all bound fields of {@code instance}.
+     */
+    protected abstract void writeFields(JsonWriter out, T instance) throws IOException;
+
+    @Override
+    public final T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        T instance = newInstance();
+
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!readField(in, in.nextName(), instance)) {
+                    in.skipValue();
+                }
+            }
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+        in.endObject();
+        return instance;
+    }
+
+    @Override
+    public final void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        writeFields(out, value);
+        out.endObject();
+    }
+}
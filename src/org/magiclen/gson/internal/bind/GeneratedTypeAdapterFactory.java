@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal.bind;
+
+import org.magiclen.gson.FieldNamingPolicy;
+import org.magiclen.gson.Gson;
+import org.magiclen.gson.TypeAdapter;
+import org.magiclen.gson.TypeAdapterFactory;
+import org.magiclen.gson.annotations.GenerateTypeAdapter;
+import org.magiclen.gson.reflect.TypeToken;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Finds the adapters generated at compile time for classes annotated with
+ * {@link GenerateTypeAdapter}. The generated adapter of a class is named after
+ * its binary name followed by {@link #ADAPTER_SUFFIX}. Returns null, so the
+ * class is bound by reflection, if the adapter was not generated or cannot
+ * honour this Gson's configuration.
+ */
+public final class GeneratedTypeAdapterFactory implements TypeAdapterFactory {
+
+    public static final String ADAPTER_SUFFIX = "_GsonTypeAdapter";
+
+    private final JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory;
+
+    public GeneratedTypeAdapterFactory(JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory) {
+        this.jsonAdapterFactory = jsonAdapterFactory;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (type.getType() != raw || !raw.isAnnotationPresent(GenerateTypeAdapter.class)) {
+            return null;
+        }
+        if (gson.fieldNamingStrategy() != FieldNamingPolicy.IDENTITY
+                || !gson.excluder().supportsFieldDescriptors()) {
+            return null;
+        }
+
+        Class<?> adapterClass;
+        try {
+            adapterClass = Class.forName(raw.getName() + ADAPTER_SUFFIX, true, raw.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+
+        try {
+            return (TypeAdapter<T>) adapterClass
+                    .getConstructor(Gson.class, JsonAdapterAnnotationTypeAdapterFactory.class)
+                    .newInstance(gson, jsonAdapterFactory);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getTargetException();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Failed to invoke " + adapterClass.getName(), cause);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to invoke " + adapterClass.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal.bind;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.magiclen.gson.TypeAdapter;
+import org.magiclen.gson.internal.StripedCounter;
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonWriter;
+
+/**
+ * Counts and times the reads and writes of another type adapter. Every call
+ * is counted; only one in {@link Recorder#getSampleInterval()} calls is timed,
+ * since reading the clock costs more than the counters.
+ */
+public final class InstrumentedTypeAdapter<T> extends TypeAdapter<T> {
+
+    private final TypeAdapter<T> delegate;
+    private final Recorder recorder;
+
+    public InstrumentedTypeAdapter(TypeAdapter<T> delegate, Recorder recorder) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    /**
+     * Returns the adapter of {@code adapter} if it is instrumented, or
+     * {@code adapter} itself.
+     */
+    public static TypeAdapter<?> unwrap(TypeAdapter<?> adapter) {
+        return adapter instanceof InstrumentedTypeAdapter
+                ? ((InstrumentedTypeAdapter<?>) adapter).delegate
+                : adapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        recorder.writes.increment();
+        if (!recorder.sample()) {
+            delegate.write(out, value);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            delegate.write(out, value);
+        } finally {
+            recorder.writeLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        recorder.reads.increment();
+        if (!recorder.sample()) {
+            return delegate.read(in);
+        }
+        long start = System.nanoTime();
+        try {
+            return delegate.read(in);
+        } finally {
+            recorder.readLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The counters of one type. They are kept apart from the adapters, which
+     * may be evicted from the cache and created again.
+     */
+    public static final class Recorder {
+
+        private final int sampleInterval;
+        final StripedCounter reads = new StripedCounter();
+        final StripedCounter writes = new StripedCounter();
+        private final StripedCounter charsRead = new StripedCounter();
+        private final StripedCounter charsWritten = new StripedCounter();
+        final Histogram readLatency = new Histogram();
+        final Histogram writeLatency = new Histogram();
+
+        public Recorder(int sampleInterval) {
+            this.sampleInterval = sampleInterval;
+        }
+
+        boolean sample() {
+            return sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0;
+        }
+
+        public int getSampleInterval() {
+            return sampleInterval;
+        }
+
+        public void addCharsRead(long chars) {
+            charsRead.add(chars);
+        }
+
+        public void addCharsWritten(long chars) {
+            charsWritten.add(chars);
+        }
+
+        public long getReadCount() {
+            return reads.sum();
+        }
+
+        public long getWriteCount() {
+            return writes.sum();
+        }
+
+        public long getCharsRead() {
+            return charsRead.sum();
+        }
+
+        public long getCharsWritten() {
+            return charsWritten.sum();
+        }
+
+        public Histogram getReadLatency() {
+            return readLatency;
+        }
+
+        public Histogram getWriteLatency() {
+            return writeLatency;
+        }
+
+        public void reset() {
+            reads.reset();
+            writes.reset();
+            charsRead.reset();
+            charsWritten.reset();
+            readLatency.reset();
+            writeLatency.reset();
+        }
+    }
+
+    /**
+     * A histogram of durations in nanoseconds with power-of-two buckets:
+     * bucket {@code i} counts the durations of {@code i} significant bits,
+     * that is, from {@code 2^(i-1)} up to {@code 2^i - 1}.
+     *
+     * <p>
+     * Like {@link StripedCounter}, each thread counts into one of several
+     * stripes of buckets, and the stripes are padded apart so that threads
+     * recording at once do not write to the same cache line. A stripe takes
+     * 576 bytes, so there are at most 16 of them; reads sum all stripes.
+     */
+    public static final class Histogram {
+
+        public static final int BUCKETS = 64;
+
+        private static final int STRIPES;
+        /**
+         * Stripes are spaced this many longs further apart than their buckets
+         * need, so that the last bucket of a stripe and the first bucket of
+         * the next one do not share a cache line.
+         */
+        private static final int PADDING = 8;
+        private static final int STRIDE = BUCKETS + PADDING;
+
+        static {
+            int stripes = 1;
+            while (stripes < Math.min(16, Runtime.getRuntime().availableProcessors())) {
+                stripes <<= 1;
+            }
+            STRIPES = stripes;
+        }
+
+        private final AtomicLongArray buckets = new AtomicLongArray(STRIPES * STRIDE);
+        private final StripedCounter totalNanos = new StripedCounter();
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0; // the clock is not monotonic on every platform
+            }
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+            buckets.incrementAndGet(StripedCounter.stripe(STRIPES) * STRIDE + bucket);
+            totalNanos.add(nanos);
+        }
+
+        public long[] getBuckets() {
+            long[] counts = new long[BUCKETS];
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts[i] += buckets.get(stripe * STRIDE + i);
+                }
+            }
+            return counts;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public void reset() {
+            for (int i = 0; i < STRIPES * STRIDE; i++) {
+                buckets.set(i, 0L);
+            }
+            totalNanos.reset();
+        }
+    }
+}
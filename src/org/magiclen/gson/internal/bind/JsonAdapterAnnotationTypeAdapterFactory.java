@@ -49,10 +49,23 @@ public final class JsonAdapterAnnotationTypeAdapterFactory implements TypeAdapte
         return (TypeAdapter<T>) getTypeAdapter(constructorConstructor, gson, targetType, annotation);
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"}) // Casts guarded by conditionals.
     TypeAdapter<?> getTypeAdapter(ConstructorConstructor constructorConstructor, Gson gson,
             TypeToken<?> type, JsonAdapter annotation) {
-        Object instance = constructorConstructor.get(TypeToken.get(annotation.value())).construct();
+        return getTypeAdapter(constructorConstructor, gson, type, annotation.value(), annotation.nullSafe());
+    }
+
+    /**
+     * Returns the type adapter for {@code type} described by the values of a
+     * {@link JsonAdapter} annotation.
+     */
+    public TypeAdapter<?> getTypeAdapter(Gson gson, TypeToken<?> type, Class<?> value, boolean nullSafe) {
+        return getTypeAdapter(constructorConstructor, gson, type, value, nullSafe);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Casts guarded by conditionals.
+    private TypeAdapter<?> getTypeAdapter(ConstructorConstructor constructorConstructor, Gson gson,
+            TypeToken<?> type, Class<?> value, boolean nullSafe) {
+        Object instance = constructorConstructor.get(TypeToken.get(value)).construct();
 
         TypeAdapter<?> typeAdapter;
         if (instance instanceof TypeAdapter) {
@@ -74,7 +87,7 @@ public final class JsonAdapterAnnotationTypeAdapterFactory implements TypeAdapte
                     + " JsonSerializer or JsonDeserializer.");
         }
 
-        if (typeAdapter != null && annotation.nullSafe()) {
+        if (typeAdapter != null && nullSafe) {
             typeAdapter = typeAdapter.nullSafe();
         }
 
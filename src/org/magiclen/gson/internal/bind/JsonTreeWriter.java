@@ -21,6 +21,7 @@ import org.magiclen.gson.JsonNull;
 import org.magiclen.gson.JsonObject;
 import org.magiclen.gson.JsonPrimitive;
 import org.magiclen.gson.stream.JsonWriter;
+import org.magiclen.gson.stream.PreEncodedName;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
@@ -162,6 +163,11 @@ public final class JsonTreeWriter extends JsonWriter {
         throw new IllegalStateException();
     }
 
+    @Override
+    public JsonWriter name(PreEncodedName name) throws IOException {
+        return name(name.getName());
+    }
+
     @Override
     public JsonWriter value(String value) throws IOException {
         if (value == null) {
@@ -201,6 +207,15 @@ public final class JsonTreeWriter extends JsonWriter {
         return this;
     }
 
+    @Override
+    public JsonWriter value(float value) throws IOException {
+        if (!isLenient() && (Float.isNaN(value) || Float.isInfinite(value))) {
+            throw new IllegalArgumentException("JSON forbids NaN and infinities: " + value);
+        }
+        put(new JsonPrimitive(value));
+        return this;
+    }
+
     @Override
     public JsonWriter value(long value) throws IOException {
         put(new JsonPrimitive(value));
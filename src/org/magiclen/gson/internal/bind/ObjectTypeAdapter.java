@@ -18,6 +18,7 @@ package org.magiclen.gson.internal.bind;
 import org.magiclen.gson.Gson;
 import org.magiclen.gson.TypeAdapter;
 import org.magiclen.gson.TypeAdapterFactory;
+import org.magiclen.gson.internal.CompactLinkedMap;
 import org.magiclen.gson.internal.LinkedTreeMap;
 import org.magiclen.gson.reflect.TypeToken;
 import org.magiclen.gson.stream.JsonReader;
@@ -26,7 +27,6 @@ import org.magiclen.gson.stream.JsonWriter;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -35,21 +35,33 @@ import java.util.Map;
  */
 public final class ObjectTypeAdapter extends TypeAdapter<Object> {
 
-    public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
-        @SuppressWarnings("unchecked")
-        @Override
-        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
-            if (type.getRawType() == Object.class) {
-                return (TypeAdapter<T>) new ObjectTypeAdapter(gson);
+    public static final TypeAdapterFactory FACTORY = newFactory(false);
+
+    /**
+     * Reads JSON objects into {@link CompactLinkedMap}s and trims lists to
+     * their size.
+     */
+    public static final TypeAdapterFactory COMPACT_FACTORY = newFactory(true);
+
+    private static TypeAdapterFactory newFactory(final boolean compact) {
+        return new TypeAdapterFactory() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                if (type.getRawType() == Object.class) {
+                    return (TypeAdapter<T>) new ObjectTypeAdapter(gson, compact);
+                }
+                return null;
             }
-            return null;
-        }
-    };
+        };
+    }
 
     private final Gson gson;
+    private final boolean compact;
 
-    ObjectTypeAdapter(Gson gson) {
+    ObjectTypeAdapter(Gson gson, boolean compact) {
         this.gson = gson;
+        this.compact = compact;
     }
 
     @Override
@@ -57,15 +69,28 @@ public final class ObjectTypeAdapter extends TypeAdapter<Object> {
         JsonToken token = in.peek();
         switch (token) {
             case BEGIN_ARRAY:
-                List<Object> list = new ArrayList<Object>();
+                ArrayList<Object> list = new ArrayList<Object>();
                 in.beginArray();
                 while (in.hasNext()) {
                     list.add(read(in));
                 }
                 in.endArray();
+                if (compact) {
+                    list.trimToSize();
+                }
                 return list;
 
             case BEGIN_OBJECT:
+                if (compact) {
+                    CompactLinkedMap<String, Object> map = new CompactLinkedMap<String, Object>();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        map.put(in.nextName(), read(in));
+                    }
+                    in.endObject();
+                    map.trimToSize();
+                    return map;
+                }
                 Map<String, Object> map = new LinkedTreeMap<String, Object>();
                 in.beginObject();
                 while (in.hasNext()) {
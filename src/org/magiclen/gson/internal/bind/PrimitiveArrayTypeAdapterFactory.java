@@ -0,0 +1,379 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal.bind;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.magiclen.gson.Gson;
+import org.magiclen.gson.JsonSyntaxException;
+import org.magiclen.gson.TypeAdapter;
+import org.magiclen.gson.TypeAdapterFactory;
+import org.magiclen.gson.reflect.TypeToken;
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonToken;
+import org.magiclen.gson.stream.JsonWriter;
+
+/**
+ * Adapts {@code int[]}, {@code long[]}, {@code double[]}, {@code float[]},
+ * {@code short[]} and {@code boolean[]} without boxing their elements. An
+ * array type is only handled here when its component type still uses Gson's
+ * built-in adapter; otherwise {@link ArrayTypeAdapter} applies the registered
+ * one.
+ */
+public final class PrimitiveArrayTypeAdapterFactory implements TypeAdapterFactory {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final TypeAdapter<Number> doubleAdapter;
+    private final TypeAdapter<Number> floatAdapter;
+    private final boolean serializeSpecialFloatingPointValues;
+
+    /**
+     * @param doubleAdapter the built-in adapter for {@code double}.
+     * @param floatAdapter the built-in adapter for {@code float}.
+     * @param serializeSpecialFloatingPointValues whether NaN and infinities
+     * may be written.
+     */
+    public PrimitiveArrayTypeAdapterFactory(TypeAdapter<Number> doubleAdapter,
+            TypeAdapter<Number> floatAdapter, boolean serializeSpecialFloatingPointValues) {
+        this.doubleAdapter = doubleAdapter;
+        this.floatAdapter = floatAdapter;
+        this.serializeSpecialFloatingPointValues = serializeSpecialFloatingPointValues;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+        Class<? super T> rawType = typeToken.getRawType();
+        if (!rawType.isArray()) {
+            return null;
+        }
+        Class<?> componentType = rawType.getComponentType();
+        if (!componentType.isPrimitive()) {
+            return null;
+        }
+        TypeAdapter<?> componentTypeAdapter = gson.getAdapter(componentType);
+        TypeAdapter<?> adapter = null;
+        if (componentType == int.class) {
+            if (componentTypeAdapter == TypeAdapters.INTEGER) {
+                adapter = INT_ARRAY;
+            }
+        } else if (componentType == long.class) {
+            // The string serialization policy installs a different adapter.
+            if (componentTypeAdapter == TypeAdapters.LONG) {
+                adapter = LONG_ARRAY;
+            }
+        } else if (componentType == double.class) {
+            if (componentTypeAdapter == doubleAdapter) {
+                adapter = serializeSpecialFloatingPointValues ? DOUBLE_ARRAY : CHECKED_DOUBLE_ARRAY;
+            }
+        } else if (componentType == float.class) {
+            if (componentTypeAdapter == floatAdapter) {
+                adapter = serializeSpecialFloatingPointValues ? FLOAT_ARRAY : CHECKED_FLOAT_ARRAY;
+            }
+        } else if (componentType == short.class) {
+            if (componentTypeAdapter == TypeAdapters.SHORT) {
+                adapter = SHORT_ARRAY;
+            }
+        } else if (componentType == boolean.class) {
+            if (componentTypeAdapter == TypeAdapters.BOOLEAN) {
+                adapter = BOOLEAN_ARRAY;
+            }
+        }
+        return (TypeAdapter<T>) adapter;
+    }
+
+    private static int grow(int length) {
+        int newLength = length << 1;
+        if (newLength < 0) {
+            throw new OutOfMemoryError("Array too large: " + length);
+        }
+        return newLength;
+    }
+
+    private static boolean beginRead(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        in.beginArray();
+        return true;
+    }
+
+    static void checkValidFloatingPoint(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(value
+                    + " is not a valid double value as per JSON specification. To override this"
+                    + " behavior, use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+        }
+    }
+
+    private static final TypeAdapter<int[]> INT_ARRAY = new TypeAdapter<int[]>() {
+        @Override
+        public int[] read(JsonReader in) throws IOException {
+            if (!beginRead(in)) {
+                return null;
+            }
+            int[] buffer = new int[INITIAL_CAPACITY];
+            int size = 0;
+            try {
+                while (in.hasNext()) {
+                    if (size == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, grow(size));
+                    }
+                    buffer[size++] = in.nextInt();
+                }
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+            in.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+        }
+
+        @Override
+        public void write(JsonWriter out, int[] array) throws IOException {
+            if (array == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int value : array) {
+                out.value(value);
+            }
+            out.endArray();
+        }
+    };
+
+    private static final TypeAdapter<long[]> LONG_ARRAY = new TypeAdapter<long[]>() {
+        @Override
+        public long[] read(JsonReader in) throws IOException {
+            if (!beginRead(in)) {
+                return null;
+            }
+            long[] buffer = new long[INITIAL_CAPACITY];
+            int size = 0;
+            try {
+                while (in.hasNext()) {
+                    if (size == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, grow(size));
+                    }
+                    buffer[size++] = in.nextLong();
+                }
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+            in.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+        }
+
+        @Override
+        public void write(JsonWriter out, long[] array) throws IOException {
+            if (array == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (long value : array) {
+                out.value(value);
+            }
+            out.endArray();
+        }
+    };
+
+    private static double[] readDoubles(JsonReader in) throws IOException {
+        if (!beginRead(in)) {
+            return null;
+        }
+        double[] buffer = new double[INITIAL_CAPACITY];
+        int size = 0;
+        while (in.hasNext()) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, grow(size));
+            }
+            buffer[size++] = in.nextDouble();
+        }
+        in.endArray();
+        return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+    }
+
+    private static void writeDoubles(JsonWriter out, double[] array, boolean check) throws IOException {
+        if (array == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (double value : array) {
+            if (check) {
+                checkValidFloatingPoint(value);
+            }
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static final TypeAdapter<double[]> DOUBLE_ARRAY = new TypeAdapter<double[]>() {
+        @Override
+        public double[] read(JsonReader in) throws IOException {
+            return readDoubles(in);
+        }
+
+        @Override
+        public void write(JsonWriter out, double[] array) throws IOException {
+            writeDoubles(out, array, false);
+        }
+    };
+
+    private static final TypeAdapter<double[]> CHECKED_DOUBLE_ARRAY = new TypeAdapter<double[]>() {
+        @Override
+        public double[] read(JsonReader in) throws IOException {
+            return readDoubles(in);
+        }
+
+        @Override
+        public void write(JsonWriter out, double[] array) throws IOException {
+            writeDoubles(out, array, true);
+        }
+    };
+
+    private static float[] readFloats(JsonReader in) throws IOException {
+        if (!beginRead(in)) {
+            return null;
+        }
+        float[] buffer = new float[INITIAL_CAPACITY];
+        int size = 0;
+        while (in.hasNext()) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, grow(size));
+            }
+            buffer[size++] = (float) in.nextDouble();
+        }
+        in.endArray();
+        return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+    }
+
+    private static void writeFloats(JsonWriter out, float[] array, boolean check) throws IOException {
+        if (array == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (float value : array) {
+            if (check) {
+                checkValidFloatingPoint(value);
+            }
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static final TypeAdapter<float[]> FLOAT_ARRAY = new TypeAdapter<float[]>() {
+        @Override
+        public float[] read(JsonReader in) throws IOException {
+            return readFloats(in);
+        }
+
+        @Override
+        public void write(JsonWriter out, float[] array) throws IOException {
+            writeFloats(out, array, false);
+        }
+    };
+
+    private static final TypeAdapter<float[]> CHECKED_FLOAT_ARRAY = new TypeAdapter<float[]>() {
+        @Override
+        public float[] read(JsonReader in) throws IOException {
+            return readFloats(in);
+        }
+
+        @Override
+        public void write(JsonWriter out, float[] array) throws IOException {
+            writeFloats(out, array, true);
+        }
+    };
+
+    private static final TypeAdapter<short[]> SHORT_ARRAY = new TypeAdapter<short[]>() {
+        @Override
+        public short[] read(JsonReader in) throws IOException {
+            if (!beginRead(in)) {
+                return null;
+            }
+            short[] buffer = new short[INITIAL_CAPACITY];
+            int size = 0;
+            try {
+                while (in.hasNext()) {
+                    if (size == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, grow(size));
+                    }
+                    buffer[size++] = (short) in.nextInt();
+                }
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+            in.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+        }
+
+        @Override
+        public void write(JsonWriter out, short[] array) throws IOException {
+            if (array == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (short value : array) {
+                out.value(value);
+            }
+            out.endArray();
+        }
+    };
+
+    private static final TypeAdapter<boolean[]> BOOLEAN_ARRAY = new TypeAdapter<boolean[]>() {
+        @Override
+        public boolean[] read(JsonReader in) throws IOException {
+            if (!beginRead(in)) {
+                return null;
+            }
+            boolean[] buffer = new boolean[INITIAL_CAPACITY];
+            int size = 0;
+            while (in.hasNext()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, grow(size));
+                }
+                if (in.peek() == JsonToken.STRING) {
+                    // support strings for compatibility with GSON 1.7
+                    buffer[size++] = Boolean.parseBoolean(in.nextString());
+                } else {
+                    buffer[size++] = in.nextBoolean();
+                }
+            }
+            in.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+        }
+
+        @Override
+        public void write(JsonWriter out, boolean[] array) throws IOException {
+            if (array == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (boolean value : array) {
+                out.value(value);
+            }
+            out.endArray();
+        }
+    };
+}
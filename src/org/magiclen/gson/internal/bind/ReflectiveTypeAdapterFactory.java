@@ -15,6 +15,7 @@
  */
 package org.magiclen.gson.internal.bind;
 
+import org.magiclen.gson.FieldAccessPolicy;
 import org.magiclen.gson.FieldNamingStrategy;
 import org.magiclen.gson.Gson;
 import org.magiclen.gson.JsonSyntaxException;
@@ -25,12 +26,14 @@ import org.magiclen.gson.annotations.SerializedName;
 import org.magiclen.gson.internal.$Gson$Types;
 import org.magiclen.gson.internal.ConstructorConstructor;
 import org.magiclen.gson.internal.Excluder;
+import org.magiclen.gson.internal.FieldAccessor;
 import org.magiclen.gson.internal.ObjectConstructor;
 import org.magiclen.gson.internal.Primitives;
 import org.magiclen.gson.reflect.TypeToken;
 import org.magiclen.gson.stream.JsonReader;
 import org.magiclen.gson.stream.JsonToken;
 import org.magiclen.gson.stream.JsonWriter;
+import org.magiclen.gson.stream.PreEncodedName;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
@@ -49,14 +52,42 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
     private final FieldNamingStrategy fieldNamingPolicy;
     private final Excluder excluder;
     private final JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory;
+    private final FieldAccessPolicy accessPolicy;
+    private final TypeAdapter<Number> doubleAdapter;
+    private final boolean serializeSpecialFloatingPointValues;
 
     public ReflectiveTypeAdapterFactory(ConstructorConstructor constructorConstructor,
             FieldNamingStrategy fieldNamingPolicy, Excluder excluder,
             JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory) {
+        this(constructorConstructor, fieldNamingPolicy, excluder, jsonAdapterFactory,
+                FieldAccessPolicy.REFLECTION);
+    }
+
+    public ReflectiveTypeAdapterFactory(ConstructorConstructor constructorConstructor,
+            FieldNamingStrategy fieldNamingPolicy, Excluder excluder,
+            JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory,
+            FieldAccessPolicy accessPolicy) {
+        this(constructorConstructor, fieldNamingPolicy, excluder, jsonAdapterFactory, accessPolicy,
+                TypeAdapters.DOUBLE, true);
+    }
+
+    /**
+     * @param doubleAdapter the built-in adapter for {@code double}.
+     * @param serializeSpecialFloatingPointValues whether {@code doubleAdapter}
+     * writes NaN and infinities.
+     */
+    public ReflectiveTypeAdapterFactory(ConstructorConstructor constructorConstructor,
+            FieldNamingStrategy fieldNamingPolicy, Excluder excluder,
+            JsonAdapterAnnotationTypeAdapterFactory jsonAdapterFactory,
+            FieldAccessPolicy accessPolicy, TypeAdapter<Number> doubleAdapter,
+            boolean serializeSpecialFloatingPointValues) {
         this.constructorConstructor = constructorConstructor;
         this.fieldNamingPolicy = fieldNamingPolicy;
         this.excluder = excluder;
         this.jsonAdapterFactory = jsonAdapterFactory;
+        this.accessPolicy = accessPolicy;
+        this.doubleAdapter = doubleAdapter;
+        this.serializeSpecialFloatingPointValues = serializeSpecialFloatingPointValues;
     }
 
     public boolean excludeField(Field f, boolean serialize) {
@@ -119,16 +150,27 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
             mapped = context.getAdapter(fieldType);
         }
 
+        final FieldAccessor accessor = FieldAccessor.create(field, accessPolicy);
+        if (!jsonAdapterPresent) {
+            BoundField primitiveField = createPrimitiveBoundField(
+                    accessor, name, fieldType.getRawType(), mapped, serialize, deserialize);
+            if (primitiveField != null) {
+                return primitiveField;
+            }
+        }
+
         final TypeAdapter<?> typeAdapter = mapped;
+        // created once per field, so that the wrapper's cache of runtime types survives between writes
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final TypeAdapter writeAdapter = jsonAdapterPresent ? typeAdapter
+                : new TypeAdapterRuntimeTypeWrapper(context, typeAdapter, fieldType.getType());
         return new ReflectiveTypeAdapterFactory.BoundField(name, serialize, deserialize) {
-            @SuppressWarnings({"unchecked", "rawtypes"}) // the type adapter and field type always agree
+            @SuppressWarnings("unchecked") // the type adapter and field type always agree
             @Override
             void write(JsonWriter writer, Object value)
                     throws IOException, IllegalAccessException {
-                Object fieldValue = field.get(value);
-                TypeAdapter t = jsonAdapterPresent ? typeAdapter
-                        : new TypeAdapterRuntimeTypeWrapper(context, typeAdapter, fieldType.getType());
-                t.write(writer, fieldValue);
+                Object fieldValue = accessor.get(value);
+                writeAdapter.write(writer, fieldValue);
             }
 
             @Override
@@ -136,7 +178,7 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
                     throws IOException, IllegalAccessException {
                 Object fieldValue = typeAdapter.read(reader);
                 if (fieldValue != null || !isPrimitive) {
-                    field.set(value, fieldValue);
+                    accessor.set(value, fieldValue);
                 }
             }
 
@@ -145,12 +187,101 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
                 if (!serialized) {
                     return false;
                 }
-                Object fieldValue = field.get(value);
+                Object fieldValue = accessor.get(value);
                 return fieldValue != value; // avoid recursion for example for Throwable.cause
             }
         };
     }
 
+    /**
+     * Returns a bound field that moves {@code int}, {@code long},
+     * {@code double} and {@code boolean} values between the stream and the
+     * object without boxing, or null if {@code typeAdapter} is not the
+     * built-in adapter for the field's type. The JSON read and written, and
+     * the elements of a tree, are the same as with the built-in adapters.
+     */
+    private BoundField createPrimitiveBoundField(final FieldAccessor accessor,
+            String name, Class<?> rawType, TypeAdapter<?> typeAdapter,
+            boolean serialize, boolean deserialize) {
+        if (rawType == int.class && typeAdapter == TypeAdapters.INTEGER) {
+            return new PrimitiveBoundField(name, serialize, deserialize) {
+                @Override
+                void write(JsonWriter writer, Object value) throws IOException, IllegalAccessException {
+                    int intValue = accessor.getInt(value);
+                    if (writer.getClass() == JsonWriter.class) {
+                        writer.value((long) intValue);
+                    } else {
+                        // the built-in adapter writes an Integer, which a JsonTreeWriter keeps
+                        writer.value(Integer.valueOf(intValue));
+                    }
+                }
+
+                @Override
+                void readPrimitive(JsonReader reader, Object value) throws IOException, IllegalAccessException {
+                    try {
+                        accessor.setInt(value, reader.nextInt());
+                    } catch (NumberFormatException e) {
+                        throw new JsonSyntaxException(e);
+                    }
+                }
+            };
+        }
+        if (rawType == long.class && typeAdapter == TypeAdapters.LONG) {
+            return new PrimitiveBoundField(name, serialize, deserialize) {
+                @Override
+                void write(JsonWriter writer, Object value) throws IOException, IllegalAccessException {
+                    writer.value(accessor.getLong(value));
+                }
+
+                @Override
+                void readPrimitive(JsonReader reader, Object value) throws IOException, IllegalAccessException {
+                    try {
+                        accessor.setLong(value, reader.nextLong());
+                    } catch (NumberFormatException e) {
+                        throw new JsonSyntaxException(e);
+                    }
+                }
+            };
+        }
+        if (rawType == double.class && typeAdapter == doubleAdapter) {
+            final boolean check = !serializeSpecialFloatingPointValues;
+            return new PrimitiveBoundField(name, serialize, deserialize) {
+                @Override
+                void write(JsonWriter writer, Object value) throws IOException, IllegalAccessException {
+                    double doubleValue = accessor.getDouble(value);
+                    if (check) {
+                        PrimitiveArrayTypeAdapterFactory.checkValidFloatingPoint(doubleValue);
+                    }
+                    writer.value(doubleValue);
+                }
+
+                @Override
+                void readPrimitive(JsonReader reader, Object value) throws IOException, IllegalAccessException {
+                    accessor.setDouble(value, reader.nextDouble());
+                }
+            };
+        }
+        if (rawType == boolean.class && typeAdapter == TypeAdapters.BOOLEAN) {
+            return new PrimitiveBoundField(name, serialize, deserialize) {
+                @Override
+                void write(JsonWriter writer, Object value) throws IOException, IllegalAccessException {
+                    writer.value(accessor.getBoolean(value));
+                }
+
+                @Override
+                void readPrimitive(JsonReader reader, Object value) throws IOException, IllegalAccessException {
+                    if (reader.peek() == JsonToken.STRING) {
+                        // support strings for compatibility with GSON 1.7
+                        accessor.setBoolean(value, Boolean.parseBoolean(reader.nextString()));
+                    } else {
+                        accessor.setBoolean(value, reader.nextBoolean());
+                    }
+                }
+            };
+        }
+        return null;
+    }
+
     private Map<String, BoundField> getBoundFields(Gson context, TypeToken<?> type, Class<?> raw) {
         Map<String, BoundField> result = new LinkedHashMap<String, BoundField>();
         if (raw.isInterface()) {
@@ -196,11 +327,13 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
     static abstract class BoundField {
 
         final String name;
+        final PreEncodedName encodedName;
         final boolean serialized;
         final boolean deserialized;
 
         protected BoundField(String name, boolean serialized, boolean deserialized) {
             this.name = name;
+            this.encodedName = serialized ? new PreEncodedName(name) : null;
             this.serialized = serialized;
             this.deserialized = deserialized;
         }
@@ -212,6 +345,33 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
         abstract void read(JsonReader reader, Object value) throws IOException, IllegalAccessException;
     }
 
+    /**
+     * A field of primitive type. A JSON null leaves the field untouched, and
+     * the value can never be the object itself.
+     */
+    static abstract class PrimitiveBoundField extends BoundField {
+
+        PrimitiveBoundField(String name, boolean serialized, boolean deserialized) {
+            super(name, serialized, deserialized);
+        }
+
+        @Override
+        final boolean writeField(Object value) {
+            return serialized;
+        }
+
+        @Override
+        final void read(JsonReader reader, Object value) throws IOException, IllegalAccessException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else {
+                readPrimitive(reader, value);
+            }
+        }
+
+        abstract void readPrimitive(JsonReader reader, Object value) throws IOException, IllegalAccessException;
+    }
+
     public static final class Adapter<T> extends TypeAdapter<T> {
 
         private final ObjectConstructor<T> constructor;
@@ -262,7 +422,7 @@ public final class ReflectiveTypeAdapterFactory implements TypeAdapterFactory {
             try {
                 for (BoundField boundField : boundFields.values()) {
                     if (boundField.writeField(value)) {
-                        out.name(boundField.name);
+                        out.name(boundField.encodedName);
                         boundField.write(out, value);
                     }
                 }
@@ -0,0 +1,432 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal.bind;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.magiclen.gson.JsonParseException;
+import org.magiclen.gson.internal.JsonReaderInternalAccess;
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonToken;
+import org.magiclen.gson.stream.MalformedJsonException;
+
+/**
+ * A reader positioned at the start of an object whose leading members have
+ * already been read from another reader. It first replays those members from
+ * a buffer of tokens, then continues with the other reader, so that a type
+ * adapter can read the whole object as if nothing had been consumed.
+ *
+ * <p>
+ * This is used to look ahead for a field, such as a type discriminator,
+ * without building a tree: {@link #lookahead} buffers the members in front of
+ * the field, which is usually none or a few, and consumes the field itself.
+ */
+public final class ReplayingJsonReader extends JsonReader {
+
+    private static final Reader UNREADABLE_READER = new Reader() {
+        @Override
+        public int read(char[] buffer, int offset, int count) throws IOException {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() throws IOException {
+            throw new AssertionError();
+        }
+    };
+
+    private final JsonReader in;
+    private JsonToken[] tokens = new JsonToken[8];
+    private String[] values = new String[8];
+    private int count;
+    private int position;
+    private String lookaheadName;
+    private int limit = Integer.MAX_VALUE;
+
+    /**
+     * The path of the replayed tokens: the path of the object, followed by the
+     * scopes opened while replaying, like the stack of a JsonReader. An index
+     * of -1 marks an object scope, whose path is its current name instead.
+     */
+    private String pathPrefix;
+    private int pathSize;
+    private String[] pathNames = new String[8];
+    private int[] pathIndices = new int[8];
+
+    public ReplayingJsonReader(JsonReader in) {
+        super(UNREADABLE_READER);
+        this.in = in;
+        setLenient(in.isLenient());
+    }
+
+    /**
+     * Reads the beginning of an object from the underlying reader up to and
+     * including the member named {@code name}, buffering the members in front
+     * of it.
+     *
+     * @param limit the most tokens to buffer.
+     * @return the value of the member as a string, or null if the object has
+     * no such member, in which case all of its members are buffered.
+     * @throws JsonParseException if the member is not a string or number, or
+     * if more than {@code limit} tokens precede it. The limit is checked as
+     * each token is buffered, so a large member in front of the field is not
+     * read further than the limit.
+     */
+    public String lookahead(String name, int limit) throws IOException {
+        this.lookaheadName = name;
+        this.limit = limit;
+        pathPrefix = in.getPath();
+        in.beginObject();
+        add(JsonToken.BEGIN_OBJECT, null);
+        while (in.hasNext()) {
+            String memberName = in.nextName();
+            if (memberName.equals(name)) {
+                JsonToken token = in.peek();
+                if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+                    throw new JsonParseException("Expected the field " + name + " to be a string but was "
+                            + token + " at path " + in.getPath());
+                }
+                return in.nextString();
+            }
+            add(JsonToken.NAME, memberName);
+            int depth = 0;
+            do {
+                JsonToken token = in.peek();
+                switch (token) {
+                    case BEGIN_ARRAY:
+                        in.beginArray();
+                        add(token, null);
+                        depth++;
+                        break;
+                    case END_ARRAY:
+                        in.endArray();
+                        add(token, null);
+                        depth--;
+                        break;
+                    case BEGIN_OBJECT:
+                        in.beginObject();
+                        add(token, null);
+                        depth++;
+                        break;
+                    case END_OBJECT:
+                        in.endObject();
+                        add(token, null);
+                        depth--;
+                        break;
+                    case NAME:
+                        add(token, in.nextName());
+                        break;
+                    case STRING:
+                    case NUMBER:
+                        add(token, in.nextString());
+                        break;
+                    case BOOLEAN:
+                        add(token, in.nextBoolean() ? "true" : "false");
+                        break;
+                    case NULL:
+                        in.nextNull();
+                        add(token, null);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected " + token + " at path " + in.getPath());
+                }
+            } while (depth > 0);
+        }
+        return null;
+    }
+
+    private void add(JsonToken token, String value) {
+        if (count == limit) {
+            throw new JsonParseException("The field " + lookaheadName + " was not found within the first "
+                    + limit + " tokens of the object at path " + in.getPath());
+        }
+        if (count == tokens.length) {
+            tokens = Arrays.copyOf(tokens, count << 1);
+            values = Arrays.copyOf(values, count << 1);
+        }
+        tokens[count] = token;
+        values[count++] = value;
+    }
+
+    private boolean replaying() {
+        return position < count;
+    }
+
+    /**
+     * Consumes the next buffered token and follows it in the path.
+     */
+    private String advance() {
+        JsonToken token = tokens[position];
+        String value = values[position++];
+        switch (token) {
+            case BEGIN_ARRAY:
+            case BEGIN_OBJECT:
+                if (pathSize == pathIndices.length) {
+                    pathNames = Arrays.copyOf(pathNames, pathSize << 1);
+                    pathIndices = Arrays.copyOf(pathIndices, pathSize << 1);
+                }
+                pathNames[pathSize] = null;
+                pathIndices[pathSize++] = token == JsonToken.BEGIN_ARRAY ? 0 : -1;
+                break;
+            case NAME:
+                pathNames[pathSize - 1] = value;
+                break;
+            case END_ARRAY:
+            case END_OBJECT:
+                pathSize--;
+                nextIndex(); // the array or object was a value of its parent
+                break;
+            default:
+                nextIndex();
+                break;
+        }
+        return value;
+    }
+
+    private void nextIndex() {
+        if (pathSize > 0 && pathIndices[pathSize - 1] >= 0) {
+            pathIndices[pathSize - 1]++;
+        }
+    }
+
+    private String expect(JsonToken expected) throws IOException {
+        JsonToken token = tokens[position];
+        if (token != expected) {
+            throw new IllegalStateException("Expected " + expected + " but was " + token + " at path " + getPath());
+        }
+        return advance();
+    }
+
+    private String nextNumberText(String kind) throws IOException {
+        JsonToken token = tokens[position];
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            throw new IllegalStateException("Expected " + kind + " but was " + token + " at path " + getPath());
+        }
+        return values[position];
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        if (replaying()) {
+            expect(JsonToken.BEGIN_ARRAY);
+        } else {
+            in.beginArray();
+        }
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        if (replaying()) {
+            expect(JsonToken.END_ARRAY);
+        } else {
+            in.endArray();
+        }
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        if (replaying()) {
+            expect(JsonToken.BEGIN_OBJECT);
+        } else {
+            in.beginObject();
+        }
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        if (replaying()) {
+            expect(JsonToken.END_OBJECT);
+        } else {
+            in.endObject();
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (replaying()) {
+            JsonToken token = tokens[position];
+            return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY;
+        }
+        return in.hasNext();
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        return replaying() ? tokens[position] : in.peek();
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        return replaying() ? expect(JsonToken.NAME) : in.nextName();
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        if (replaying()) {
+            nextNumberText(JsonToken.STRING.toString());
+            return advance();
+        }
+        return in.nextString();
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        return replaying() ? "true".equals(expect(JsonToken.BOOLEAN)) : in.nextBoolean();
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        if (replaying()) {
+            expect(JsonToken.NULL);
+        } else {
+            in.nextNull();
+        }
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        if (!replaying()) {
+            return in.nextDouble();
+        }
+        double result = Double.parseDouble(nextNumberText("a double"));
+        if (!isLenient() && (Double.isNaN(result) || Double.isInfinite(result))) {
+            throw new MalformedJsonException("JSON forbids NaN and infinities: " + result + " at path " + getPath());
+        }
+        advance();
+        return result;
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        if (!replaying()) {
+            return in.nextLong();
+        }
+        String text = nextNumberText("a long");
+        long result;
+        try {
+            result = Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            double asDouble = Double.parseDouble(text);
+            result = (long) asDouble;
+            if (result != asDouble) {
+                throw new NumberFormatException("Expected a long but was " + text + " at path " + getPath());
+            }
+        }
+        advance();
+        return result;
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        if (!replaying()) {
+            return in.nextInt();
+        }
+        String text = nextNumberText("an int");
+        int result;
+        try {
+            result = Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            double asDouble = Double.parseDouble(text);
+            result = (int) asDouble;
+            if (result != asDouble) {
+                throw new NumberFormatException("Expected an int but was " + text + " at path " + getPath());
+            }
+        }
+        advance();
+        return result;
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        if (!replaying()) {
+            in.skipValue();
+            return;
+        }
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                default:
+                    if (replaying()) {
+                        advance();
+                    } else {
+                        in.skipValue();
+                    }
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    public void promoteNameToValue() throws IOException {
+        if (!replaying()) {
+            JsonReaderInternalAccess.INSTANCE.promoteNameToValue(in);
+            return;
+        }
+        expect(JsonToken.NAME);
+        tokens[--position] = JsonToken.STRING;
+    }
+
+    @Override
+    public void close() throws IOException {
+        position = count;
+        in.close();
+    }
+
+    /**
+     * Returns the path of the next buffered token while replaying, and the
+     * path of the underlying reader once the buffer is drained.
+     */
+    @Override
+    public String getPath() {
+        if (!replaying()) {
+            return in.getPath();
+        }
+        StringBuilder result = new StringBuilder(pathPrefix);
+        for (int i = 0; i < pathSize; i++) {
+            if (pathIndices[i] < 0) {
+                result.append('.');
+                if (pathNames[i] != null) {
+                    result.append(pathNames[i]);
+                }
+            } else {
+                result.append('[').append(pathIndices[i]).append(']');
+            }
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " over " + in;
+    }
+}
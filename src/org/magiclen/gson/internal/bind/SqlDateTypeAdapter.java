@@ -19,6 +19,7 @@ import org.magiclen.gson.Gson;
 import org.magiclen.gson.JsonSyntaxException;
 import org.magiclen.gson.TypeAdapter;
 import org.magiclen.gson.TypeAdapterFactory;
+import org.magiclen.gson.internal.bind.util.ThreadLocalDateFormat;
 import org.magiclen.gson.reflect.TypeToken;
 import org.magiclen.gson.stream.JsonReader;
 import org.magiclen.gson.stream.JsonToken;
@@ -31,8 +32,8 @@ import java.text.SimpleDateFormat;
 /**
  * Adapter for java.sql.Date. Although this class appears stateless, it is not.
  * DateFormat captures its time zone and locale when it is created, which gives
- * this class state. DateFormat isn't thread safe either, so this class has to
- * synchronize its read and write methods.
+ * this class state. DateFormat isn't thread safe either, so each thread works
+ * on its own copy of the format.
  */
 public final class SqlDateTypeAdapter extends TypeAdapter<java.sql.Date> {
 
@@ -45,16 +46,16 @@ public final class SqlDateTypeAdapter extends TypeAdapter<java.sql.Date> {
         }
     };
 
-    private final DateFormat format = new SimpleDateFormat("MMM d, yyyy");
+    private final ThreadLocalDateFormat format = new ThreadLocalDateFormat(new SimpleDateFormat("MMM d, yyyy"));
 
     @Override
-    public synchronized java.sql.Date read(JsonReader in) throws IOException {
+    public java.sql.Date read(JsonReader in) throws IOException {
         if (in.peek() == JsonToken.NULL) {
             in.nextNull();
             return null;
         }
         try {
-            final long utilDate = format.parse(in.nextString()).getTime();
+            final long utilDate = format.get().parse(in.nextString()).getTime();
             return new java.sql.Date(utilDate);
         } catch (ParseException e) {
             throw new JsonSyntaxException(e);
@@ -62,7 +63,7 @@ public final class SqlDateTypeAdapter extends TypeAdapter<java.sql.Date> {
     }
 
     @Override
-    public synchronized void write(JsonWriter out, java.sql.Date value) throws IOException {
+    public void write(JsonWriter out, java.sql.Date value) throws IOException {
         out.value(value == null ? null : format.format(value));
     }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal.bind;
+
+import org.magiclen.gson.Gson;
+import org.magiclen.gson.JsonStreamingContext;
+import org.magiclen.gson.JsonStreamingDeserializer;
+import org.magiclen.gson.JsonStreamingSerializer;
+import org.magiclen.gson.TypeAdapter;
+import org.magiclen.gson.TypeAdapterFactory;
+import org.magiclen.gson.internal.$Gson$Preconditions;
+import org.magiclen.gson.reflect.TypeToken;
+import org.magiclen.gson.stream.JsonReader;
+import org.magiclen.gson.stream.JsonToken;
+import org.magiclen.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Adapts a streaming serializer and deserializer pair as a TypeAdapter. Like
+ * {@link TreeTypeAdapter}, either side may be missing, in which case a
+ * delegate type adapter is looked up on demand; unlike it, no tree is built.
+ */
+public final class StreamingTypeAdapter<T> extends TypeAdapter<T> {
+
+    private final JsonStreamingSerializer<T> serializer;
+    private final JsonStreamingDeserializer<T> deserializer;
+    final Gson gson;
+    private final TypeToken<T> typeToken;
+    private final TypeAdapterFactory skipPast;
+    private final GsonContextImpl context = new GsonContextImpl();
+
+    /**
+     * The delegate is lazily created because it may not be needed, and creating
+     * it may fail.
+     */
+    private TypeAdapter<T> delegate;
+
+    public StreamingTypeAdapter(JsonStreamingSerializer<T> serializer, JsonStreamingDeserializer<T> deserializer,
+            Gson gson, TypeToken<T> typeToken, TypeAdapterFactory skipPast) {
+        this.serializer = serializer;
+        this.deserializer = deserializer;
+        this.gson = gson;
+        this.typeToken = typeToken;
+        this.skipPast = skipPast;
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        if (deserializer == null) {
+            return delegate().read(in);
+        }
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return deserializer.deserialize(in, typeToken.getType(), context);
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        if (serializer == null) {
+            delegate().write(out, value);
+            return;
+        }
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        serializer.serialize(value, typeToken.getType(), out, context);
+    }
+
+    private TypeAdapter<T> delegate() {
+        TypeAdapter<T> d = delegate;
+        return d != null
+                ? d
+                : (delegate = gson.getDelegateAdapter(skipPast, typeToken));
+    }
+
+    /**
+     * Returns whether {@code typeAdapter} implements either of the streaming
+     * callback interfaces.
+     */
+    public static boolean isStreaming(Object typeAdapter) {
+        return typeAdapter instanceof JsonStreamingSerializer<?>
+                || typeAdapter instanceof JsonStreamingDeserializer<?>;
+    }
+
+    /**
+     * Returns a new factory that will match each type and its raw type against
+     * {@code exactType}.
+     */
+    public static TypeAdapterFactory newFactoryWithMatchRawType(
+            TypeToken<?> exactType, Object typeAdapter) {
+        // only bother matching raw types if exact type is a raw type
+        boolean matchRawType = exactType.getType() == exactType.getRawType();
+        return new SingleTypeFactory(typeAdapter, exactType, matchRawType, null);
+    }
+
+    /**
+     * Returns a new factory that will match each type's raw type for
+     * assignability to {@code hierarchyType}.
+     */
+    public static TypeAdapterFactory newTypeHierarchyFactory(
+            Class<?> hierarchyType, Object typeAdapter) {
+        return new SingleTypeFactory(typeAdapter, null, false, hierarchyType);
+    }
+
+    private static final class SingleTypeFactory implements TypeAdapterFactory {
+
+        private final TypeToken<?> exactType;
+        private final boolean matchRawType;
+        private final Class<?> hierarchyType;
+        private final JsonStreamingSerializer<?> serializer;
+        private final JsonStreamingDeserializer<?> deserializer;
+
+        SingleTypeFactory(Object typeAdapter, TypeToken<?> exactType, boolean matchRawType,
+                Class<?> hierarchyType) {
+            serializer = typeAdapter instanceof JsonStreamingSerializer
+                    ? (JsonStreamingSerializer<?>) typeAdapter
+                    : null;
+            deserializer = typeAdapter instanceof JsonStreamingDeserializer
+                    ? (JsonStreamingDeserializer<?>) typeAdapter
+                    : null;
+            $Gson$Preconditions.checkArgument(serializer != null || deserializer != null);
+            this.exactType = exactType;
+            this.matchRawType = matchRawType;
+            this.hierarchyType = hierarchyType;
+        }
+
+        @SuppressWarnings("unchecked") // guarded by typeToken.equals() call
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            boolean matches = exactType != null
+                    ? exactType.equals(type) || matchRawType && exactType.getType() == type.getRawType()
+                    : hierarchyType.isAssignableFrom(type.getRawType());
+            return matches
+                    ? new StreamingTypeAdapter<T>((JsonStreamingSerializer<T>) serializer,
+                            (JsonStreamingDeserializer<T>) deserializer, gson, type, this)
+                    : null;
+        }
+    }
+
+    private final class GsonContextImpl implements JsonStreamingContext {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R read(JsonReader in, Type typeOfT) throws IOException {
+            return (R) gson.getAdapter(TypeToken.get(typeOfT)).read(in);
+        }
+
+        @Override
+        public void write(JsonWriter out, Object src) throws IOException {
+            if (src == null) {
+                out.nullValue();
+                return;
+            }
+            write(out, src, src.getClass());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void write(JsonWriter out, Object src, Type typeOfSrc) throws IOException {
+            ((TypeAdapter<Object>) gson.getAdapter(TypeToken.get(typeOfSrc))).write(out, src);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.magiclen.gson.Gson;
 import org.magiclen.gson.JsonSyntaxException;
 import org.magiclen.gson.TypeAdapter;
 import org.magiclen.gson.TypeAdapterFactory;
+import org.magiclen.gson.internal.bind.util.ThreadLocalDateFormat;
 import org.magiclen.gson.reflect.TypeToken;
 import org.magiclen.gson.stream.JsonReader;
 import org.magiclen.gson.stream.JsonToken;
@@ -33,8 +34,8 @@ import java.util.Date;
 /**
  * Adapter for Time. Although this class appears stateless, it is not.
  * DateFormat captures its time zone and locale when it is created, which gives
- * this class state. DateFormat isn't thread safe either, so this class has to
- * synchronize its read and write methods.
+ * this class state. DateFormat isn't thread safe either, so each thread works
+ * on its own copy of the format.
  */
 public final class TimeTypeAdapter extends TypeAdapter<Time> {
 
@@ -46,16 +47,16 @@ public final class TimeTypeAdapter extends TypeAdapter<Time> {
         }
     };
 
-    private final DateFormat format = new SimpleDateFormat("hh:mm:ss a");
+    private final ThreadLocalDateFormat format = new ThreadLocalDateFormat(new SimpleDateFormat("hh:mm:ss a"));
 
     @Override
-    public synchronized Time read(JsonReader in) throws IOException {
+    public Time read(JsonReader in) throws IOException {
         if (in.peek() == JsonToken.NULL) {
             in.nextNull();
             return null;
         }
         try {
-            Date date = format.parse(in.nextString());
+            Date date = format.get().parse(in.nextString());
             return new Time(date.getTime());
         } catch (ParseException e) {
             throw new JsonSyntaxException(e);
@@ -63,7 +64,7 @@ public final class TimeTypeAdapter extends TypeAdapter<Time> {
     }
 
     @Override
-    public synchronized void write(JsonWriter out, Time value) throws IOException {
+    public void write(JsonWriter out, Time value) throws IOException {
         out.value(value == null ? null : format.format(value));
     }
 }
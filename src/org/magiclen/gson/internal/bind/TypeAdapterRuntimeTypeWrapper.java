@@ -18,23 +18,51 @@ package org.magiclen.gson.internal.bind;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
 
 import org.magiclen.gson.Gson;
 import org.magiclen.gson.TypeAdapter;
+import org.magiclen.gson.internal.ClassLoaders;
 import org.magiclen.gson.reflect.TypeToken;
 import org.magiclen.gson.stream.JsonReader;
 import org.magiclen.gson.stream.JsonWriter;
 
 final class TypeAdapterRuntimeTypeWrapper<T> extends TypeAdapter<T> {
 
+    /**
+     * The most runtime types remembered by the polymorphic cache. Values of
+     * further types look up their adapter on every write.
+     */
+    private static final int POLYMORPHIC_LIMIT = 8;
+
+    private static final CacheEntry[] EMPTY_CACHE = new CacheEntry[0];
+
     private final Gson context;
     private final TypeAdapter<T> delegate;
     private final Type type;
+    /**
+     * Whether the runtime type of a value may be more specific than
+     * {@code type}.
+     */
+    private final boolean polymorphic;
+
+    /**
+     * The adapter chosen for the last runtime type, so that the common case
+     * of a collection of one type costs a single class comparison. Only
+     * classes of the library's class loader and its ancestors are cached, so
+     * that a wrapper held by a cached adapter of a platform type, such as
+     * {@code List<Object>}, does not keep a foreign class loader alive. Entries
+     * are immutable, so sharing the fields between threads without
+     * synchronization is safe; a lost update only costs another lookup.
+     */
+    private CacheEntry last;
+    private CacheEntry[] cache = EMPTY_CACHE;
 
     TypeAdapterRuntimeTypeWrapper(Gson context, TypeAdapter<T> delegate, Type type) {
         this.context = context;
         this.delegate = delegate;
         this.type = type;
+        this.polymorphic = type == Object.class || type instanceof TypeVariable<?> || type instanceof Class<?>;
     }
 
     @Override
@@ -45,39 +73,85 @@ final class TypeAdapterRuntimeTypeWrapper<T> extends TypeAdapter<T> {
     @SuppressWarnings({"rawtypes", "unchecked"})
     @Override
     public void write(JsonWriter out, T value) throws IOException {
+        if (value == null || !polymorphic) {
+            delegate.write(out, value);
+            return;
+        }
+        Class<?> runtimeType = value.getClass();
+        if (runtimeType == type) {
+            delegate.write(out, value);
+            return;
+        }
+        CacheEntry entry = last;
+        if (entry != null && entry.runtimeType == runtimeType) {
+            ((TypeAdapter) entry.adapter).write(out, value);
+            return;
+        }
+        if (!ClassLoaders.isStrong(runtimeType.getClassLoader())) {
+            // the wrapper may be cached strongly, so it must not pin foreign classes
+            ((TypeAdapter) choose(runtimeType)).write(out, value);
+            return;
+        }
+        entry = lookup(runtimeType);
+        last = entry;
+        ((TypeAdapter) entry.adapter).write(out, value);
+    }
+
+    private CacheEntry lookup(Class<?> runtimeType) {
+        CacheEntry[] entries = cache;
+        for (CacheEntry entry : entries) {
+            if (entry.runtimeType == runtimeType) {
+                return entry;
+            }
+        }
+        CacheEntry entry = new CacheEntry(runtimeType, choose(runtimeType));
+        if (entries.length < POLYMORPHIC_LIMIT) {
+            CacheEntry[] grown = Arrays.copyOf(entries, entries.length + 1);
+            grown[entries.length] = entry;
+            cache = grown;
+        }
+        return entry;
+    }
+
+    private TypeAdapter<?> choose(Class<?> runtimeType) {
         // Order of preference for choosing type adapters
         // First preference: a type adapter registered for the runtime type
         // Second preference: a type adapter registered for the declared type
         // Third preference: reflective type adapter for the runtime type (if it is a sub class of the declared type)
         // Fourth preference: reflective type adapter for the declared type
 
-        TypeAdapter chosen = delegate;
-        Type runtimeType = getRuntimeTypeIfMoreSpecific(type, value);
-        if (runtimeType != type) {
-            TypeAdapter runtimeTypeAdapter = context.getAdapter(TypeToken.get(runtimeType));
-            if (!(runtimeTypeAdapter instanceof ReflectiveTypeAdapterFactory.Adapter)) {
-                // The user registered a type adapter for the runtime type, so we will use that
-                chosen = runtimeTypeAdapter;
-            } else if (!(delegate instanceof ReflectiveTypeAdapterFactory.Adapter)) {
-                // The user registered a type adapter for Base class, so we prefer it over the
-                // reflective type adapter for the runtime type
-                chosen = delegate;
-            } else {
-                // Use the type adapter for runtime type
-                chosen = runtimeTypeAdapter;
-            }
+        TypeAdapter<?> runtimeTypeAdapter = context.getAdapter(TypeToken.get(runtimeType));
+        if (!isReflective(runtimeTypeAdapter)) {
+            // The user registered a type adapter for the runtime type, so we will use that
+            return runtimeTypeAdapter;
+        } else if (!isReflective(delegate)) {
+            // The user registered a type adapter for Base class, so we prefer it over the
+            // reflective type adapter for the runtime type
+            return delegate;
+        } else {
+            // Use the type adapter for runtime type
+            return runtimeTypeAdapter;
         }
-        chosen.write(out, value);
     }
 
     /**
-     * Finds a compatible runtime type if it is more specific
+     * Adapters generated at compile time stand in for reflective ones, so they
+     * do not count as registered by the user.
      */
-    private Type getRuntimeTypeIfMoreSpecific(Type type, Object value) {
-        if (value != null
-                && (type == Object.class || type instanceof TypeVariable<?> || type instanceof Class<?>)) {
-            type = value.getClass();
+    private static boolean isReflective(TypeAdapter<?> adapter) {
+        adapter = InstrumentedTypeAdapter.unwrap(adapter);
+        return adapter instanceof ReflectiveTypeAdapterFactory.Adapter
+                || adapter instanceof GeneratedTypeAdapter;
+    }
+
+    private static final class CacheEntry {
+
+        final Class<?> runtimeType;
+        final TypeAdapter<?> adapter;
+
+        CacheEntry(Class<?> runtimeType, TypeAdapter<?> adapter) {
+            this.runtimeType = runtimeType;
+            this.adapter = adapter;
         }
-        return type;
     }
 }
@@ -31,6 +31,14 @@ public class ISO8601Utils {
      */
     private static final TimeZone TIMEZONE_UTC = TimeZone.getTimeZone(UTC_ID);
 
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    /**
+     * The range of instants, from year 1600 to year 9999, formatted in UTC
+     * without a {@link Calendar}.
+     */
+    private static final long MIN_FAST_TIME = daysFromCivil(1600, 1, 1) * MILLIS_PER_DAY;
+    private static final long MAX_FAST_TIME = daysFromCivil(10000, 1, 1) * MILLIS_PER_DAY;
+
     /*
     /**********************************************************
     /* Formatting
@@ -67,6 +75,10 @@ public class ISO8601Utils {
      * @return the date formatted as yyyy-MM-ddThh:mm:ss[.sss][Z|[+-]hh:mm]
      */
     public static String format(Date date, boolean millis, TimeZone tz) {
+        long time = date.getTime();
+        if (tz == TIMEZONE_UTC && time >= MIN_FAST_TIME && time < MAX_FAST_TIME) {
+            return formatUtc(time, millis);
+        }
         Calendar calendar = new GregorianCalendar(tz, Locale.US);
         calendar.setTime(date);
 
@@ -107,6 +119,75 @@ public class ISO8601Utils {
         return formatted.toString();
     }
 
+    /**
+     * Formats {@code time} in UTC without going through a {@link Calendar}.
+     * Only valid between {@link #MIN_FAST_TIME} and {@link #MAX_FAST_TIME},
+     * where the proleptic Gregorian calendar used here agrees with
+     * {@link GregorianCalendar}.
+     */
+    private static String formatUtc(long time, boolean millis) {
+        long days = floorDiv(time, MILLIS_PER_DAY);
+        int millisOfDay = (int) (time - days * MILLIS_PER_DAY);
+
+        // civil from days, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+        char[] buffer = new char[millis ? 24 : 20];
+        putDigits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        putDigits(buffer, 5, month, 2);
+        buffer[7] = '-';
+        putDigits(buffer, 8, day, 2);
+        buffer[10] = 'T';
+        putDigits(buffer, 11, millisOfDay / 3600000, 2);
+        buffer[13] = ':';
+        putDigits(buffer, 14, millisOfDay / 60000 % 60, 2);
+        buffer[16] = ':';
+        putDigits(buffer, 17, millisOfDay / 1000 % 60, 2);
+        if (millis) {
+            buffer[19] = '.';
+            putDigits(buffer, 20, millisOfDay % 1000, 3);
+        }
+        buffer[buffer.length - 1] = 'Z';
+        return new String(buffer);
+    }
+
+    private static void putDigits(char[] buffer, int offset, int value, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        int era = (year >= 0 ? year : year - 399) / 400;
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
     /*
     /**********************************************************
     /* Parsing
@@ -123,6 +204,12 @@ public class ISO8601Utils {
      * @throws ParseException if the date is not in the appropriate format
      */
     public static Date parse(String date, ParsePosition pos) throws ParseException {
+        if (date != null) {
+            Date fast = parseUtc(date, pos);
+            if (fast != null) {
+                return fast;
+            }
+        }
         Exception fail = null;
         try {
             int offset = pos.getIndex();
@@ -279,6 +366,79 @@ public class ISO8601Utils {
         throw ex;
     }
 
+    /**
+     * Parses the common {@code yyyy-MM-ddThh:mm:ss[.s+]Z} form with plain
+     * arithmetic. Returns null, without touching {@code pos}, when the input is
+     * in any other form or out of range, so that the general parser can handle
+     * it and report errors.
+     */
+    private static Date parseUtc(String date, ParsePosition pos) {
+        int offset = pos.getIndex();
+        int length = date.length();
+        if (length - offset < 20
+                || date.charAt(offset + 4) != '-' || date.charAt(offset + 7) != '-'
+                || date.charAt(offset + 10) != 'T' || date.charAt(offset + 13) != ':'
+                || date.charAt(offset + 16) != ':') {
+            return null;
+        }
+        int year = asciiDigits(date, offset, 4);
+        int month = asciiDigits(date, offset + 5, 2);
+        int day = asciiDigits(date, offset + 8, 2);
+        int hour = asciiDigits(date, offset + 11, 2);
+        int minutes = asciiDigits(date, offset + 14, 2);
+        int seconds = asciiDigits(date, offset + 17, 2);
+        if (year < 1600 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 62) {
+            return null;
+        }
+        if (seconds > 59) {
+            seconds = 59; // truncate up to 3 leap seconds
+        }
+        int end = offset + 19;
+        int milliseconds = 0;
+        if (date.charAt(end) == '.') {
+            int digits = 0;
+            for (end++; end < length; end++, digits++) {
+                char c = date.charAt(end);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (digits < 3) {
+                    milliseconds = milliseconds * 10 + (c - '0');
+                }
+            }
+            if (digits == 0) {
+                return null;
+            }
+            for (; digits < 3; digits++) {
+                milliseconds *= 10;
+            }
+        }
+        if (end >= length || date.charAt(end) != 'Z') {
+            return null;
+        }
+        long time = daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                + hour * 3600000L + minutes * 60000L + seconds * 1000L + milliseconds;
+        pos.setIndex(end + 1);
+        return new Date(time);
+    }
+
+    /**
+     * Returns the value of the {@code length} ASCII digits at {@code offset},
+     * or -1 if any of them is not an ASCII digit.
+     */
+    private static int asciiDigits(String value, int offset, int length) {
+        int result = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
     /**
      * Check if the expected character exist at the given offset in the value.
      *
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.internal.bind.util;
+
+import java.text.DateFormat;
+import java.text.ParsePosition;
+import java.util.Date;
+
+/**
+ * Gives each thread its own copy of a {@link DateFormat}, so that date
+ * adapters can format and parse concurrently without synchronizing on a
+ * shared instance. The prototype is never used to format or parse; it is only
+ * cloned, once per thread.
+ */
+public final class ThreadLocalDateFormat extends ThreadLocal<DateFormat> {
+
+    private final DateFormat prototype;
+
+    public ThreadLocalDateFormat(DateFormat prototype) {
+        this.prototype = prototype;
+    }
+
+    @Override
+    protected DateFormat initialValue() {
+        synchronized (prototype) {
+            return (DateFormat) prototype.clone();
+        }
+    }
+
+    /**
+     * Formats {@code date} with this thread's copy of the format.
+     */
+    public String format(Date date) {
+        return get().format(date);
+    }
+
+    /**
+     * Parses {@code source} with this thread's copy of the format, like
+     * {@link DateFormat#parse(String)}.
+     *
+     * @return the parsed date, or null if the beginning of {@code source}
+     * cannot be parsed. No exception is thrown, so trying several formats in
+     * turn stays cheap.
+     */
+    public Date parse(String source) {
+        return get().parse(source, new ParsePosition(0));
+    }
+
+    /**
+     * Returns the format this instance copies.
+     */
+    public DateFormat getPrototype() {
+        return prototype;
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2011 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.processor;
+
+import org.magiclen.gson.annotations.Expose;
+import org.magiclen.gson.annotations.GenerateTypeAdapter;
+import org.magiclen.gson.annotations.JsonAdapter;
+import org.magiclen.gson.annotations.SerializedName;
+import org.magiclen.gson.annotations.Since;
+import org.magiclen.gson.annotations.Until;
+import org.magiclen.gson.internal.bind.GeneratedTypeAdapterFactory;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@link org.magiclen.gson.internal.bind.GeneratedTypeAdapter}
+ * for every class annotated with {@link GenerateTypeAdapter}. The generated
+ * class is placed in the same package and named after the binary name of the
+ * annotated class followed by
+ * {@link GeneratedTypeAdapterFactory#ADAPTER_SUFFIX}.
+ *
+ * <p>
+ * Fields are bound in the same order and under the same rules as
+ * {@link org.magiclen.gson.internal.bind.ReflectiveTypeAdapterFactory}:
+ * fields of the class first, then those of its superclasses; static and
+ * transient fields are skipped. Settings that depend on the {@link
+ * org.magiclen.gson.Gson} instance, such as the version and whether
+ * {@link Expose} is required, are evaluated when the adapter is created.
+ */
+@SupportedAnnotationTypes("org.magiclen.gson.annotations.GenerateTypeAdapter")
+public final class TypeAdapterProcessor extends AbstractProcessor {
+
+    private static final String GSON = "org.magiclen.gson.Gson";
+    private static final String TYPE_ADAPTER = "org.magiclen.gson.TypeAdapter";
+    private static final String TYPE_TOKEN = "org.magiclen.gson.reflect.TypeToken";
+    private static final String JSON_READER = "org.magiclen.gson.stream.JsonReader";
+    private static final String JSON_WRITER = "org.magiclen.gson.stream.JsonWriter";
+    private static final String PRE_ENCODED_NAME = "org.magiclen.gson.stream.PreEncodedName";
+    private static final String GENERATED_TYPE_ADAPTER = "org.magiclen.gson.internal.bind.GeneratedTypeAdapter";
+    private static final String JSON_ADAPTER_FACTORY
+            = "org.magiclen.gson.internal.bind.JsonAdapterAnnotationTypeAdapterFactory";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateTypeAdapter.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateTypeAdapter can only be applied to classes");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<BoundField> fields = getBoundFields(type);
+            if (fields == null || !checkClass(type)) {
+                continue;
+            }
+            try {
+                write(type, fields);
+            } catch (IOException e) {
+                error(type, "Failed to write the type adapter: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private boolean checkClass(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT)) {
+            error(type, "@GenerateTypeAdapter classes must not be abstract");
+            return false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@GenerateTypeAdapter classes must not be generic");
+            return false;
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            TypeElement enclosing = (TypeElement) e;
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                error(type, "@GenerateTypeAdapter classes and their enclosing classes must not be private");
+                return false;
+            }
+            if (enclosing.getNestingKind() == NestingKind.MEMBER
+                    && !enclosing.getModifiers().contains(Modifier.STATIC)) {
+                error(type, "@GenerateTypeAdapter classes must not be inner classes");
+                return false;
+            }
+            if (enclosing.getNestingKind() == NestingKind.LOCAL
+                    || enclosing.getNestingKind() == NestingKind.ANONYMOUS) {
+                error(type, "@GenerateTypeAdapter classes must not be local classes");
+                return false;
+            }
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                    error(constructor, "@GenerateTypeAdapter classes need a non-private no-args constructor");
+                    return false;
+                }
+                return true;
+            }
+        }
+        error(type, "@GenerateTypeAdapter classes need a non-private no-args constructor");
+        return false;
+    }
+
+    /**
+     * Returns the fields to bind, or null if one of them cannot be accessed
+     * from the generated adapter.
+     */
+    private List<BoundField> getBoundFields(TypeElement type) {
+        Types types = processingEnv.getTypeUtils();
+        Elements elements = processingEnv.getElementUtils();
+        DeclaredType declaredType = (DeclaredType) type.asType();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+
+        List<BoundField> result = new ArrayList<BoundField>();
+        Map<String, VariableElement> names = new HashMap<String, VariableElement>();
+        boolean valid = true;
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            boolean samePackage = elements.getPackageOf(current).getQualifiedName().contentEquals(packageName);
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                if (modifiers.contains(Modifier.PRIVATE)
+                        || (!samePackage && !modifiers.contains(Modifier.PUBLIC))) {
+                    error(field, "Fields bound by a generated type adapter must be accessible from package "
+                            + packageName);
+                    valid = false;
+                    continue;
+                }
+                TypeMirror fieldType = types.asMemberOf(declaredType, field);
+                if (containsTypeVariable(fieldType)) {
+                    error(field, "Cannot resolve the type of " + field.getSimpleName() + " in " + type);
+                    valid = false;
+                    continue;
+                }
+
+                BoundField boundField = new BoundField(field, current, current != type, fieldType);
+                for (String name : boundField.names) {
+                    VariableElement previous = names.put(name, field);
+                    if (previous != null) {
+                        error(field, type + " declares multiple JSON fields named " + name);
+                        valid = false;
+                    }
+                }
+                result.add(boundField);
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) types.asElement(superclass)
+                    : null;
+        }
+        return valid ? result : null;
+    }
+
+    private static boolean containsTypeVariable(TypeMirror type) {
+        switch (type.getKind()) {
+            case TYPEVAR:
+                return true;
+            case ARRAY:
+                return containsTypeVariable(((ArrayType) type).getComponentType());
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) type;
+                return (wildcard.getExtendsBound() != null && containsTypeVariable(wildcard.getExtendsBound()))
+                        || (wildcard.getSuperBound() != null && containsTypeVariable(wildcard.getSuperBound()));
+            case DECLARED:
+                for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                    if (containsTypeVariable(argument)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    private void write(TypeElement type, List<BoundField> fields) throws IOException {
+        Types types = processingEnv.getTypeUtils();
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String adapterName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + GeneratedTypeAdapterFactory.ADAPTER_SUFFIX;
+        String typeName = type.getQualifiedName().toString();
+
+        PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? adapterName : packageName + "." + adapterName, type).openWriter());
+        try {
+            out.println("// Generated by " + TypeAdapterProcessor.class.getName() + ". Do not edit.");
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+            }
+            out.println();
+            out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            out.println("public final class " + adapterName + " extends " + GENERATED_TYPE_ADAPTER + "<" + typeName + "> {");
+            out.println();
+            for (int i = 0; i < fields.size(); i++) {
+                out.println("    private static final " + PRE_ENCODED_NAME + " NAME" + i + " = new " + PRE_ENCODED_NAME
+                        + "(" + elements.getConstantExpression(fields.get(i).names.get(0)) + ");");
+            }
+            for (int i = 0; i < fields.size(); i++) {
+                String adapterType = TYPE_ADAPTER + "<" + fields.get(i).boxedType(types) + ">";
+                out.println("    private final boolean serialize" + i + ";");
+                out.println("    private final boolean deserialize" + i + ";");
+                out.println("    private final " + adapterType + " readAdapter" + i + ";");
+                out.println("    private final " + adapterType + " writeAdapter" + i + ";");
+            }
+            out.println();
+
+            // constructor
+            out.println("    public " + adapterName + "(" + GSON + " gson, " + JSON_ADAPTER_FACTORY + " jsonAdapterFactory) {");
+            out.println("        super(gson, jsonAdapterFactory);");
+            for (int i = 0; i < fields.size(); i++) {
+                BoundField field = fields.get(i);
+                String boxedType = field.boxedType(types);
+                String rawClass = types.erasure(field.type) + ".class";
+                String include = "includeField(" + rawClass + ", " + constant(field.since) + ", "
+                        + constant(field.until) + ", " + field.exposed + ", " + field.exposeSerialize + ", "
+                        + field.exposeDeserialize + ", ";
+                out.println("        serialize" + i + " = " + include + "true);");
+                out.println("        deserialize" + i + " = " + include + "false);");
+                out.println("        if (serialize" + i + " || deserialize" + i + ") {");
+                out.println("            " + TYPE_TOKEN + "<" + boxedType + "> type" + i + " = " + typeToken(field, types) + ";");
+                if (field.jsonAdapter != null) {
+                    out.println("            readAdapter" + i + " = fieldAdapter(type" + i + ", "
+                            + types.erasure(field.jsonAdapter) + ".class, " + field.jsonAdapterNullSafe + ");");
+                    out.println("            writeAdapter" + i + " = readAdapter" + i + ";");
+                } else {
+                    out.println("            readAdapter" + i + " = fieldAdapter(type" + i + ");");
+                    out.println("            writeAdapter" + i + " = runtimeTypeAdapter(readAdapter" + i + ", type" + i + ");");
+                }
+                out.println("        } else {");
+                out.println("            readAdapter" + i + " = null;");
+                out.println("            writeAdapter" + i + " = null;");
+                out.println("        }");
+            }
+            out.println("    }");
+            out.println();
+
+            // newInstance
+            out.println("    @Override");
+            out.println("    protected " + typeName + " newInstance() {");
+            out.println("        return new " + typeName + "();");
+            out.println("    }");
+            out.println();
+
+            // readField
+            out.println("    @Override");
+            out.println("    protected boolean readField(" + JSON_READER + " in, String name, " + typeName
+                    + " instance) throws java.io.IOException {");
+            out.println("        switch (name) {");
+            for (int i = 0; i < fields.size(); i++) {
+                BoundField field = fields.get(i);
+                for (String name : field.names) {
+                    out.println("            case " + elements.getConstantExpression(name) + ":");
+                }
+                out.println("                if (!deserialize" + i + ") {");
+                out.println("                    return false;");
+                out.println("                }");
+                if (field.type.getKind().isPrimitive()) {
+                    out.println("                " + field.boxedType(types) + " value" + i + " = readAdapter" + i + ".read(in);");
+                    out.println("                if (value" + i + " != null) {");
+                    out.println("                    " + field.access() + " = value" + i + ";");
+                    out.println("                }");
+                } else {
+                    out.println("                " + field.access() + " = readAdapter" + i + ".read(in);");
+                }
+                out.println("                return true;");
+            }
+            out.println("            default:");
+            out.println("                return false;");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+
+            // writeFields
+            out.println("    @Override");
+            out.println("    protected void writeFields(" + JSON_WRITER + " out, " + typeName
+                    + " instance) throws java.io.IOException {");
+            for (int i = 0; i < fields.size(); i++) {
+                BoundField field = fields.get(i);
+                String boxedType = field.boxedType(types);
+                out.println("        if (serialize" + i + ") {");
+                out.println("            " + boxedType + " value" + i + " = (" + field.type + ") " + field.access() + ";");
+                if (field.type.getKind().isPrimitive()) {
+                    out.println("            out.name(NAME" + i + ");");
+                    out.println("            writeAdapter" + i + ".write(out, value" + i + ");");
+                } else {
+                    // avoid recursion for example for Throwable.cause
+                    out.println("            if ((Object) value" + i + " != instance) {");
+                    out.println("                out.name(NAME" + i + ");");
+                    out.println("                writeAdapter" + i + ".write(out, value" + i + ");");
+                    out.println("            }");
+                }
+                out.println("        }");
+            }
+            out.println("    }");
+            out.println("}");
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String constant(double value) {
+        if (Double.isNaN(value)) {
+            return "Double.NaN";
+        } else if (Double.isInfinite(value)) {
+            return value > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        }
+        return value + "d";
+    }
+
+    private static String typeToken(BoundField field, Types types) {
+        TypeMirror erasure = types.erasure(field.type);
+        if (types.isSameType(erasure, field.type)) {
+            return TYPE_TOKEN + ".get(" + erasure + ".class)";
+        }
+        return "new " + TYPE_TOKEN + "<" + field.type + ">() {}";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class BoundField {
+
+        final VariableElement field;
+        final TypeElement declaringClass;
+        final boolean inherited;
+        final TypeMirror type;
+        /**
+         * first element holds the default name
+         */
+        final List<String> names = new ArrayList<String>();
+        final double since;
+        final double until;
+        final boolean exposed;
+        final boolean exposeSerialize;
+        final boolean exposeDeserialize;
+        final TypeMirror jsonAdapter;
+        final boolean jsonAdapterNullSafe;
+
+        BoundField(VariableElement field, TypeElement declaringClass, boolean inherited, TypeMirror type) {
+            this.field = field;
+            this.declaringClass = declaringClass;
+            this.inherited = inherited;
+            this.type = type;
+
+            SerializedName serializedName = field.getAnnotation(SerializedName.class);
+            if (serializedName == null) {
+                names.add(field.getSimpleName().toString());
+            } else {
+                names.add(serializedName.value());
+                for (String alternate : serializedName.alternate()) {
+                    names.add(alternate);
+                }
+            }
+
+            Since sinceAnnotation = field.getAnnotation(Since.class);
+            since = sinceAnnotation == null ? Double.NaN : sinceAnnotation.value();
+            Until untilAnnotation = field.getAnnotation(Until.class);
+            until = untilAnnotation == null ? Double.NaN : untilAnnotation.value();
+
+            Expose expose = field.getAnnotation(Expose.class);
+            exposed = expose != null;
+            exposeSerialize = expose != null && expose.serialize();
+            exposeDeserialize = expose != null && expose.deserialize();
+
+            JsonAdapter adapter = field.getAnnotation(JsonAdapter.class);
+            if (adapter == null) {
+                jsonAdapter = null;
+                jsonAdapterNullSafe = false;
+            } else {
+                TypeMirror value;
+                try {
+                    adapter.value();
+                    throw new AssertionError(); // classes are not loaded during compilation
+                } catch (MirroredTypeException e) {
+                    value = e.getTypeMirror();
+                }
+                jsonAdapter = value;
+                jsonAdapterNullSafe = adapter.nullSafe();
+            }
+        }
+
+        String boxedType(Types types) {
+            if (type.getKind().isPrimitive()) {
+                return types.boxedClass((PrimitiveType) type).getQualifiedName().toString();
+            }
+            return type.toString();
+        }
+
+        /**
+         * Returns the expression for the field on {@code instance}. Inherited
+         * fields are accessed through their declaring class, as they may be
+         * hidden by a field of the same name.
+         */
+        String access() {
+            String name = field.getSimpleName().toString();
+            if (inherited) {
+                return "((" + declaringClass.getQualifiedName() + ") instance)." + name;
+            }
+            return "instance." + name;
+        }
+    }
+}
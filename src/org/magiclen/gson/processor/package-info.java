@@ -0,0 +1,5 @@
+/**
+ * This package provides the annotation processor that generates type adapters
+ * for classes annotated with {@link org.magiclen.gson.annotations.GenerateTypeAdapter}.
+ */
+package org.magiclen.gson.processor;
@@ -17,12 +17,15 @@ package org.magiclen.gson.reflect;
 
 import org.magiclen.gson.internal.$Gson$Types;
 import org.magiclen.gson.internal.$Gson$Preconditions;
+import org.magiclen.gson.internal.ClassLoaders;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Represents a generic type {@code T}. Java doesn't yet provide a way to
@@ -47,6 +50,28 @@ import java.util.Map;
  */
 public class TypeToken<T> {
 
+    /**
+     * The type literals of classes, which are requested for every value
+     * serialized by its runtime class, for classes of the library's class
+     * loader and its ancestors. They outlive the library, so they may be held
+     * strongly.
+     */
+    private static final ConcurrentMap<Class<?>, TypeToken<?>> STRONG_CLASS_TOKENS
+            = new ConcurrentHashMap<Class<?>, TypeToken<?>>();
+
+    /**
+     * The type literals of classes of class loaders that descend from the
+     * library's, stored on the class so they are unloaded with it. Classes of
+     * other loaders get a new type literal every time: storing one on them
+     * would keep the library's class loader alive.
+     */
+    private static final ClassValue<TypeToken<?>> OWNED_CLASS_TOKENS = new ClassValue<TypeToken<?>>() {
+        @Override
+        protected TypeToken<?> computeValue(Class<?> type) {
+            return new TypeToken<Object>(type);
+        }
+    };
+
     final Class<? super T> rawType;
     final Type type;
     final int hashCode;
@@ -286,7 +311,7 @@ public class TypeToken<T> {
 
     @Override
     public final boolean equals(Object o) {
-        return o instanceof TypeToken<?>
+        return o == this || o instanceof TypeToken<?>
                 && $Gson$Types.equals(type, ((TypeToken<?>) o).type);
     }
 
@@ -299,13 +324,29 @@ public class TypeToken<T> {
      * Gets type literal for the given {@code Type} instance.
      */
     public static TypeToken<?> get(Type type) {
-        return new TypeToken<Object>(type);
+        return type instanceof Class<?>
+                ? get((Class<?>) type)
+                : new TypeToken<Object>(type);
     }
 
     /**
-     * Gets type literal for the given {@code Class} instance.
+     * Gets type literal for the given {@code Class} instance. The same
+     * instance is usually returned for the same class.
      */
+    @SuppressWarnings("unchecked")
     public static <T> TypeToken<T> get(Class<T> type) {
+        TypeToken<?> token = STRONG_CLASS_TOKENS.get(type);
+        if (token != null) {
+            return (TypeToken<T>) token;
+        }
+        ClassLoader loader = type.getClassLoader();
+        if (ClassLoaders.isStrong(loader)) {
+            token = new TypeToken<T>(type);
+            TypeToken<?> existing = STRONG_CLASS_TOKENS.putIfAbsent(type, token);
+            return (TypeToken<T>) (existing != null ? existing : token);
+        } else if (ClassLoaders.isOwned(loader)) {
+            return (TypeToken<T>) OWNED_CLASS_TOKENS.get(type);
+        }
         return new TypeToken<T>(type);
     }
 
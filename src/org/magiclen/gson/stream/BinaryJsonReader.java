@@ -0,0 +1,604 @@
+/*
+ * Copyright (C) 2010 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.stream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.magiclen.gson.stream.BinaryJsonWriter.*;
+
+/**
+ * Reads JSON values written by {@link BinaryJsonWriter}. It has the same
+ * methods as {@link JsonReader}, so any {@code TypeAdapter} can read from it,
+ * for example with {@code Gson.fromJson(JsonReader, Type)}. Numbers are
+ * decoded from their binary form and are only formatted as text when they
+ * are read with {@link #nextString()}.
+ *
+ * <p>
+ * The stream may hold several top-level values. Lenient mode only allows
+ * reading NaN and infinities, since the encoding has no syntax to relax.
+ * Instances of this class are not thread safe.
+ */
+public final class BinaryJsonReader extends JsonReader {
+
+    private static final Reader UNREADABLE_READER = new Reader() {
+        @Override
+        public int read(char[] buffer, int offset, int count) throws IOException {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() throws IOException {
+            throw new AssertionError();
+        }
+    };
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int SCOPE_DOCUMENT = 0;
+    private static final int SCOPE_ARRAY = 1;
+    /**
+     * An object whose next token is a name or the end of the object.
+     */
+    private static final int SCOPE_OBJECT_NAME = 2;
+    /**
+     * An object whose next token is the value of a name.
+     */
+    private static final int SCOPE_OBJECT_VALUE = 3;
+    private static final int SCOPE_CLOSED = 4;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int pos;
+    private int limit;
+    /**
+     * The offset in the stream of {@code buffer[0]}.
+     */
+    private long bufferStart;
+
+    private final List<String> dictionary = new ArrayList<String>();
+
+    private int[] stack = new int[32];
+    private int stackSize = 1;
+    private String[] pathNames = new String[32];
+    private int[] pathIndices = new int[32];
+
+    /**
+     * The next token, or null if it has not been read yet. Its payload is in
+     * one of the fields below.
+     */
+    private JsonToken peeked;
+    private int peekedType;
+    private String peekedString;
+    private long peekedLong;
+    private double peekedDouble;
+    /**
+     * True if the peeked string is a name promoted to a value.
+     */
+    private boolean promotedName;
+
+    /**
+     * Creates a new instance that reads the encoded values from {@code in}.
+     * The stream should not be buffered: this reader buffers its input itself.
+     */
+    public BinaryJsonReader(InputStream in) {
+        super(UNREADABLE_READER);
+        if (in == null) {
+            throw new NullPointerException("in == null");
+        }
+        this.in = in;
+        stack[0] = SCOPE_DOCUMENT;
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+        peeked = null;
+        push(SCOPE_ARRAY);
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+        peeked = null;
+        stackSize--;
+        afterValue();
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+        peeked = null;
+        push(SCOPE_OBJECT_NAME);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+        peeked = null;
+        pathNames[stackSize - 1] = null;
+        stackSize--;
+        afterValue();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY;
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int scope = stack[stackSize - 1];
+        if (scope == SCOPE_CLOSED) {
+            throw new IllegalStateException("JsonReader is closed");
+        }
+        if (pos == limit && !fillBuffer(1)) {
+            if (scope == SCOPE_DOCUMENT) {
+                return peeked = JsonToken.END_DOCUMENT;
+            }
+            throw new EOFException("End of input" + locationString());
+        }
+        int b = buffer[pos++] & 0xff;
+        JsonToken token = decode(b);
+        boolean valid;
+        switch (scope) {
+            case SCOPE_OBJECT_NAME:
+                valid = token == JsonToken.NAME || token == JsonToken.END_OBJECT;
+                break;
+            case SCOPE_ARRAY:
+                valid = token != JsonToken.NAME && token != JsonToken.END_OBJECT;
+                break;
+            default:
+                valid = token != JsonToken.NAME && token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY;
+                break;
+        }
+        if (!valid) {
+            throw syntaxError("Unexpected " + token);
+        }
+        return peeked = token;
+    }
+
+    /**
+     * Decodes the token that starts with {@code b}, reading its payload.
+     */
+    private JsonToken decode(int b) throws IOException {
+        peekedType = b;
+        if (b >= SHORT_NAME_REFERENCE) {
+            peekedString = name(b - SHORT_NAME_REFERENCE);
+            return JsonToken.NAME;
+        } else if (b >= SHORT_NAME) {
+            peekedString = newName(b - SHORT_NAME);
+            return JsonToken.NAME;
+        } else if (b >= SHORT_STRING) {
+            peekedString = readUtf8(b - SHORT_STRING);
+            return JsonToken.STRING;
+        } else if (b >= SMALL_INT) {
+            peekedType = LONG;
+            peekedLong = b - SMALL_INT_ZERO;
+            return JsonToken.NUMBER;
+        }
+        switch (b) {
+            case NULL:
+                return JsonToken.NULL;
+            case FALSE:
+            case TRUE:
+                return JsonToken.BOOLEAN;
+            case BEGIN_ARRAY:
+                return JsonToken.BEGIN_ARRAY;
+            case END_ARRAY:
+                return JsonToken.END_ARRAY;
+            case BEGIN_OBJECT:
+                return JsonToken.BEGIN_OBJECT;
+            case END_OBJECT:
+                return JsonToken.END_OBJECT;
+            case LONG:
+                long zigzag = readVarint();
+                peekedLong = (zigzag >>> 1) ^ -(zigzag & 1);
+                return JsonToken.NUMBER;
+            case DOUBLE:
+                peekedDouble = Double.longBitsToDouble(readFixed(8));
+                return JsonToken.NUMBER;
+            case FLOAT:
+                peekedDouble = Float.intBitsToFloat((int) readFixed(4));
+                return JsonToken.NUMBER;
+            case NUMBER_TEXT:
+                peekedString = readUtf8(readLength());
+                return JsonToken.NUMBER;
+            case STRING:
+                peekedString = readUtf8(readLength());
+                return JsonToken.STRING;
+            case NAME:
+                peekedString = newName(readLength());
+                return JsonToken.NAME;
+            case NAME_REFERENCE:
+                peekedString = name(readLength());
+                return JsonToken.NAME;
+            default:
+                throw syntaxError("Unknown token 0x" + Integer.toHexString(b));
+        }
+    }
+
+    private String name(int index) throws IOException {
+        if (index >= dictionary.size()) {
+            throw syntaxError("Unknown name reference " + index);
+        }
+        return dictionary.get(index);
+    }
+
+    private String newName(int length) throws IOException {
+        String name = readUtf8(length);
+        if (name.length() <= MAX_DICTIONARY_NAME_LENGTH && dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.add(name);
+        }
+        return name;
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        peeked = null;
+        stack[stackSize - 1] = SCOPE_OBJECT_VALUE;
+        pathNames[stackSize - 1] = peekedString;
+        return peekedString;
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        JsonToken token = peek();
+        String result;
+        if (token == JsonToken.STRING) {
+            result = peekedString;
+        } else if (token == JsonToken.NUMBER) {
+            switch (peekedType) {
+                case LONG:
+                    result = Long.toString(peekedLong);
+                    break;
+                case DOUBLE:
+                    result = Double.toString(peekedDouble);
+                    break;
+                case FLOAT:
+                    result = Float.toString((float) peekedDouble);
+                    break;
+                default:
+                    result = peekedString;
+                    break;
+            }
+        } else {
+            throw new IllegalStateException("Expected a string but was " + token + locationString());
+        }
+        consumeValue();
+        return result;
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        consumeValue();
+        return peekedType == TRUE;
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+        consumeValue();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        JsonToken token = peek();
+        double result;
+        if (token == JsonToken.NUMBER && peekedType == LONG) {
+            result = peekedLong;
+        } else if (token == JsonToken.NUMBER && peekedType == DOUBLE) {
+            result = peekedDouble;
+        } else if (token == JsonToken.NUMBER && peekedType == FLOAT) {
+            // read a float as the double its text form would give
+            result = Double.parseDouble(Float.toString((float) peekedDouble));
+        } else if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            result = Double.parseDouble(peekedString); // don't catch this NumberFormatException
+        } else {
+            throw new IllegalStateException("Expected a double but was " + token + locationString());
+        }
+        if (!isLenient() && (Double.isNaN(result) || Double.isInfinite(result))) {
+            throw new MalformedJsonException("JSON forbids NaN and infinities: " + result + locationString());
+        }
+        consumeValue();
+        return result;
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        JsonToken token = peek();
+        long result;
+        if (token == JsonToken.NUMBER && peekedType == LONG) {
+            result = peekedLong;
+        } else if (token == JsonToken.NUMBER && (peekedType == DOUBLE || peekedType == FLOAT)) {
+            result = (long) peekedDouble;
+            if (result != peekedDouble) {
+                throw new NumberFormatException("Expected a long but was " + peekedDouble + locationString());
+            }
+        } else if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            result = parseLong(peekedString);
+        } else {
+            throw new IllegalStateException("Expected a long but was " + token + locationString());
+        }
+        consumeValue();
+        return result;
+    }
+
+    private long parseLong(String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException ignored) {
+            // fall back to parsing as a double below
+        }
+        double asDouble = Double.parseDouble(s); // don't catch this NumberFormatException
+        long result = (long) asDouble;
+        if (result != asDouble) { // make sure no precision was lost casting to 'long'
+            throw new NumberFormatException("Expected a long but was " + s + locationString());
+        }
+        return result;
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        JsonToken token = peek();
+        long asLong;
+        if (token == JsonToken.NUMBER && peekedType == LONG) {
+            asLong = peekedLong;
+        } else if (token == JsonToken.NUMBER && (peekedType == DOUBLE || peekedType == FLOAT)) {
+            asLong = (long) peekedDouble;
+            if (asLong != peekedDouble) {
+                throw new NumberFormatException("Expected an int but was " + peekedDouble + locationString());
+            }
+        } else if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            asLong = parseLong(peekedString);
+        } else {
+            throw new IllegalStateException("Expected an int but was " + token + locationString());
+        }
+        int result = (int) asLong;
+        if (result != asLong) { // make sure no precision was lost casting to 'int'
+            throw new NumberFormatException("Expected an int but was " + asLong + locationString());
+        }
+        consumeValue();
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = null;
+        stack[0] = SCOPE_CLOSED;
+        stackSize = 1;
+        in.close();
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        if (peek() == JsonToken.NAME) {
+            nextName();
+            pathNames[stackSize - 1] = "null";
+            return;
+        }
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case END_DOCUMENT:
+                    throw new IllegalStateException("Expected a value but was END_DOCUMENT" + locationString());
+                default:
+                    consumeValue();
+                    break;
+            }
+        } while (depth > 0);
+        if (stack[stackSize - 1] == SCOPE_OBJECT_NAME) {
+            pathNames[stackSize - 1] = "null";
+        }
+    }
+
+    /**
+     * Turns the peeked name into a string value, for map keys.
+     */
+    void promoteNameToValue() throws IOException {
+        expect(JsonToken.NAME);
+        peeked = JsonToken.STRING;
+        peekedType = STRING;
+        promotedName = true;
+    }
+
+    private void expect(JsonToken expected) throws IOException {
+        JsonToken token = peek();
+        if (token != expected) {
+            throw new IllegalStateException("Expected " + expected + " but was " + token + locationString());
+        }
+    }
+
+    private void consumeValue() {
+        peeked = null;
+        if (promotedName) {
+            promotedName = false;
+            stack[stackSize - 1] = SCOPE_OBJECT_VALUE;
+            return;
+        }
+        afterValue();
+    }
+
+    private void afterValue() {
+        int scope = stack[stackSize - 1];
+        if (scope == SCOPE_OBJECT_VALUE) {
+            stack[stackSize - 1] = SCOPE_OBJECT_NAME;
+        } else if (scope == SCOPE_ARRAY) {
+            pathIndices[stackSize - 1]++;
+        }
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            int[] newPathIndices = new int[stackSize * 2];
+            String[] newPathNames = new String[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            System.arraycopy(pathIndices, 0, newPathIndices, 0, stackSize);
+            System.arraycopy(pathNames, 0, newPathNames, 0, stackSize);
+            stack = newStack;
+            pathIndices = newPathIndices;
+            pathNames = newPathNames;
+        }
+        pathIndices[stackSize] = 0;
+        pathNames[stackSize] = null;
+        stack[stackSize++] = scope;
+    }
+
+    private int readLength() throws IOException {
+        long length = readVarint();
+        if (length > Integer.MAX_VALUE) {
+            throw syntaxError("Length too large: " + length);
+        }
+        return (int) length;
+    }
+
+    private long readVarint() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos == limit && !fillBuffer(1)) {
+                throw new EOFException("End of input" + locationString());
+            }
+            int b = buffer[pos++];
+            result |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw syntaxError("Malformed varint");
+    }
+
+    private long readFixed(int bytes) throws IOException {
+        if (limit - pos < bytes && !fillBuffer(bytes)) {
+            throw new EOFException("End of input" + locationString());
+        }
+        long result = 0;
+        for (int i = 0; i < bytes; i++) {
+            result = (result << 8) | (buffer[pos++] & 0xff);
+        }
+        return result;
+    }
+
+    private String readUtf8(int length) throws IOException {
+        if (length <= buffer.length) {
+            if (limit - pos < length && !fillBuffer(length)) {
+                throw new EOFException("End of input" + locationString());
+            }
+            String result = new String(buffer, pos, length, UTF_8);
+            pos += length;
+            return result;
+        }
+        byte[] bytes = new byte[length];
+        int count = Math.min(limit - pos, length);
+        System.arraycopy(buffer, pos, bytes, 0, count);
+        pos += count;
+        while (count < length) {
+            int read = in.read(bytes, count, length - count);
+            if (read == -1) {
+                throw new EOFException("End of input" + locationString());
+            }
+            count += read;
+            bufferStart += read;
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Reads until the buffer holds at least {@code minimum} unread bytes,
+     * which may be at most its capacity. Returns false if the stream ends
+     * first.
+     */
+    private boolean fillBuffer(int minimum) throws IOException {
+        bufferStart += pos;
+        limit -= pos;
+        System.arraycopy(buffer, pos, buffer, 0, limit);
+        pos = 0;
+        int read;
+        while ((read = in.read(buffer, limit, buffer.length - limit)) != -1) {
+            limit += read;
+            if (limit >= minimum) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String getPath() {
+        StringBuilder result = new StringBuilder().append('$');
+        for (int i = 1; i < stackSize; i++) {
+            switch (stack[i]) {
+                case SCOPE_ARRAY:
+                    result.append('[').append(pathIndices[i]).append(']');
+                    break;
+                case SCOPE_OBJECT_NAME:
+                case SCOPE_OBJECT_VALUE:
+                    result.append('.');
+                    if (pathNames[i] != null) {
+                        result.append(pathNames[i]);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return result.toString();
+    }
+
+    @Override
+    String locationString() {
+        return " at offset " + (bufferStart + pos) + " path " + getPath();
+    }
+
+    private MalformedJsonException syntaxError(String message) throws IOException {
+        throw new MalformedJsonException(message + locationString());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + locationString();
+    }
+}
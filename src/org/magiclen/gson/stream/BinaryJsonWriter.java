@@ -0,0 +1,555 @@
+/*
+ * Copyright (C) 2010 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes JSON values in a compact binary encoding that is read back by
+ * {@link BinaryJsonReader}. It has the same methods as {@link JsonWriter}, so
+ * any {@code TypeAdapter} can write to it, for example with
+ * {@code Gson.toJson(Object, Type, JsonWriter)}.
+ *
+ * <h3>Encoding</h3>
+ * Every token starts with a byte that gives its type, followed by its payload.
+ * Integers are zigzag-encoded base-128 varints, and floating point numbers
+ * are IEEE 754 values in big-endian byte order, so no number is ever
+ * formatted as text. Strings and property names are UTF-8 prefixed with their
+ * length. Each distinct property name is written once: the first occurrence
+ * adds it to a dictionary, and later occurrences refer to it by index.
+ *
+ * <table border="1">
+ * <tr><th>Byte</th><th>Token</th><th>Payload</th></tr>
+ * <tr><td>0x00 - 0x02</td><td>null, false, true</td><td></td></tr>
+ * <tr><td>0x03, 0x04</td><td>begin / end array</td><td></td></tr>
+ * <tr><td>0x05, 0x06</td><td>begin / end object</td><td></td></tr>
+ * <tr><td>0x07</td><td>integer</td><td>zigzag varint</td></tr>
+ * <tr><td>0x08</td><td>double</td><td>8 bytes</td></tr>
+ * <tr><td>0x09</td><td>float</td><td>4 bytes</td></tr>
+ * <tr><td>0x0A</td><td>number too large for the above</td><td>varint length,
+ * decimal text</td></tr>
+ * <tr><td>0x0B</td><td>string</td><td>varint length, UTF-8</td></tr>
+ * <tr><td>0x0C</td><td>new name</td><td>varint length, UTF-8</td></tr>
+ * <tr><td>0x0D</td><td>name reference</td><td>varint index</td></tr>
+ * <tr><td>0x40 - 0x7F</td><td>integer -16 to 47</td><td></td></tr>
+ * <tr><td>0x80 - 0x9F</td><td>string of 0 to 31 bytes</td><td>UTF-8</td></tr>
+ * <tr><td>0xA0 - 0xBF</td><td>new name of 0 to 31 bytes</td><td>UTF-8</td></tr>
+ * <tr><td>0xC0 - 0xFF</td><td>name reference 0 to 63</td><td></td></tr>
+ * </table>
+ *
+ * <p>
+ * Names of at most {@value #MAX_DICTIONARY_NAME_LENGTH} chars are added to
+ * the dictionary until it holds {@value #MAX_DICTIONARY_SIZE} names. A stream
+ * may hold several top-level values, which share the dictionary.
+ *
+ * <p>
+ * Indentation and HTML escaping have no meaning in this encoding and are
+ * ignored. Instances of this class are not thread safe.
+ */
+public final class BinaryJsonWriter extends JsonWriter {
+
+    static final int NULL = 0x00;
+    static final int FALSE = 0x01;
+    static final int TRUE = 0x02;
+    static final int BEGIN_ARRAY = 0x03;
+    static final int END_ARRAY = 0x04;
+    static final int BEGIN_OBJECT = 0x05;
+    static final int END_OBJECT = 0x06;
+    static final int LONG = 0x07;
+    static final int DOUBLE = 0x08;
+    static final int FLOAT = 0x09;
+    static final int NUMBER_TEXT = 0x0a;
+    static final int STRING = 0x0b;
+    static final int NAME = 0x0c;
+    static final int NAME_REFERENCE = 0x0d;
+    static final int SMALL_INT = 0x40;
+    static final int SMALL_INT_ZERO = 0x50;
+    static final int SHORT_STRING = 0x80;
+    static final int SHORT_NAME = 0xa0;
+    static final int SHORT_NAME_REFERENCE = 0xc0;
+
+    static final int MIN_SMALL_INT = SMALL_INT - SMALL_INT_ZERO;
+    static final int MAX_SMALL_INT = SHORT_STRING - 1 - SMALL_INT_ZERO;
+    static final int MAX_SHORT_LENGTH = 31;
+    static final int MAX_SHORT_REFERENCE = 63;
+
+    static final int MAX_DICTIONARY_SIZE = 1024;
+    static final int MAX_DICTIONARY_NAME_LENGTH = 64;
+
+    private static final Writer UNWRITABLE_WRITER = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int counter) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() throws IOException {
+            throw new AssertionError();
+        }
+    };
+
+    private static final int SCOPE_ARRAY = 1;
+    private static final int SCOPE_OBJECT = 2;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int count;
+
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+
+    private String deferredName;
+    private boolean closed;
+
+    /**
+     * Creates a new instance that writes the encoded values to {@code out}.
+     * For best performance, the stream should not be buffered: this writer
+     * buffers its output itself.
+     */
+    public BinaryJsonWriter(OutputStream out) {
+        super(UNWRITABLE_WRITER);
+        if (out == null) {
+            throw new NullPointerException("out == null");
+        }
+        this.out = out;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        writeByte(BEGIN_ARRAY);
+        push(SCOPE_ARRAY);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        return close(SCOPE_ARRAY, END_ARRAY);
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        writeByte(BEGIN_OBJECT);
+        push(SCOPE_OBJECT);
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        return close(SCOPE_OBJECT, END_OBJECT);
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private JsonWriter close(int scope, int token) throws IOException {
+        if (stackSize == 0 || stack[stackSize - 1] != scope) {
+            throw new IllegalStateException("Nesting problem.");
+        }
+        if (deferredName != null) {
+            throw new IllegalStateException("Dangling name: " + deferredName);
+        }
+        stackSize--;
+        writeByte(token);
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        if (deferredName != null) {
+            throw new IllegalStateException();
+        }
+        if (stackSize == 0 || stack[stackSize - 1] != SCOPE_OBJECT) {
+            throw new IllegalStateException("Nesting problem.");
+        }
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(PreEncodedName name) throws IOException {
+        return name(name.getName());
+    }
+
+    private void writeDeferredName() throws IOException {
+        String name = deferredName;
+        deferredName = null;
+        Integer index = dictionary.get(name);
+        if (index != null) {
+            int i = index;
+            if (i <= MAX_SHORT_REFERENCE) {
+                writeByte(SHORT_NAME_REFERENCE + i);
+            } else {
+                writeByte(NAME_REFERENCE);
+                writeVarint(i);
+            }
+            return;
+        }
+        if (name.length() <= MAX_DICTIONARY_NAME_LENGTH && dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.put(name, dictionary.size());
+        }
+        writeUtf8(SHORT_NAME, NAME, name);
+    }
+
+    /**
+     * Writes the deferred name, or checks that a value may be written here.
+     */
+    private void beforeValue() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("JsonWriter is closed.");
+        }
+        if (deferredName != null) {
+            writeDeferredName();
+        } else if (stackSize > 0 && stack[stackSize - 1] == SCOPE_OBJECT) {
+            throw new IllegalStateException("Nesting problem.");
+        }
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeUtf8(SHORT_STRING, STRING, value);
+        return this;
+    }
+
+    /**
+     * Encodes the JSON text {@code value}, which is parsed leniently and
+     * written as the equivalent tokens.
+     */
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        JsonReader in = new JsonReader(new StringReader(value));
+        in.setLenient(true);
+        int depth = 0;
+        do {
+            switch (in.peek()) {
+                case BEGIN_ARRAY:
+                    in.beginArray();
+                    beginArray();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    in.endArray();
+                    endArray();
+                    depth--;
+                    break;
+                case BEGIN_OBJECT:
+                    in.beginObject();
+                    beginObject();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    in.endObject();
+                    endObject();
+                    depth--;
+                    break;
+                case NAME:
+                    name(in.nextName());
+                    break;
+                case STRING:
+                    value(in.nextString());
+                    break;
+                case NUMBER:
+                    beforeValue();
+                    number(in.nextString());
+                    break;
+                case BOOLEAN:
+                    value(in.nextBoolean());
+                    break;
+                case NULL:
+                    in.nextNull();
+                    nullValue();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Incomplete JSON value: " + value);
+            }
+        } while (depth > 0);
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (deferredName != null && !getSerializeNulls()) {
+            deferredName = null;
+            return this; // skip the name and the value
+        }
+        beforeValue();
+        writeByte(NULL);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        writeByte(value ? TRUE : FALSE);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        return value(value.booleanValue());
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+            throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+        }
+        beforeValue();
+        writeByte(DOUBLE);
+        writeLong(Double.doubleToRawLongBits(value), 8);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(float value) throws IOException {
+        if (!isLenient() && (Float.isNaN(value) || Float.isInfinite(value))) {
+            throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+        }
+        beforeValue();
+        writeByte(FLOAT);
+        writeLong(Float.floatToRawIntBits(value), 4);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        writeInteger(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof AtomicInteger || value instanceof AtomicLong) {
+            return value(value.longValue());
+        }
+        if (value instanceof Double) {
+            return value(value.doubleValue());
+        }
+        if (value instanceof Float) {
+            return value(value.floatValue());
+        }
+        if (!isLenient()) {
+            double d = value.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+            }
+        }
+        beforeValue();
+        if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+            writeInteger(value.longValue());
+        } else if (value instanceof BigDecimal) {
+            writeText(NUMBER_TEXT, value.toString());
+        } else {
+            number(value.toString());
+        }
+        return this;
+    }
+
+    /**
+     * Writes a number given as text, as an integer if it is one that fits.
+     */
+    private void number(String text) throws IOException {
+        int length = text.length();
+        int start = length > 1 && text.charAt(0) == '-' ? 1 : 0;
+        boolean integer = length - start > 0 && length - start <= 18;
+        for (int i = start; integer && i < length; i++) {
+            char c = text.charAt(i);
+            integer = c >= '0' && c <= '9';
+        }
+        if (integer && (length - start == 1 || text.charAt(start) != '0')) {
+            writeInteger(Long.parseLong(text));
+        } else {
+            writeText(NUMBER_TEXT, text);
+        }
+    }
+
+    private void writeInteger(long value) throws IOException {
+        if (value >= MIN_SMALL_INT && value <= MAX_SMALL_INT) {
+            writeByte(SMALL_INT_ZERO + (int) value);
+        } else {
+            writeByte(LONG);
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+    }
+
+    private void writeText(int token, String text) throws IOException {
+        writeByte(token);
+        writeVarint(text.length());
+        for (int i = 0, length = text.length(); i < length; i++) {
+            writeByte(text.charAt(i));
+        }
+    }
+
+    /**
+     * Writes {@code s} as UTF-8, prefixed with {@code shortToken} plus its
+     * length if it is short, or with {@code token} and its length otherwise.
+     */
+    private void writeUtf8(int shortToken, int token, String s) throws IOException {
+        int length = s.length();
+        int utf8Length = length;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                utf8Length += 1;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                utf8Length += 2;
+                i++;
+            }
+        }
+        if (utf8Length <= MAX_SHORT_LENGTH) {
+            writeByte(shortToken + utf8Length);
+        } else {
+            writeByte(token);
+            writeVarint(utf8Length);
+        }
+        for (int i = 0; i < length; i++) {
+            if (count + 4 > buffer.length) {
+                flushBuffer();
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[count++] = (byte) (0xc0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                buffer[count++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buffer[count++] = '?'; // an unpaired surrogate cannot be encoded
+            } else {
+                buffer[count++] = (byte) (0xe0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[count++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private void writeVarint(long value) throws IOException {
+        ensureCapacity(10);
+        while ((value & ~0x7fL) != 0) {
+            buffer[count++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buffer[count++] = (byte) value;
+    }
+
+    private void writeLong(long bits, int bytes) throws IOException {
+        ensureCapacity(bytes);
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[count++] = (byte) (bits >> shift);
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (count + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+
+    /**
+     * Writes the buffered bytes and flushes the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("JsonWriter is closed.");
+        }
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes this writer and the underlying stream.
+     *
+     * @throws IOException if the JSON document is incomplete.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flushBuffer();
+        out.close();
+        closed = true;
+        if (stackSize > 0) {
+            throw new IOException("Incomplete document");
+        }
+    }
+}
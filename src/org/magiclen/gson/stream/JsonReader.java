@@ -17,6 +17,7 @@ package org.magiclen.gson.stream;
 
 import org.magiclen.gson.internal.JsonReaderInternalAccess;
 import org.magiclen.gson.internal.bind.JsonTreeReader;
+import org.magiclen.gson.internal.bind.ReplayingJsonReader;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
@@ -1618,6 +1619,14 @@ public class JsonReader implements Closeable {
                     ((JsonTreeReader) reader).promoteNameToValue();
                     return;
                 }
+                if (reader instanceof BinaryJsonReader) {
+                    ((BinaryJsonReader) reader).promoteNameToValue();
+                    return;
+                }
+                if (reader instanceof ReplayingJsonReader) {
+                    ((ReplayingJsonReader) reader).promoteNameToValue();
+                    return;
+                }
                 int p = reader.peeked;
                 if (p == PEEKED_NONE) {
                     p = reader.doPeek();
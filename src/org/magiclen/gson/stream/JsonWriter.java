@@ -192,6 +192,12 @@ public class JsonWriter implements Closeable, Flushable {
 
     private String deferredName;
 
+    /**
+     * The pre-encoded form of {@link #deferredName}, or null if the name must
+     * be escaped when it is written.
+     */
+    private PreEncodedName deferredEncodedName;
+
     private boolean serializeNulls = true;
 
     /**
@@ -401,10 +407,28 @@ public class JsonWriter implements Closeable, Flushable {
         return this;
     }
 
+    /**
+     * Encodes the property name using its pre-encoded form. This is equivalent
+     * to {@code name(name.getName())} but does not escape the name again.
+     *
+     * @param name the name of the forthcoming value. May not be null.
+     * @return this writer.
+     */
+    public JsonWriter name(PreEncodedName name) throws IOException {
+        name(name.getName());
+        deferredEncodedName = name;
+        return this;
+    }
+
     private void writeDeferredName() throws IOException {
         if (deferredName != null) {
             beforeName();
-            string(deferredName);
+            if (deferredEncodedName != null) {
+                out.write(htmlSafe ? deferredEncodedName.htmlSafeEncoded : deferredEncodedName.encoded);
+                deferredEncodedName = null;
+            } else {
+                string(deferredName);
+            }
             deferredName = null;
         }
     }
@@ -452,6 +476,7 @@ public class JsonWriter implements Closeable, Flushable {
                 writeDeferredName();
             } else {
                 deferredName = null;
+                deferredEncodedName = null;
                 return this; // skip the name and the value
             }
         }
@@ -504,6 +529,25 @@ public class JsonWriter implements Closeable, Flushable {
         return this;
     }
 
+    /**
+     * Encodes {@code value} with its shortest {@code float} representation, so
+     * {@code 0.1f} is written as {@code 0.1} rather than as its widened
+     * {@code double} value.
+     *
+     * @param value a finite value. May not be {@link Float#isNaN() NaNs} or
+     * {@link Float#isInfinite() infinities}.
+     * @return this writer.
+     */
+    public JsonWriter value(float value) throws IOException {
+        writeDeferredName();
+        if (!lenient && (Float.isNaN(value) || Float.isInfinite(value))) {
+            throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+        }
+        beforeValue();
+        out.append(Float.toString(value));
+        return this;
+    }
+
     /**
      * Encodes {@code value}.
      *
@@ -597,6 +641,37 @@ public class JsonWriter implements Closeable, Flushable {
         out.write("\"");
     }
 
+    /**
+     * Returns {@code value} quoted and escaped the same way {@link #string}
+     * writes it.
+     */
+    static char[] encodeString(String value, boolean htmlSafe) {
+        String[] replacements = htmlSafe ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
+        int length = value.length();
+        StringBuilder sb = new StringBuilder(length + 2);
+        sb.append('"');
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement = null;
+            if (c < 128) {
+                replacement = replacements[c];
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            }
+            if (replacement == null) {
+                sb.append(c);
+            } else {
+                sb.append(replacement);
+            }
+        }
+        sb.append('"');
+        char[] encoded = new char[sb.length()];
+        sb.getChars(0, encoded.length, encoded, 0);
+        return encoded;
+    }
+
     private void newline() throws IOException {
         if (indent == null) {
             return;
@@ -0,0 +1,549 @@
+/*
+ * Copyright (C) 2010 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.stream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Reads a UTF-8 encoded JSON text that arrives in chunks, without ever
+ * blocking. Unlike {@link JsonReader}, which pulls characters from a
+ * {@link java.io.Reader}, this reader is pushed bytes with
+ * {@link #feed(ByteBuffer)} as they become available, for example on an event
+ * loop thread. {@link #nextToken()} then returns the next complete token, or
+ * null when the bytes fed so far end in the middle of a token; the state is
+ * kept until more bytes are fed.
+ *
+ * <pre>   {@code
+ *   NonBlockingJsonReader reader = new NonBlockingJsonReader();
+ *   // for every chunk received:
+ *   reader.feed(chunk);
+ *   JsonToken token;
+ *   while ((token = reader.nextToken()) != null) {
+ *     ... // use getString() for names, strings and numbers
+ *   }
+ *   // when the input is complete:
+ *   reader.endOfInput();
+ *   ... // drain the remaining tokens up to END_DOCUMENT
+ * }</pre>
+ *
+ * <p>
+ * The input is parsed strictly according to RFC 7159, except that a sequence
+ * of top-level values, such as newline-delimited JSON, is accepted. Each
+ * instance reads a single input and is not thread-safe.
+ */
+public final class NonBlockingJsonReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // scopes, each one telling what is expected next
+    private static final int DOCUMENT = 0;
+    private static final int EMPTY_ARRAY = 1;
+    private static final int ARRAY_VALUE = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int OBJECT_NAME = 5;
+    private static final int DANGLING_NAME = 6;
+    private static final int OBJECT_VALUE = 7;
+    private static final int NONEMPTY_OBJECT = 8;
+
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private ByteBuffer pendingBytes = ByteBuffer.allocate(0);
+
+    private char[] buffer = new char[1024];
+    private int pos;
+    private int limit;
+    /**
+     * The number of chars discarded from the front of the buffer, for error
+     * messages.
+     */
+    private long discarded;
+    /**
+     * How far an incomplete string has been scanned, so that it is not
+     * scanned again from its start when more input arrives.
+     */
+    private int stringScanned = -1;
+
+    private int[] stack = new int[32];
+    private int stackSize = 1;
+
+    private boolean ended;
+    private String text;
+    private boolean booleanValue;
+
+    public NonBlockingJsonReader() {
+        stack[0] = DOCUMENT;
+    }
+
+    /**
+     * Appends the remaining bytes of {@code bytes} to the input. All of them
+     * are consumed; a multi-byte character cut at the end of the chunk is
+     * completed by the next one.
+     *
+     * @throws MalformedJsonException if the bytes are not valid UTF-8.
+     * @throws IllegalStateException if {@link #endOfInput()} was called.
+     */
+    public void feed(ByteBuffer bytes) throws IOException {
+        if (ended) {
+            throw new IllegalStateException("The input has ended");
+        }
+        ByteBuffer in;
+        if (pendingBytes.hasRemaining()) {
+            in = ByteBuffer.allocate(pendingBytes.remaining() + bytes.remaining());
+            in.put(pendingBytes).put(bytes);
+            in.flip();
+        } else {
+            in = bytes;
+        }
+        decode(in, false);
+        pendingBytes = in.hasRemaining() ? copyOf(in) : ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Tells that no more input will be fed. The remaining tokens, followed by
+     * {@link JsonToken#END_DOCUMENT}, can then be read.
+     *
+     * @throws MalformedJsonException if the input ends with a truncated UTF-8
+     * sequence.
+     */
+    public void endOfInput() throws IOException {
+        if (!ended) {
+            decode(pendingBytes, true);
+            pendingBytes = ByteBuffer.allocate(0);
+            ended = true;
+        }
+    }
+
+    private static ByteBuffer copyOf(ByteBuffer in) {
+        ByteBuffer copy = ByteBuffer.allocate(in.remaining());
+        copy.put(in);
+        copy.flip();
+        return copy;
+    }
+
+    private void decode(ByteBuffer in, boolean endOfInput) throws IOException {
+        // make room; chars before pos are no longer needed
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            if (stringScanned >= 0) {
+                stringScanned -= pos;
+            }
+            discarded += pos;
+            limit -= pos;
+            pos = 0;
+        }
+        int needed = limit + (int) Math.ceil(in.remaining() * (double) decoder.maxCharsPerByte()) + 1;
+        if (needed > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(needed, buffer.length * 2));
+        }
+        CharBuffer out = CharBuffer.wrap(buffer, limit, buffer.length - limit);
+        CoderResult result = decoder.decode(in, out, endOfInput);
+        if (!result.isUnderflow()) {
+            throw malformed("Invalid UTF-8 input", result);
+        }
+        if (endOfInput) {
+            result = decoder.flush(out);
+            if (!result.isUnderflow()) {
+                throw malformed("Invalid UTF-8 input", result);
+            }
+        }
+        limit = out.position();
+    }
+
+    private MalformedJsonException malformed(String message, CoderResult result) {
+        try {
+            result.throwException();
+        } catch (CharacterCodingException e) {
+            return new MalformedJsonException(message, e);
+        }
+        return new MalformedJsonException(message);
+    }
+
+    /**
+     * Returns the next token, or null if more input is needed to complete it.
+     * After {@link #endOfInput()}, returns {@link JsonToken#END_DOCUMENT} once
+     * all tokens have been read.
+     *
+     * @throws MalformedJsonException if the input is not valid JSON.
+     */
+    public JsonToken nextToken() throws IOException {
+        text = null;
+        while (true) {
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    break;
+                }
+                pos++;
+            }
+            if (pos == limit) {
+                if (!ended) {
+                    return null;
+                }
+                if (stackSize == 1) {
+                    return JsonToken.END_DOCUMENT;
+                }
+                throw syntaxError("End of input");
+            }
+            char c = buffer[pos];
+            int scope = stack[stackSize - 1];
+            switch (scope) {
+                case EMPTY_ARRAY:
+                    if (c == ']') {
+                        return endScope(JsonToken.END_ARRAY);
+                    }
+                    return value(c, NONEMPTY_ARRAY);
+                case ARRAY_VALUE:
+                    return value(c, NONEMPTY_ARRAY);
+                case NONEMPTY_ARRAY:
+                    if (c == ']') {
+                        return endScope(JsonToken.END_ARRAY);
+                    } else if (c == ',') {
+                        pos++;
+                        stack[stackSize - 1] = ARRAY_VALUE;
+                        continue;
+                    }
+                    throw syntaxError("Expected ',' or ']'");
+                case EMPTY_OBJECT:
+                    if (c == '}') {
+                        return endScope(JsonToken.END_OBJECT);
+                    }
+                    return name(c);
+                case OBJECT_NAME:
+                    return name(c);
+                case DANGLING_NAME:
+                    if (c != ':') {
+                        throw syntaxError("Expected ':'");
+                    }
+                    pos++;
+                    stack[stackSize - 1] = OBJECT_VALUE;
+                    continue;
+                case OBJECT_VALUE:
+                    return value(c, NONEMPTY_OBJECT);
+                case NONEMPTY_OBJECT:
+                    if (c == '}') {
+                        return endScope(JsonToken.END_OBJECT);
+                    } else if (c == ',') {
+                        pos++;
+                        stack[stackSize - 1] = OBJECT_NAME;
+                        continue;
+                    }
+                    throw syntaxError("Expected ',' or '}'");
+                default:
+                    return value(c, DOCUMENT);
+            }
+        }
+    }
+
+    /**
+     * Returns the text of the last {@link JsonToken#NAME},
+     * {@link JsonToken#STRING} or {@link JsonToken#NUMBER} token.
+     */
+    public String getString() {
+        if (text == null) {
+            throw new IllegalStateException("The last token has no text");
+        }
+        return text;
+    }
+
+    /**
+     * Returns the value of the last {@link JsonToken#BOOLEAN} token.
+     */
+    public boolean getBoolean() {
+        return booleanValue;
+    }
+
+    /**
+     * Returns the depth of nested arrays and objects at the current position;
+     * 0 between top-level values.
+     */
+    public int getDepth() {
+        return stackSize - 1;
+    }
+
+    private JsonToken endScope(JsonToken token) {
+        pos++;
+        stackSize--;
+        return token;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private JsonToken name(char c) throws IOException {
+        if (c != '"') {
+            throw syntaxError("Expected name");
+        }
+        if (!readString()) {
+            return null;
+        }
+        stack[stackSize - 1] = DANGLING_NAME;
+        return JsonToken.NAME;
+    }
+
+    private JsonToken value(char c, int scopeAfterValue) throws IOException {
+        JsonToken token;
+        switch (c) {
+            case '[':
+                pos++;
+                stack[stackSize - 1] = scopeAfterValue;
+                push(EMPTY_ARRAY);
+                return JsonToken.BEGIN_ARRAY;
+            case '{':
+                pos++;
+                stack[stackSize - 1] = scopeAfterValue;
+                push(EMPTY_OBJECT);
+                return JsonToken.BEGIN_OBJECT;
+            case '"':
+                if (!readString()) {
+                    return null;
+                }
+                token = JsonToken.STRING;
+                break;
+            case 't':
+                token = readLiteral("true", JsonToken.BOOLEAN);
+                booleanValue = true;
+                break;
+            case 'f':
+                token = readLiteral("false", JsonToken.BOOLEAN);
+                booleanValue = false;
+                break;
+            case 'n':
+                token = readLiteral("null", JsonToken.NULL);
+                break;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    token = readNumber();
+                    break;
+                }
+                throw syntaxError("Unexpected character '" + c + "'");
+        }
+        if (token != null) {
+            stack[stackSize - 1] = scopeAfterValue;
+        }
+        return token;
+    }
+
+    private JsonToken readLiteral(String literal, JsonToken token) throws IOException {
+        int length = literal.length();
+        int available = limit - pos;
+        for (int i = 0, n = Math.min(available, length); i < n; i++) {
+            if (buffer[pos + i] != literal.charAt(i)) {
+                throw syntaxError("Unexpected value");
+            }
+        }
+        if (available <= length && !ended) {
+            return null; // wait for the char after the literal as well
+        }
+        if (available < length
+                || (available > length && isLiteralChar(buffer[pos + length]))) {
+            throw syntaxError("Unexpected value");
+        }
+        pos += length;
+        return token;
+    }
+
+    private static boolean isLiteralChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '-' || c == '+' || c == '.';
+    }
+
+    private JsonToken readNumber() throws IOException {
+        int end = pos;
+        while (end < limit) {
+            char c = buffer[end];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                end++;
+            } else {
+                break;
+            }
+        }
+        if (end == limit && !ended) {
+            return null; // the number may continue
+        }
+        if (end < limit && isLiteralChar(buffer[end])) {
+            throw syntaxError("Malformed number");
+        }
+        if (!isValidNumber(pos, end)) {
+            throw syntaxError("Malformed number");
+        }
+        text = new String(buffer, pos, end - pos);
+        pos = end;
+        return JsonToken.NUMBER;
+    }
+
+    /**
+     * Checks {@code -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?}.
+     */
+    private boolean isValidNumber(int start, int end) {
+        int i = start;
+        if (i < end && buffer[i] == '-') {
+            i++;
+        }
+        if (i == end) {
+            return false;
+        }
+        if (buffer[i] == '0') {
+            i++;
+        } else {
+            int digits = digits(i, end);
+            if (digits == 0) {
+                return false;
+            }
+            i += digits;
+        }
+        if (i < end && buffer[i] == '.') {
+            i++;
+            int digits = digits(i, end);
+            if (digits == 0) {
+                return false;
+            }
+            i += digits;
+        }
+        if (i < end && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            i++;
+            if (i < end && (buffer[i] == '+' || buffer[i] == '-')) {
+                i++;
+            }
+            int digits = digits(i, end);
+            if (digits == 0) {
+                return false;
+            }
+            i += digits;
+        }
+        return i == end;
+    }
+
+    private int digits(int start, int end) {
+        int i = start;
+        while (i < end && buffer[i] >= '0' && buffer[i] <= '9') {
+            i++;
+        }
+        return i - start;
+    }
+
+    /**
+     * Reads the string starting at {@code pos} into {@link #text}, or returns
+     * false if its end has not been received yet.
+     */
+    private boolean readString() throws IOException {
+        int i = stringScanned >= 0 ? stringScanned : pos + 1;
+        boolean escaped = false;
+        while (i < limit) {
+            char c = buffer[i];
+            if (c == '\\') {
+                // skip the escaped char; an incomplete escape is rescanned
+                if (i + 1 >= limit) {
+                    break;
+                }
+                i += 2;
+                escaped = true;
+                continue;
+            }
+            if (c == '"') {
+                text = escaped || stringScanned >= 0
+                        ? unescape(pos + 1, i) : new String(buffer, pos + 1, i - pos - 1);
+                pos = i + 1;
+                stringScanned = -1;
+                return true;
+            }
+            if (c < 0x20) {
+                throw syntaxError("Unescaped control character U+" + String.format("%04X", (int) c)
+                        + " in string");
+            }
+            i++;
+        }
+        if (ended) {
+            throw syntaxError("Unterminated string");
+        }
+        stringScanned = i;
+        return false;
+    }
+
+    private String unescape(int start, int end) throws IOException {
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = buffer[i];
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            char escape = buffer[++i];
+            switch (escape) {
+                case 'u':
+                    if (i + 4 >= end) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+                    int value = 0;
+                    for (int j = i + 1; j <= i + 4; j++) {
+                        int digit = Character.digit(buffer[j], 16);
+                        if (digit < 0) {
+                            throw syntaxError("Malformed \\u escape sequence");
+                        }
+                        value = (value << 4) | digit;
+                    }
+                    builder.append((char) value);
+                    i += 4;
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    builder.append(escape);
+                    break;
+                default:
+                    throw syntaxError("Invalid escape sequence");
+            }
+        }
+        return builder.toString();
+    }
+
+    private MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message + " at offset " + (discarded + pos));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " at offset " + (discarded + pos);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2010 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.magiclen.gson.stream;
+
+/**
+ * A property name whose quoted and escaped JSON form is computed once. Writers
+ * that emit the same constant names repeatedly, such as the reflective type
+ * adapter, can pass an instance to {@link JsonWriter#name(PreEncodedName)} to
+ * skip escaping on every write.
+ *
+ * <p>
+ * Instances are immutable and may be shared between threads and writers. Both
+ * the plain and the {@link JsonWriter#setHtmlSafe HTML-safe} encodings are
+ * kept, so the right one is picked by the writer at write time.
+ */
+public final class PreEncodedName {
+
+    private final String name;
+    final char[] encoded;
+    final char[] htmlSafeEncoded;
+
+    /**
+     * Encodes {@code name} for later use.
+     *
+     * @param name the property name. May not be null.
+     */
+    public PreEncodedName(String name) {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        this.name = name;
+        this.encoded = JsonWriter.encodeString(name, false);
+        this.htmlSafeEncoded = JsonWriter.encodeString(name, true);
+    }
+
+    /**
+     * Returns the unencoded property name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -21,14 +21,33 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Array;
 import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Set;
 import org.magiclen.json.JSONArray;
 import org.magiclen.json.JSONException;
 import org.magiclen.json.JSONObject;
+import org.magiclen.json.JSONTokener;
 import org.magiclen.json.XML;
 import org.magiclen.gson.Gson;
+import org.magiclen.gson.GsonBuilder;
+import org.magiclen.gson.JsonArray;
+import org.magiclen.gson.JsonElement;
+import org.magiclen.gson.JsonNull;
+import org.magiclen.gson.JsonObject;
+import org.magiclen.gson.JsonParser;
+import org.magiclen.gson.JsonPrimitive;
 import org.magiclen.gson.JsonSyntaxException;
+import org.magiclen.gson.RetainedSize;
+import org.magiclen.gson.TypeAdapter;
+import org.magiclen.gson.internal.HeapEstimator;
+import org.magiclen.gson.internal.MappedFileReader;
+import org.magiclen.gson.internal.bind.JsonTreeReader;
+import org.magiclen.gson.reflect.TypeToken;
 
 /**
  * 結合json.org和Gson實作出的Mson，提供較為簡易方便的方式在物件與JSON和XML間進行轉換。
@@ -41,11 +60,68 @@ import org.magiclen.gson.JsonSyntaxException;
  */
 public final class Mson {
 
+    // -----內部類別-----
+    /**
+     * 以json.org輸出的文字保存的數值。縮小成int或long時依照JsonReader的規則，有小數或超出範圍會拋出NumberFormatException，使bindObject與toObject對同一份資料的判斷一致。
+     */
+    private static final class TextNumber extends Number {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+
+        TextNumber(final String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int intValue() {
+            final long value = longValue();
+            if ((int) value != value) {
+                throw new NumberFormatException("Expected an int but was " + text);
+            }
+            return (int) value;
+        }
+
+        @Override
+        public long longValue() {
+            try {
+                return Long.parseLong(text);
+            } catch (final NumberFormatException ex) {
+                final double asDouble = Double.parseDouble(text);
+                final long value = (long) asDouble;
+                if (value != asDouble) {
+                    throw new NumberFormatException("Expected a long but was " + text);
+                }
+                return value;
+            }
+        }
+
+        @Override
+        public float floatValue() {
+            return Float.parseFloat(text);
+        }
+
+        @Override
+        public double doubleValue() {
+            return Double.parseDouble(text);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
     // -----類別常數-----
     /**
-     * 建立Gson。
+     * 建立Gson。Mson為靜態共用，因此不讓快取的型態轉接器阻止應用程式的類別被卸載。
+     */
+    private final static Gson GSON = new GsonBuilder().enableWeakAdapterCacheKeys().create();
+    /**
+     * 解析json.org無法直接轉成JsonElement的值。
      */
-    private final static Gson GSON = new Gson();
+    private final static JsonParser JSON_PARSER = new JsonParser();
     /**
      * 編碼JSON字串時要取代的字串。
      */
@@ -59,7 +135,41 @@ public final class Mson {
      */
     private final static String[] ENCODE_JSON_REPLACEMENTS = {"\\\\", "\\\"", "\\n", "\\r", "\\t"};
 
+    // -----類別變數-----
+    /**
+     * 統計資料，未啟用時為null。
+     */
+    private static volatile MsonMetrics metrics;
+
     // -----類別方法-----
+    /**
+     * 啟用統計資料。已啟用時，傳回原本的統計資料。
+     *
+     * @return 傳回統計資料
+     */
+    public synchronized static MsonMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new MsonMetrics();
+        }
+        return metrics;
+    }
+
+    /**
+     * 停用統計資料，已取得的統計資料不會再更新。
+     */
+    public synchronized static void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * 取得統計資料。
+     *
+     * @return 傳回統計資料，若未啟用，傳回null
+     */
+    public static MsonMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * 完整複製JSON物件。
      *
@@ -78,12 +188,33 @@ public final class Mson {
      * @return 傳回新的JSON物件
      */
     public static JSONType clone(final JSONType jsonType, final boolean strict) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return copy(jsonType, strict, null);
+        }
+        final long start = System.nanoTime();
+        try {
+            return copy(jsonType, strict, m);
+        } finally {
+            m.record(MsonMetrics.Operation.CLONE, start);
+        }
+    }
+
+    /**
+     * 複製JSON物件。
+     *
+     * @param jsonType 傳入要複製的JSON物件(JSONType)
+     * @param strict 是否將JSON底下的所有內容都複製一份
+     * @param m 傳入統計資料，可為null
+     * @return 傳回新的JSON物件
+     */
+    private static JSONType copy(final JSONType jsonType, final boolean strict, final MsonMetrics m) {
         if (jsonType == null) {
             return null;
         }
 
         if (strict) {
-            return fromString(jsonType.toString());
+            return parseAny(jsonType.toString(), m);
         } else {
             final JSONType.Type type = jsonType.getType();
             switch (type) {
@@ -117,12 +248,35 @@ public final class Mson {
      * @return 傳回JSON物件
      */
     public static JSONType fromString(final String jsonString) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return parseAny(jsonString, null);
+        }
+        final long start = System.nanoTime();
+        try {
+            return parseAny(jsonString, m);
+        } finally {
+            m.addInput(MsonMetrics.Operation.FROM_STRING, MsonMetrics.length(jsonString));
+            m.record(MsonMetrics.Operation.FROM_STRING, start);
+        }
+    }
+
+    /**
+     * 將字串依序嘗試轉成各種JSONType，失敗會拋出例外。
+     *
+     * @param jsonString 傳入JSON格式的字串
+     * @param m 傳入統計資料，可為null
+     * @return 傳回JSON物件
+     */
+    private static JSONType parseAny(final String jsonString, final MsonMetrics m) {
         final JSONType.Type[] types = JSONType.Type.values();
         for (final JSONType.Type type : types) {
             try {
-                return fromString(jsonString, type);
+                return parse(jsonString, type);
             } catch (final Exception ex) {
-
+                if (m != null) {
+                    m.fallback(MsonMetrics.Operation.FROM_STRING);
+                }
             }
         }
         throw new JSONException("Undefined JSON's type or JSON string format error.");
@@ -136,6 +290,27 @@ public final class Mson {
      * @return 傳回JSON物件
      */
     public static JSONType fromString(final String jsonString, final JSONType.Type type) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return parse(jsonString, type);
+        }
+        final long start = System.nanoTime();
+        try {
+            return parse(jsonString, type);
+        } finally {
+            m.addInput(MsonMetrics.Operation.FROM_STRING, MsonMetrics.length(jsonString));
+            m.record(MsonMetrics.Operation.FROM_STRING, start);
+        }
+    }
+
+    /**
+     * 將字串轉成JSONType，失敗會拋出例外。
+     *
+     * @param jsonString 傳入JSON格式的字串
+     * @param type 傳入JSON的類型
+     * @return 傳回JSON物件
+     */
+    private static JSONType parse(final String jsonString, final JSONType.Type type) {
         switch (type) {
             case ARRAY:
                 return new JSONArray(jsonString);
@@ -145,13 +320,56 @@ public final class Mson {
         throw new JSONException("Undefined JSON's type.");
     }
 
+    /**
+     * 讀取UTF-8編碼的JSON檔案並轉成JSONType，失敗會拋出例外。檔案會以記憶體映射的方式分段讀取，位元組直接解碼至JSONTokener所包裝的BufferedReader的緩衝區，不經過其它緩衝區的複製，適合用來讀取很大的檔案。
+     *
+     * @param path 傳入JSON檔案的路徑
+     * @return 傳回JSON物件
+     * @throws IOException 讀取檔案時發生錯誤
+     */
+    public static JSONType fromFile(final Path path) throws IOException {
+        try (final MappedFileReader reader = new MappedFileReader(path)) {
+            final JSONTokener tokener = new JSONTokener(reader);
+            final char c = tokener.nextClean();
+            tokener.back();
+            switch (c) {
+                case '[':
+                    return new JSONArray(tokener);
+                case '{':
+                    return new JSONObject(tokener);
+            }
+            throw new JSONException("Undefined JSON's type or JSON string format error.");
+        }
+    }
+
     /**
      * 將XML轉成JSONType，失敗會拋出例外。
      *
      * @param xml 傳入XML格式的字串
      * @return 傳回JSON物件
      */
-    public static JSONType fromXML(String xml) {
+    public static JSONType fromXML(final String xml) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return parseXML(xml, null);
+        }
+        final long start = System.nanoTime();
+        try {
+            return parseXML(xml, m);
+        } finally {
+            m.addInput(MsonMetrics.Operation.FROM_XML, MsonMetrics.length(xml));
+            m.record(MsonMetrics.Operation.FROM_XML, start);
+        }
+    }
+
+    /**
+     * 將XML轉成JSONType，失敗會拋出例外。
+     *
+     * @param xml 傳入XML格式的字串
+     * @param m 傳入統計資料，可為null
+     * @return 傳回JSON物件
+     */
+    private static JSONType parseXML(String xml, final MsonMetrics m) {
         xml = xml.trim();
         final JSONObject obj = XML.toJSONObject("<root>".concat(xml).concat("</root>"));
         try {
@@ -174,6 +392,9 @@ public final class Mson {
                 return obj;
             }
         } catch (final Exception ex) {
+            if (m != null) {
+                m.fallback(MsonMetrics.Operation.FROM_XML);
+            }
             return obj;
         }
     }
@@ -185,7 +406,18 @@ public final class Mson {
      * @return 傳回XML格式的字串
      */
     public static String toXML(final JSONType json) {
-        return XML.toString(json);
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return XML.toString(json);
+        }
+        final long start = System.nanoTime();
+        try {
+            final String xml = XML.toString(json);
+            m.addOutput(MsonMetrics.Operation.TO_XML, xml.length());
+            return xml;
+        } finally {
+            m.record(MsonMetrics.Operation.TO_XML, start);
+        }
     }
 
     /**
@@ -195,7 +427,28 @@ public final class Mson {
      * @param type 傳入物件型態(Class)，愈前面的優先嘗試，如果不傳入型態，預設使用Object
      * @return 回傳轉換成的物件，如果轉換失敗，傳回null
      */
-    public static Object[] toArray(final JSONArray array, Type... type) {
+    public static Object[] toArray(final JSONArray array, final Type... type) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return convertToArray(array, null, type);
+        }
+        final long start = System.nanoTime();
+        try {
+            return convertToArray(array, m, type);
+        } finally {
+            m.record(MsonMetrics.Operation.TO_OBJECT, start);
+        }
+    }
+
+    /**
+     * 將JSONArray轉成物件陣列。
+     *
+     * @param array 傳入JSONArray物件
+     * @param m 傳入統計資料，可為null
+     * @param type 傳入物件型態(Class)，愈前面的優先嘗試，如果不傳入型態，預設使用Object
+     * @return 回傳轉換成的物件，如果轉換失敗，傳回null
+     */
+    private static Object[] convertToArray(final JSONArray array, final MsonMetrics m, Type... type) {
         if (array == null) {
             return null;
         }
@@ -213,7 +466,7 @@ public final class Mson {
                 final JSONObject jsonObj = (JSONObject) obj;
                 boolean success = false;
                 for (final Type t : type) {
-                    final Object o = toObject(jsonObj, t);
+                    final Object o = convertToObject(jsonObj, m, t);
                     if (o != null) {
                         objects[i] = o;
                         success = true;
@@ -225,7 +478,7 @@ public final class Mson {
                 }
             } else if (obj instanceof JSONArray) {
                 final JSONArray jsonArray = (JSONArray) obj;
-                final Object[] arr = toArray(jsonArray, type);
+                final Object[] arr = convertToArray(jsonArray, m, type);
                 if (arr == null) {
                     return null;
                 }
@@ -239,7 +492,7 @@ public final class Mson {
                         final Object o = Array.get(obj, k);
                         jsonArray.put(o);
                     }
-                    final Object[] arr = toArray(jsonArray, type);
+                    final Object[] arr = convertToArray(jsonArray, m, type);
                     if (arr == null) {
                         return null;
                     }
@@ -260,26 +513,201 @@ public final class Mson {
      * @param type 傳入物件型態(Class)，愈前面的優先嘗試，如果不傳入型態，預設使用Object
      * @return 回傳轉換成的物件，如果轉換失敗，傳回null
      */
-    public static Object toObject(final JSONObject object, Type... type) {
+    public static Object toObject(final JSONObject object, final Type... type) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return convertToObject(object, null, type);
+        }
+        final long start = System.nanoTime();
+        try {
+            return convertToObject(object, m, type);
+        } finally {
+            m.record(MsonMetrics.Operation.TO_OBJECT, start);
+        }
+    }
+
+    /**
+     * 將JSONObject轉成物件。
+     *
+     * @param object 傳入JSONObject物件
+     * @param m 傳入統計資料，可為null
+     * @param type 傳入物件型態(Class)，愈前面的優先嘗試，如果不傳入型態，預設使用Object
+     * @return 回傳轉換成的物件，如果轉換失敗，傳回null
+     */
+    private static Object convertToObject(final JSONObject object, final MsonMetrics m, Type... type) {
         if (object == null) {
             return null;
         }
         if (type == null || type.length == 0) {
             type = new Type[]{Object.class};
         }
+        final String json = object.toString();
+        if (m != null) {
+            m.addInput(MsonMetrics.Operation.TO_OBJECT, json.length());
+        }
         for (final Type t : type) {
             try {
-                final Object o = GSON.fromJson(object.toString(), t);
+                final Object o = GSON.fromJson(json, t);
                 if (o != null) {
                     return o;
                 }
             } catch (final JsonSyntaxException ex) {
-
+                if (m != null) {
+                    m.fallback(MsonMetrics.Operation.TO_OBJECT);
+                }
             }
         }
         return null;
     }
 
+    /**
+     * 將JSONArray轉成物件陣列，每個JSONObject元素的型態由選擇器決定，不會逐一嘗試轉換。同一個型態在整個陣列中只會取得一次型態轉接器，且JSONObject不會先轉成字串再解析。
+     *
+     * @param array 傳入JSONArray物件
+     * @param selector 傳入型態選擇器
+     * @return 回傳轉換成的物件，如果有JSONObject元素沒有符合的型態，傳回null
+     * @throws JsonSyntaxException 若JSONObject無法轉成選擇的型態
+     */
+    public static Object[] bindArray(final JSONArray array, final MsonTypeSelector selector) {
+        final MsonMetrics m = metrics;
+        final long start = m != null ? System.nanoTime() : 0L;
+        try {
+            return bindArray(array, selector, new TypeAdapter<?>[selector.size()]);
+        } finally {
+            if (m != null) {
+                m.record(MsonMetrics.Operation.TO_OBJECT, start);
+            }
+        }
+    }
+
+    /**
+     * 將JSONArray轉成物件陣列。
+     *
+     * @param array 傳入JSONArray物件
+     * @param selector 傳入型態選擇器
+     * @param adapters 傳入各候選型態已取得的型態轉接器
+     * @return 回傳轉換成的物件，如果有JSONObject元素沒有符合的型態，傳回null
+     */
+    private static Object[] bindArray(final JSONArray array, final MsonTypeSelector selector, final TypeAdapter<?>[] adapters) {
+        if (array == null) {
+            return null;
+        }
+        final int l = array.length();
+        final Object[] objects = new Object[l];
+        for (int i = 0; i < l; i++) {
+            final Object obj = array.get(i);
+            if (obj instanceof JSONObject) {
+                final JSONObject jsonObj = (JSONObject) obj;
+                final int index = selector.indexOf(jsonObj);
+                if (index < 0) {
+                    return null;
+                }
+                objects[i] = bind(jsonObj, selector, index, adapters);
+            } else if (obj instanceof JSONArray) {
+                final Object[] arr = bindArray((JSONArray) obj, selector, adapters);
+                if (arr == null) {
+                    return null;
+                }
+                objects[i] = arr;
+            } else if (obj.getClass().isArray()) {
+                final Object[] arr = bindArray(new JSONArray(obj), selector, adapters);
+                if (arr == null) {
+                    return null;
+                }
+                objects[i] = arr;
+            } else {
+                objects[i] = obj;
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * 將JSONObject轉成物件，型態由選擇器決定，不會逐一嘗試轉換，且JSONObject不會先轉成字串再解析。
+     *
+     * @param object 傳入JSONObject物件
+     * @param selector 傳入型態選擇器
+     * @return 回傳轉換成的物件，如果沒有符合的型態，傳回null
+     * @throws JsonSyntaxException 若JSONObject無法轉成選擇的型態
+     */
+    public static Object bindObject(final JSONObject object, final MsonTypeSelector selector) {
+        final MsonMetrics m = metrics;
+        final long start = m != null ? System.nanoTime() : 0L;
+        try {
+            if (object == null) {
+                return null;
+            }
+            final int index = selector.indexOf(object);
+            if (index < 0) {
+                return null;
+            }
+            return bind(object, selector, index, new TypeAdapter<?>[selector.size()]);
+        } finally {
+            if (m != null) {
+                m.record(MsonMetrics.Operation.TO_OBJECT, start);
+            }
+        }
+    }
+
+    /**
+     * 將JSONObject轉成選擇的型態。
+     *
+     * @param object 傳入JSONObject物件
+     * @param selector 傳入型態選擇器
+     * @param index 傳入選擇的候選編號
+     * @param adapters 傳入各候選型態已取得的型態轉接器，尚未取得的會被填入
+     * @return 回傳轉換成的物件
+     */
+    private static Object bind(final JSONObject object, final MsonTypeSelector selector, final int index, final TypeAdapter<?>[] adapters) {
+        TypeAdapter<?> adapter = adapters[index];
+        if (adapter == null) {
+            adapter = GSON.getAdapter(TypeToken.get(selector.typeAt(index)));
+            adapters[index] = adapter;
+        }
+        try {
+            return adapter.read(new JsonTreeReader(toJsonElement(object)));
+        } catch (final IllegalStateException | NumberFormatException | IOException ex) {
+            throw new JsonSyntaxException(ex);
+        }
+    }
+
+    /**
+     * 將json.org的值轉成Gson的JsonElement，不經過字串。
+     *
+     * @param value 傳入值
+     * @return 傳回JsonElement
+     */
+    private static JsonElement toJsonElement(final Object value) {
+        if (value instanceof JSONObject) {
+            final JSONObject object = (JSONObject) value;
+            final JsonObject element = new JsonObject();
+            for (final String key : object.keySet()) {
+                element.add(key, toJsonElement(object.opt(key)));
+            }
+            return element;
+        } else if (value instanceof JSONArray) {
+            final JSONArray array = (JSONArray) value;
+            final int l = array.length();
+            final JsonArray element = new JsonArray(l);
+            for (int i = 0; i < l; i++) {
+                element.add(toJsonElement(array.opt(i)));
+            }
+            return element;
+        } else if (value == null || value == JSONObject.NULL) {
+            return JsonNull.INSTANCE;
+        } else if (value instanceof String) {
+            return new JsonPrimitive((String) value);
+        } else if (value instanceof Number) {
+            // 保留數值的文字，使縮小型態時的錯誤和toObject一樣被檢查出來
+            return new JsonPrimitive(new TextNumber(JSONObject.numberToString((Number) value)));
+        } else if (value instanceof Boolean) {
+            return new JsonPrimitive((Boolean) value);
+        } else {
+            // 其它的值以json.org的方式輸出後再解析，和toObject的結果一致
+            return JSON_PARSER.parse(JSONObject.valueToString(value));
+        }
+    }
+
     /**
      * 將一般物件轉成JSON物件(JSONType)。
      *
@@ -287,16 +715,36 @@ public final class Mson {
      * @return 傳回JSON物件，如果轉換失敗，傳回null
      */
     public static JSONType toJSON(final Object... objects) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return convertAll(objects, null);
+        }
+        final long start = System.nanoTime();
+        try {
+            return convertAll(objects, m);
+        } finally {
+            m.record(MsonMetrics.Operation.TO_JSON, start);
+        }
+    }
+
+    /**
+     * 將一般物件轉成JSON物件(JSONType)。
+     *
+     * @param objects 傳入物件
+     * @param m 傳入統計資料，可為null
+     * @return 傳回JSON物件，如果轉換失敗，傳回null
+     */
+    private static JSONType convertAll(final Object[] objects, final MsonMetrics m) {
         if (objects == null) {
             return null;
         }
         if (objects.length == 1) {
-            final JSONType json = toJSON(objects[0]);
+            final JSONType json = convert(objects[0], m);
             if (json != null) {
                 return json;
             }
         }
-        return toJSONArray(objects);
+        return convertAllToJSONArray(objects, m);
     }
 
     /**
@@ -306,14 +754,34 @@ public final class Mson {
      * @return 傳回JSONArray，如果轉換失敗，傳回null
      */
     public static JSONArray toJSONArray(final Object... objects) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return convertAllToJSONArray(objects, null);
+        }
+        final long start = System.nanoTime();
+        try {
+            return convertAllToJSONArray(objects, m);
+        } finally {
+            m.record(MsonMetrics.Operation.TO_JSON, start);
+        }
+    }
+
+    /**
+     * 將數個物件轉成JSONArray。
+     *
+     * @param objects 傳入物件
+     * @param m 傳入統計資料，可為null
+     * @return 傳回JSONArray，如果轉換失敗，傳回null
+     */
+    private static JSONArray convertAllToJSONArray(final Object[] objects, final MsonMetrics m) {
         try {
             final JSONArray array = new JSONArray();
             for (final Object obj : objects) {
-                final JSONObject json = toJSONObject(obj);
+                final JSONObject json = convertToJSONObject(obj, m);
                 if (json != null) {
                     array.put(json);
                 } else {
-                    final JSONArray jsonArray = toJSONArray(obj);
+                    final JSONArray jsonArray = convertToJSONArray(obj, m);
                     if (jsonArray != null) {
                         final int l = jsonArray.length();
                         for (int i = 0; i < l; i++) {
@@ -326,6 +794,9 @@ public final class Mson {
             }
             return array;
         } catch (JSONException ex) {
+            if (m != null) {
+                m.fallback(MsonMetrics.Operation.TO_JSON);
+            }
             return null;
         }
     }
@@ -337,9 +808,29 @@ public final class Mson {
      * @return 傳回JSON物件
      */
     public static JSONType toJSON(final Object object) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return convert(object, null);
+        }
+        final long start = System.nanoTime();
+        try {
+            return convert(object, m);
+        } finally {
+            m.record(MsonMetrics.Operation.TO_JSON, start);
+        }
+    }
+
+    /**
+     * 將一般物件依序嘗試轉成各種JSON物件(JSONType)。
+     *
+     * @param object 傳入一般物件
+     * @param m 傳入統計資料，可為null
+     * @return 傳回JSON物件
+     */
+    private static JSONType convert(final Object object, final MsonMetrics m) {
         final JSONType.Type[] types = JSONType.Type.values();
         for (final JSONType.Type type : types) {
-            final JSONType tmp = toJSON(object, type);
+            final JSONType tmp = convert(object, type, m);
             if (tmp != null) {
                 return tmp;
             }
@@ -355,11 +846,32 @@ public final class Mson {
      * @return 傳回JSON物件
      */
     public static JSONType toJSON(final Object object, final JSONType.Type type) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return convert(object, type, null);
+        }
+        final long start = System.nanoTime();
+        try {
+            return convert(object, type, m);
+        } finally {
+            m.record(MsonMetrics.Operation.TO_JSON, start);
+        }
+    }
+
+    /**
+     * 將一般物件轉成JSON物件(JSONType)。
+     *
+     * @param object 傳入一般物件
+     * @param type 傳入JSON的類型
+     * @param m 傳入統計資料，可為null
+     * @return 傳回JSON物件
+     */
+    private static JSONType convert(final Object object, final JSONType.Type type, final MsonMetrics m) {
         switch (type) {
             case ARRAY:
-                return toJSONArray(object);
+                return convertToJSONArray(object, m);
             case OBJECT:
-                return toJSONObject(object);
+                return convertToJSONObject(object, m);
         }
         throw new JSONException("Undefined JSON's type.");
     }
@@ -371,9 +883,36 @@ public final class Mson {
      * @return 傳回JSONArray，如果轉換失敗，傳回null
      */
     public static JSONArray toJSONArray(final Object object) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return convertToJSONArray(object, null);
+        }
+        final long start = System.nanoTime();
         try {
-            return new JSONArray(GSON.toJson(object));
+            return convertToJSONArray(object, m);
+        } finally {
+            m.record(MsonMetrics.Operation.TO_JSON, start);
+        }
+    }
+
+    /**
+     * 將物件轉成JSONArray。
+     *
+     * @param object 傳入物件
+     * @param m 傳入統計資料，可為null
+     * @return 傳回JSONArray，如果轉換失敗，傳回null
+     */
+    private static JSONArray convertToJSONArray(final Object object, final MsonMetrics m) {
+        final String json = GSON.toJson(object);
+        if (m != null) {
+            m.addOutput(MsonMetrics.Operation.TO_JSON, json.length());
+        }
+        try {
+            return new JSONArray(json);
         } catch (final JSONException ex) {
+            if (m != null) {
+                m.fallback(MsonMetrics.Operation.TO_JSON);
+            }
             return null;
         }
     }
@@ -385,9 +924,36 @@ public final class Mson {
      * @return 傳回JSONObject，如果轉換失敗，傳回null
      */
     public static JSONObject toJSONObject(final Object object) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return convertToJSONObject(object, null);
+        }
+        final long start = System.nanoTime();
         try {
-            return new JSONObject(GSON.toJson(object));
+            return convertToJSONObject(object, m);
+        } finally {
+            m.record(MsonMetrics.Operation.TO_JSON, start);
+        }
+    }
+
+    /**
+     * 將物件轉成JSONObject。
+     *
+     * @param object 傳入物件
+     * @param m 傳入統計資料，可為null
+     * @return 傳回JSONObject，如果轉換失敗，傳回null
+     */
+    private static JSONObject convertToJSONObject(final Object object, final MsonMetrics m) {
+        final String json = GSON.toJson(object);
+        if (m != null) {
+            m.addOutput(MsonMetrics.Operation.TO_JSON, json.length());
+        }
+        try {
+            return new JSONObject(json);
         } catch (final JSONException ex) {
+            if (m != null) {
+                m.fallback(MsonMetrics.Operation.TO_JSON);
+            }
             return null;
         }
     }
@@ -435,6 +1001,58 @@ public final class Mson {
         }
     }
 
+    /**
+     * 估計JSON物件(JSONType)與其所有子元素在堆積中佔用的位元組數，並依用途分類，可作為快取的權重。以迴圈走訪，不會因巢狀過深而堆疊溢位，同一個JSONType只計算一次。
+     *
+     * @param jsonType 傳入JSON物件
+     * @return 傳回估計的佔用大小
+     * @see RetainedSize
+     */
+    public static RetainedSize estimateRetainedSize(final JSONType jsonType) {
+        final HeapEstimator estimator = new HeapEstimator();
+        final Set<JSONType> visited = Collections.newSetFromMap(new IdentityHashMap<JSONType, Boolean>());
+        final Deque<JSONType> stack = new ArrayDeque<JSONType>();
+        stack.push(jsonType);
+        while (!stack.isEmpty()) {
+            final JSONType json = stack.pop();
+            if (!visited.add(json)) {
+                continue;
+            }
+            estimator.addContainer(1);
+            switch (json.getType()) {
+                case ARRAY: {
+                    final JSONArray array = (JSONArray) json;
+                    final int l = array.length();
+                    estimator.addArrayList(l);
+                    for (int i = 0; i < l; i++) {
+                        final Object value = array.opt(i);
+                        if (value instanceof JSONType) {
+                            stack.push((JSONType) value);
+                        } else if (value != JSONObject.NULL) {
+                            estimator.addValue(value);
+                        }
+                    }
+                    break;
+                }
+                case OBJECT: {
+                    final JSONObject object = (JSONObject) json;
+                    estimator.addHashMap(object.length());
+                    for (final String key : object.keySet()) {
+                        estimator.addString(key);
+                        final Object value = object.opt(key);
+                        if (value instanceof JSONType) {
+                            stack.push((JSONType) value);
+                        } else if (value != JSONObject.NULL) {
+                            estimator.addValue(value);
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        return estimator.toRetainedSize();
+    }
+
     /**
      * 將JSON物件(JSONType)轉成字串。
      *
@@ -453,9 +1071,31 @@ public final class Mson {
      * @return 傳回字串
      */
     public static String toString(final JSONType jsonType, final boolean format) {
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return format(jsonType, format);
+        }
+        final long start = System.nanoTime();
+        try {
+            final String string = format(jsonType, format);
+            m.addOutput(MsonMetrics.Operation.TO_STRING, MsonMetrics.length(string));
+            return string;
+        } finally {
+            m.record(MsonMetrics.Operation.TO_STRING, start);
+        }
+    }
+
+    /**
+     * 將JSON物件(JSONType)轉成字串。
+     *
+     * @param jsonType 傳入JSON物件
+     * @param format 是否要進行編排格式化
+     * @return 傳回字串
+     */
+    private static String format(final JSONType jsonType, final boolean format) {
         if (format) {
             try {
-                return toString(null, jsonType);
+                return write(null, jsonType, null);
             } catch (final IOException ex) {
                 //應該不會執行到這裡才對
                 return null;
@@ -474,7 +1114,7 @@ public final class Mson {
      * @throws java.io.IOException
      */
     public static String toString(final OutputStream outputStream, final JSONType jsonType) throws IOException {
-        return toString(outputStream, jsonType, 1, null);
+        return toString(outputStream, jsonType, null);
     }
 
     /**
@@ -487,25 +1127,74 @@ public final class Mson {
      * @throws java.io.IOException
      */
     public static String toString(final OutputStream outputStream, final JSONType jsonType, final MsonToStringListener listener) throws IOException {
-        return toString(outputStream, jsonType, 1, listener);
+        final MsonMetrics m = metrics;
+        if (m == null) {
+            return write(outputStream, jsonType, listener);
+        }
+        final long start = System.nanoTime();
+        if (outputStream == null) {
+            try {
+                final String string = write(null, jsonType, listener);
+                m.addOutput(MsonMetrics.Operation.TO_STRING, string.length());
+                return string;
+            } finally {
+                m.record(MsonMetrics.Operation.TO_STRING, start);
+            }
+        }
+        final MsonMetrics.CountingOutputStream counter = new MsonMetrics.CountingOutputStream(outputStream);
+        try {
+            return write(counter, jsonType, listener);
+        } finally {
+            m.addOutput(MsonMetrics.Operation.TO_STRING, counter.count);
+            m.record(MsonMetrics.Operation.TO_STRING, start);
+        }
     }
 
     /**
-     * 將物件轉成字串，或輸出至串流中。
+     * 將物件轉成格式化字串，或輸出至串流中。
      *
      * @param outputStream 傳入輸出串流，若為null，直接傳回字串
      * @param object 傳入物件
-     * @param tab 傳入要用Tab縮排的次數
-     * @param listener 傳入監聽者
+     * @param listener 傳入監聽者，可為null
      * @return 直接傳回字串；若是使用串流方式，傳回null
-     * @throws 若IO存取有問題，將拋出例外
+     * @throws IOException 若IO存取有問題，將拋出例外
      */
-    private static String toString(final OutputStream outputStream, final Object object, final int tab, final MsonToStringListener listener) throws IOException {
+    private static String write(final OutputStream outputStream, final Object object, final MsonToStringListener listener) throws IOException {
+        final MsonToStringMonitor monitor = listener instanceof MsonToStringMonitor ? (MsonToStringMonitor) listener : null;
+        OutputStream out = outputStream;
+        if (monitor != null) {
+            if (out != null && !(out instanceof MsonMetrics.CountingOutputStream)) {
+                out = new MsonMetrics.CountingOutputStream(out);
+            }
+            monitor.start();
+        }
+        final StringBuilder sb = out == null ? new StringBuilder() : null;
+        toString(out, sb, object, 1, listener, monitor);
+        if (monitor != null) {
+            monitor.finish(sb == null ? ((MsonMetrics.CountingOutputStream) out).count : sb.length());
+        }
+        return sb == null ? null : sb.toString();
+    }
+
+    /**
+     * 將物件轉成字串，輸出至串流或StringBuilder中。
+     *
+     * @param outputStream 傳入輸出串流，若為null，則輸出至sb
+     * @param sb 傳入StringBuilder，使用串流方式時為null
+     * @param object 傳入物件
+     * @param tab 傳入要用Tab縮排的次數
+     * @param listener 傳入監聽者，可為null
+     * @param monitor 傳入監視者，可為null，若不為null，則和listener是同一個物件
+     * @throws IOException 若IO存取有問題，將拋出例外
+     */
+    private static void toString(final OutputStream outputStream, final StringBuilder sb, final Object object, final int tab, final MsonToStringListener listener, final MsonToStringMonitor monitor) throws IOException {
         if (listener != null) {
             listener.doing(object, true, tab);
         }
         final boolean toStream = outputStream != null;
-        final StringBuilder sb = toStream ? null : new StringBuilder();
+        if (monitor != null && monitor.tick()) {
+            monitor.checkpoint(toStream ? ((MsonMetrics.CountingOutputStream) outputStream).count : sb.length());
+        }
         if (object instanceof JSONArray) {
             if (toStream) {
                 outputStream.write(new byte[]{91, 10}); // [\n
@@ -525,11 +1214,7 @@ public final class Mson {
                         sb.append("\t");
                     }
                 }
-                if (toStream) {
-                    toString(outputStream, obj, tab + 1, listener);
-                } else {
-                    sb.append(toString(null, obj, tab + 1, listener));
-                }
+                toString(outputStream, sb, obj, tab + 1, listener, monitor);
                 if (k != l - 1) {
                     if (toStream) {
                         outputStream.write(44); // ,
@@ -574,13 +1259,13 @@ public final class Mson {
                     outputStream.write(adjustKey.getBytes("UTF-8"));
                     outputStream.write(34); // \"
                     outputStream.write(new byte[]{32, 58, 32}); //  : 
-                    toString(outputStream, obj.get(key), tab + 1, listener);
                 } else {
                     for (int i = 0; i < tab; i++) {
                         sb.append("\t");
                     }
-                    sb.append("\"").append(adjustKey).append("\"").append(" : ").append(toString(null, obj.get(key), tab + 1, listener));
+                    sb.append("\"").append(adjustKey).append("\"").append(" : ");
                 }
+                toString(outputStream, sb, obj.get(key), tab + 1, listener, monitor);
                 if (k != l - 1) {
                     if (toStream) {
                         outputStream.write(44); // ,
@@ -635,11 +1320,7 @@ public final class Mson {
                             sb.append("\t");
                         }
                     }
-                    if (toStream) {
-                        toString(outputStream, obj, tab + 1, listener);
-                    } else {
-                        sb.append(toString(null, obj, tab + 1, listener));
-                    }
+                    toString(outputStream, sb, obj, tab + 1, listener, monitor);
                     if (k != l - 1) {
                         if (toStream) {
                             outputStream.write(44); // ,
@@ -683,11 +1364,6 @@ public final class Mson {
         if (listener != null) {
             listener.doing(object, false, tab);
         }
-        if (toStream) {
-            return null;
-        } else {
-            return sb.toString();
-        }
     }
 
     /**
@@ -0,0 +1,229 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.mson;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.magiclen.gson.internal.StripedCounter;
+import org.magiclen.gson.internal.bind.InstrumentedTypeAdapter;
+
+/**
+ * 統計Mson各項靜態操作的呼叫次數、輸入與輸出長度、耗時，以及因例外而改用下一個型態重試的次數。以Mson.enableMetrics()啟用，計數器與耗時分布的桶子都依執行緒分散在多個快取行上，多執行緒同時呼叫也不會互相競爭。
+ *
+ * <p>
+ * 只有直接呼叫的公開方法會被計算，Mson內部互相呼叫不會重複計算。例如toArray會計入一次TO_OBJECT，而不是每個元素各一次。
+ *
+ * @author Magic Len
+ * @see Mson#enableMetrics()
+ * @see MsonOperationStats
+ */
+public final class MsonMetrics implements MsonMetricsMXBean {
+
+    // -----類別列舉-----
+    /**
+     * Mson的操作種類。
+     */
+    public static enum Operation {
+
+        /**
+         * fromString。
+         */
+        FROM_STRING,
+        /**
+         * fromXML。
+         */
+        FROM_XML,
+        /**
+         * toString。
+         */
+        TO_STRING,
+        /**
+         * toXML。
+         */
+        TO_XML,
+        /**
+         * toObject與toArray。
+         */
+        TO_OBJECT,
+        /**
+         * toJSON、toJSONArray與toJSONObject。
+         */
+        TO_JSON,
+        /**
+         * clone。
+         */
+        CLONE;
+    }
+
+    // -----物件常數-----
+    private final Recorder[] recorders;
+
+    // -----建構子-----
+    MsonMetrics() {
+        final Operation[] operations = Operation.values();
+        recorders = new Recorder[operations.length];
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new Recorder();
+        }
+    }
+
+    // -----類別方法-----
+    /**
+     * 取得字串長度。
+     *
+     * @param string 傳入字串
+     * @return 傳回字串長度，若為null，傳回0
+     */
+    static long length(final String string) {
+        return string != null ? string.length() : 0;
+    }
+
+    // -----物件方法-----
+    /**
+     * 計入一次呼叫與其耗時。
+     *
+     * @param operation 傳入操作種類
+     * @param startNanos 傳入開始呼叫時的System.nanoTime()
+     */
+    void record(final Operation operation, final long startNanos) {
+        final Recorder recorder = recorders[operation.ordinal()];
+        recorder.latency.record(System.nanoTime() - startNanos);
+        recorder.calls.increment();
+    }
+
+    /**
+     * 計入一次重試。
+     *
+     * @param operation 傳入操作種類
+     */
+    void fallback(final Operation operation) {
+        recorders[operation.ordinal()].fallbacks.increment();
+    }
+
+    /**
+     * 計入輸入長度。
+     *
+     * @param operation 傳入操作種類
+     * @param length 傳入長度
+     */
+    void addInput(final Operation operation, final long length) {
+        recorders[operation.ordinal()].input.add(length);
+    }
+
+    /**
+     * 計入輸出長度。
+     *
+     * @param operation 傳入操作種類
+     * @param length 傳入長度
+     */
+    void addOutput(final Operation operation, final long length) {
+        recorders[operation.ordinal()].output.add(length);
+    }
+
+    @Override
+    public List<MsonOperationStats> getOperationStats() {
+        final Operation[] operations = Operation.values();
+        final List<MsonOperationStats> stats = new ArrayList<MsonOperationStats>(operations.length);
+        for (final Operation operation : operations) {
+            stats.add(getOperationStats(operation));
+        }
+        return stats;
+    }
+
+    /**
+     * 取得某種操作的統計快照。
+     *
+     * @param operation 傳入操作種類
+     * @return 傳回統計快照
+     */
+    public MsonOperationStats getOperationStats(final Operation operation) {
+        final Recorder recorder = recorders[operation.ordinal()];
+        return new MsonOperationStats(operation.name(), recorder.calls.sum(), recorder.fallbacks.sum(),
+                recorder.input.sum(), recorder.output.sum(), recorder.latency.getTotalNanos(), recorder.latency.getBuckets());
+    }
+
+    /**
+     * 清除所有統計資料，同時進行中的呼叫可能會有部份資料遺失。
+     */
+    @Override
+    public void reset() {
+        for (final Recorder recorder : recorders) {
+            recorder.calls.reset();
+            recorder.fallbacks.reset();
+            recorder.input.reset();
+            recorder.output.reset();
+            recorder.latency.reset();
+        }
+    }
+
+    /**
+     * 將統計資料以指定的名稱註冊到平台的MBean伺服器。
+     *
+     * @param name 傳入MBean的名稱
+     * @throws JMException 註冊失敗時，例如名稱已被使用
+     */
+    public void registerMBean(final ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+    }
+
+    // -----內部類別-----
+    /**
+     * 一種操作的計數器。
+     */
+    private static final class Recorder {
+
+        final StripedCounter calls = new StripedCounter();
+        final StripedCounter fallbacks = new StripedCounter();
+        final StripedCounter input = new StripedCounter();
+        final StripedCounter output = new StripedCounter();
+        /**
+         * 耗時分布，每個執行緒計入自己的一組桶子，和StripedCounter一樣不會共用快取行。
+         */
+        final InstrumentedTypeAdapter.Histogram latency = new InstrumentedTypeAdapter.Histogram();
+    }
+
+    /**
+     * 計算寫入位元組數的輸出串流。
+     */
+    static final class CountingOutputStream extends FilterOutputStream {
+
+        long count;
+
+        CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
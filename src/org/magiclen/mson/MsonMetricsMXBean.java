@@ -0,0 +1,41 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.mson;
+
+import java.util.List;
+
+/**
+ * MsonMetrics的JMX管理介面。
+ *
+ * @author Magic Len
+ * @see MsonMetrics
+ */
+public interface MsonMetricsMXBean {
+
+    /**
+     * 取得每種操作的統計快照。
+     *
+     * @return 傳回統計快照，依MsonMetrics.Operation的順序排列
+     */
+    public List<MsonOperationStats> getOperationStats();
+
+    /**
+     * 清除所有統計資料。
+     */
+    public void reset();
+}
@@ -0,0 +1,146 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.mson;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Mson某一種操作的統計快照。延遲以奈秒記錄在直方圖中，第i格計算有i個有效位元的耗時，也就是2<sup>i-1</sup>到2<sup>i</sup>-1奈秒。
+ *
+ * @author Magic Len
+ * @see MsonMetrics
+ */
+public final class MsonOperationStats {
+
+    // -----物件常數-----
+    private final String operation;
+    private final long calls;
+    private final long fallbacks;
+    private final long inputLength;
+    private final long outputLength;
+    private final long totalNanos;
+    private final long[] latencyHistogram;
+
+    // -----建構子-----
+    @ConstructorProperties({"operation", "calls", "fallbacks", "inputLength", "outputLength", "totalNanos", "latencyHistogram"})
+    public MsonOperationStats(final String operation, final long calls, final long fallbacks, final long inputLength, final long outputLength, final long totalNanos, final long[] latencyHistogram) {
+        this.operation = operation;
+        this.calls = calls;
+        this.fallbacks = fallbacks;
+        this.inputLength = inputLength;
+        this.outputLength = outputLength;
+        this.totalNanos = totalNanos;
+        this.latencyHistogram = latencyHistogram.clone();
+    }
+
+    // -----物件方法-----
+    /**
+     * 取得操作名稱。
+     *
+     * @return 傳回操作名稱，即MsonMetrics.Operation的名稱
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * 取得呼叫次數，包含拋出例外的呼叫。
+     *
+     * @return 傳回呼叫次數
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * 取得因例外而改用下一個型態重試的次數。
+     *
+     * @return 傳回重試次數
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * 取得輸入的JSON或XML文字總字元數。
+     *
+     * @return 傳回輸入長度
+     */
+    public long getInputLength() {
+        return inputLength;
+    }
+
+    /**
+     * 取得輸出的總長度。輸出成字串時為字元數，輸出至串流時為位元組數。
+     *
+     * @return 傳回輸出長度
+     */
+    public long getOutputLength() {
+        return outputLength;
+    }
+
+    /**
+     * 取得所有呼叫的總耗時。
+     *
+     * @return 傳回總耗時(奈秒)
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * 取得耗時的直方圖。
+     *
+     * @return 傳回直方圖的複本
+     */
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    /**
+     * 取得耗時某個分位數的上限。
+     *
+     * @param quantile 傳入0到1之間的分位數，例如0.99表示第99百分位數
+     * @return 傳回耗時上限(奈秒)，若沒有任何呼叫，傳回0
+     */
+    public long latencyQuantile(final double quantile) {
+        long total = 0;
+        for (final long count : latencyHistogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < latencyHistogram.length; i++) {
+            seen += latencyHistogram[i];
+            if (seen >= rank && seen > 0) {
+                return i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "{operation:" + operation + ",calls:" + calls + ",fallbacks:" + fallbacks
+                + ",inputLength:" + inputLength + ",outputLength:" + outputLength
+                + ",totalNanos:" + totalNanos + "}";
+    }
+}
@@ -18,10 +18,11 @@
 package org.magiclen.mson;
 
 /**
- * MSON的toString方法可能會耗用大量的時間，因此有個獨立的監聽者來監看程式的運作情形。
+ * MSON的toString方法可能會耗用大量的時間，因此有個獨立的監聽者來監看程式的運作情形。若需要回報輸出長度、取消或設定期限，請繼承MsonToStringMonitor。
  *
  * @author Magic Len
  * @see Mson
+ * @see MsonToStringMonitor
  * @see JSONType
  */
 public interface MsonToStringListener {
@@ -0,0 +1,181 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.mson;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可以回報進度、取消與設定期限的MsonToStringListener。Mson的toString方法每處理interval筆資料，才會檢查一次是否已被取消或超過期限，並呼叫progress方法，因此不會在每筆資料上增加額外的負擔。
+ *
+ * <p>
+ * 被取消或超過期限時，toString方法會拋出CancellationException，已輸出至串流的內容不會被收回。cancel方法可以從其它執行緒呼叫；其餘方法只會在執行toString的執行緒中被呼叫。同一個監視者可以重複使用，但不能同時用於多個toString。
+ *
+ * @author Magic Len
+ * @see Mson#toString(java.io.OutputStream, JSONType, MsonToStringListener)
+ */
+public abstract class MsonToStringMonitor implements MsonToStringListener {
+
+    // -----物件常數-----
+    /**
+     * 每處理幾筆資料檢查一次。
+     */
+    private final int interval;
+    /**
+     * 期限的長度(奈秒)，0表示沒有期限。
+     */
+    private final long timeoutNanos;
+
+    // -----物件變數-----
+    private volatile boolean cancelled;
+    private long deadline;
+    private long nodes;
+    private long length;
+    private int countdown;
+
+    // -----建構子-----
+    /**
+     * 建構子，沒有期限。
+     *
+     * @param interval 傳入每處理幾筆資料檢查一次
+     */
+    protected MsonToStringMonitor(final int interval) {
+        this(interval, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 建構子。
+     *
+     * @param interval 傳入每處理幾筆資料檢查一次
+     * @param timeout 傳入從開始toString起算的期限，0表示沒有期限
+     * @param unit 傳入期限的單位
+     */
+    protected MsonToStringMonitor(final int interval, final long timeout, final TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+        }
+        this.interval = interval;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    // -----物件方法-----
+    /**
+     * 每處理interval筆資料時，以及處理完畢時，會執行這個方法。
+     *
+     * @param nodes 已處理的資料筆數
+     * @param length 已輸出的長度，輸出成字串時為字元數，輸出至串流時為位元組數
+     */
+    protected abstract void progress(final long nodes, final long length);
+
+    /**
+     * 預設不做任何事，子類別可以覆寫來監看每筆資料。
+     */
+    @Override
+    public void doing(final Object object, final boolean enter, final int depth) {
+    }
+
+    /**
+     * 取消toString，會在下次檢查時生效。
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 是否已被取消。
+     *
+     * @return 傳回是否已被取消
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 取得最近一次檢查時已處理的資料筆數。
+     *
+     * @return 傳回資料筆數
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 取得最近一次檢查時已輸出的長度。
+     *
+     * @return 傳回輸出長度
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * 開始toString。
+     */
+    void start() {
+        if (cancelled) {
+            throw new CancellationException("The serialization was cancelled.");
+        }
+        deadline = timeoutNanos == 0 ? 0 : System.nanoTime() + timeoutNanos;
+        nodes = 0;
+        length = 0;
+        countdown = interval;
+    }
+
+    /**
+     * 計入一筆資料。
+     *
+     * @return 傳回是否該檢查了
+     */
+    boolean tick() {
+        nodes++;
+        if (--countdown == 0) {
+            countdown = interval;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 檢查是否已被取消或超過期限，並回報進度。
+     *
+     * @param length 傳入已輸出的長度
+     */
+    void checkpoint(final long length) {
+        this.length = length;
+        if (cancelled) {
+            throw new CancellationException("The serialization was cancelled after " + nodes + " nodes.");
+        }
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw new CancellationException("The serialization missed its deadline after " + nodes + " nodes.");
+        }
+        progress(nodes, length);
+    }
+
+    /**
+     * 結束toString，並回報最後的進度。
+     *
+     * @param length 傳入已輸出的長度
+     */
+    void finish(final long length) {
+        this.length = length;
+        progress(nodes, length);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.mson;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.magiclen.json.JSONObject;
+
+/**
+ * 在轉換成物件之前，先從JSONObject的內容決定要使用的型態，不必逐一嘗試轉換再捕捉例外。有兩種方式：
+ *
+ * <ul>
+ * <li>byField：依鑑別欄位的值選擇型態，例如<code>{"kind":"click", ...}</code>。</li>
+ * <li>byKeys：依序檢查每個型態需要的鍵，選擇第一個鍵都存在的型態。</li>
+ * </ul>
+ *
+ * 兩種方式都可以用otherwise設定沒有符合時使用的型態。請在使用前設定完成，設定完成後可以在多個執行緒中共用。
+ *
+ * @author Magic Len
+ * @see Mson#bindArray(org.magiclen.json.JSONArray, MsonTypeSelector)
+ * @see Mson#bindObject(JSONObject, MsonTypeSelector)
+ */
+public final class MsonTypeSelector {
+
+    // -----物件常數-----
+    /**
+     * 鑑別欄位的名稱，使用byKeys時為null。
+     */
+    private final String field;
+    /**
+     * 所有候選型態，索引即為候選編號。
+     */
+    private final List<Type> types = new ArrayList<Type>();
+    /**
+     * byField時，鑑別欄位的值對應到的候選編號。
+     */
+    private final Map<String, Integer> values = new HashMap<String, Integer>();
+    /**
+     * byKeys時，每個候選型態需要的鍵。
+     */
+    private final List<String[]> requiredKeys = new ArrayList<String[]>();
+
+    // -----物件變數-----
+    /**
+     * 沒有符合時使用的候選編號，-1表示沒有。
+     */
+    private int otherwise = -1;
+
+    // -----建構子-----
+    private MsonTypeSelector(final String field) {
+        this.field = field;
+    }
+
+    // -----類別方法-----
+    /**
+     * 建立依鑑別欄位的值選擇型態的選擇器。
+     *
+     * @param field 傳入鑑別欄位的名稱
+     * @return 傳回選擇器
+     */
+    public static MsonTypeSelector byField(final String field) {
+        if (field == null) {
+            throw new NullPointerException("field == null");
+        }
+        return new MsonTypeSelector(field);
+    }
+
+    /**
+     * 建立依需要的鍵是否都存在來選擇型態的選擇器。
+     *
+     * @return 傳回選擇器
+     */
+    public static MsonTypeSelector byKeys() {
+        return new MsonTypeSelector(null);
+    }
+
+    // -----物件方法-----
+    /**
+     * 當鑑別欄位的值為value時，使用type。僅適用於byField。
+     *
+     * @param value 傳入鑑別欄位的值，非字串的值以其字串形式比對
+     * @param type 傳入型態
+     * @return 傳回選擇器本身
+     */
+    public MsonTypeSelector when(final String value, final Type type) {
+        if (field == null) {
+            throw new IllegalStateException("Use when(Type, String...) with byKeys().");
+        }
+        if (values.containsKey(value)) {
+            throw new IllegalArgumentException("Duplicate value: " + value);
+        }
+        values.put(value, add(type));
+        return this;
+    }
+
+    /**
+     * 當keys都存在時，使用type。僅適用於byKeys，愈早加入的型態優先檢查，因此需要較多鍵的型態應該先加入。
+     *
+     * @param type 傳入型態
+     * @param keys 傳入需要的鍵
+     * @return 傳回選擇器本身
+     */
+    public MsonTypeSelector when(final Type type, final String... keys) {
+        if (field != null) {
+            throw new IllegalStateException("Use when(String, Type) with byField(String).");
+        }
+        requiredKeys.add(keys.clone());
+        add(type);
+        return this;
+    }
+
+    /**
+     * 沒有符合時，使用type。
+     *
+     * @param type 傳入型態
+     * @return 傳回選擇器本身
+     */
+    public MsonTypeSelector otherwise(final Type type) {
+        otherwise = add(type);
+        if (field == null) {
+            requiredKeys.add(null); // 不參與byKeys的比對
+        }
+        return this;
+    }
+
+    /**
+     * 為JSONObject選擇型態。
+     *
+     * @param object 傳入JSONObject
+     * @return 傳回型態，若沒有符合，傳回null
+     */
+    public Type select(final JSONObject object) {
+        final int index = indexOf(object);
+        return index < 0 ? null : types.get(index);
+    }
+
+    /**
+     * 取得候選型態的數量。
+     *
+     * @return 傳回數量
+     */
+    int size() {
+        return types.size();
+    }
+
+    /**
+     * 取得候選型態。
+     *
+     * @param index 傳入候選編號
+     * @return 傳回型態
+     */
+    Type typeAt(final int index) {
+        return types.get(index);
+    }
+
+    /**
+     * 為JSONObject選擇候選編號。
+     *
+     * @param object 傳入JSONObject
+     * @return 傳回候選編號，若沒有符合，傳回-1
+     */
+    int indexOf(final JSONObject object) {
+        if (field != null) {
+            final Object value = object.opt(field);
+            if (value != null) {
+                final Integer index = values.get(value instanceof String ? (String) value : value.toString());
+                if (index != null) {
+                    return index;
+                }
+            }
+            return otherwise;
+        }
+        final int size = requiredKeys.size();
+        for (int i = 0; i < size; i++) {
+            final String[] keys = requiredKeys.get(i);
+            if (keys != null && hasAll(object, keys)) {
+                return i;
+            }
+        }
+        return otherwise;
+    }
+
+    private static boolean hasAll(final JSONObject object, final String[] keys) {
+        for (final String key : keys) {
+            if (!object.has(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int add(final Type type) {
+        if (type == null) {
+            throw new NullPointerException("type == null");
+        }
+        types.add(type);
+        return types.size() - 1;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.gson;
+
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.magiclen.gson.reflect.TypeToken;
+
+/**
+ * 檢查多個值的JSON文字是否依照指定的JsonLayout拆分，而不是由第一個字元猜測。特別是每一筆都是陣列的NDJSON，必須以整個陣列為一個值。有檢查失敗時，以結束碼1結束。
+ *
+ * @author Magic Len
+ */
+public final class JsonLayoutTest {
+
+    // -----類別常數-----
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Type INTEGER_LIST = new TypeToken<List<Integer>>() {
+    }.getType();
+
+    // -----類別變數-----
+    private static boolean failed;
+
+    // -----類別方法-----
+    public static void main(final String[] args) throws Exception {
+        final Gson gson = new Gson();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            check("fromJsonParallel ARRAY of arrays",
+                    gson.<List<Integer>>fromJsonParallel(new StringReader("[[1,2],[3,4]]"), JsonLayout.ARRAY, INTEGER_LIST, executor),
+                    Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4)));
+            check("fromJsonParallel NDJSON of arrays",
+                    gson.<List<Integer>>fromJsonParallel(new StringReader("[1,2]\n[3,4]\n"), JsonLayout.VALUE_SEQUENCE, INTEGER_LIST, executor),
+                    Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4)));
+            check("fromJsonParallel single-line NDJSON of an array",
+                    gson.<List<Integer>>fromJsonParallel("[1,2,3]\n".getBytes(UTF_8), JsonLayout.VALUE_SEQUENCE, INTEGER_LIST, executor),
+                    Arrays.asList(Arrays.asList(1, 2, 3)));
+            check("fromJsonParallel NDJSON of numbers",
+                    gson.<Integer>fromJsonParallel(new StringReader("1\n2\n3"), JsonLayout.VALUE_SEQUENCE, Integer.class, executor),
+                    Arrays.asList(1, 2, 3));
+            try {
+                gson.<Integer>fromJsonParallel(new StringReader("1\n2\n"), JsonLayout.ARRAY, Integer.class, executor);
+                check("fromJsonParallel ARRAY rejects a value sequence", false);
+            } catch (final JsonSyntaxException ex) {
+                check("fromJsonParallel ARRAY rejects a value sequence", true);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        check("stream ARRAY of arrays", drain(gson.<List<Integer>>stream(new StringReader("[[1,2],[3,4]]"), JsonLayout.ARRAY, INTEGER_LIST)),
+                Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4)));
+        check("stream NDJSON of arrays", drain(gson.<List<Integer>>stream(new StringReader("[1,2]\n[3,4]\n"), JsonLayout.VALUE_SEQUENCE, INTEGER_LIST)),
+                Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4)));
+        check("stream empty NDJSON", drain(gson.stream(new StringReader(" \n"), JsonLayout.VALUE_SEQUENCE, Integer.class)),
+                Arrays.asList());
+        try {
+            drain(gson.stream(new StringReader("1\n2\n"), JsonLayout.ARRAY, Integer.class));
+            check("stream ARRAY rejects a value sequence", false);
+        } catch (final JsonSyntaxException ex) {
+            check("stream ARRAY rejects a value sequence", true);
+        }
+
+        check("push binder ARRAY of arrays", push(gson.<List<Integer>>newPushBinder(JsonLayout.ARRAY, INTEGER_LIST), "[[1,2],[3,4]]"),
+                Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4)));
+        check("push binder NDJSON of arrays", push(gson.<List<Integer>>newPushBinder(JsonLayout.VALUE_SEQUENCE, INTEGER_LIST), "[1,2]\n[3,4]\n"),
+                Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4)));
+        try {
+            push(gson.newPushBinder(JsonLayout.ARRAY, Integer.class), "1\n2\n");
+            check("push binder ARRAY rejects a value sequence", false);
+        } catch (final JsonSyntaxException ex) {
+            check("push binder ARRAY rejects a value sequence", true);
+        }
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static <T> List<T> drain(final Iterator<T> iterator) {
+        final List<T> values = new ArrayList<>();
+        while (iterator.hasNext()) {
+            values.add(iterator.next());
+        }
+        return values;
+    }
+
+    /**
+     * 將JSON文字一次一個位元組推給綁定器。
+     */
+    private static <T> List<T> push(final JsonPushBinder<T> binder, final String json) {
+        final List<T> values = new ArrayList<>();
+        for (final byte b : json.getBytes(UTF_8)) {
+            values.addAll(binder.feed(ByteBuffer.wrap(new byte[]{b})));
+        }
+        values.addAll(binder.endOfInput());
+        return values;
+    }
+
+    private static void check(final String name, final Object actual, final Object expected) {
+        check(name + " (" + actual + ")", expected.equals(actual));
+    }
+
+    private static void check(final String name, final boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if (!passed) {
+            failed = true;
+        }
+    }
+
+    // -----建構子-----
+    /**
+     * 私有的建構子，將無法被實體化。
+     */
+    private JsonLayoutTest() {
+
+    }
+}
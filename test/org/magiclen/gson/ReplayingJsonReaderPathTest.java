@@ -0,0 +1,96 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.gson;
+
+/**
+ * 檢查RuntimeTypeAdapterFactory在鑑別欄位之前預讀的成員重播時，錯誤訊息中的路徑是否指向重播的位置，而不是底層讀取器已經讀到的位置。有檢查失敗時，以結束碼1結束。
+ *
+ * @author Magic Len
+ */
+public final class ReplayingJsonReaderPathTest {
+
+    // -----內部類別-----
+    static class Shape {
+
+    }
+
+    static final class Circle extends Shape {
+
+        int r;
+        int[] points;
+        Circle inner;
+    }
+
+    // -----類別常數-----
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(RuntimeTypeAdapterFactory.of(Shape.class, "type").registerSubtype(Circle.class, "circle"))
+            .create();
+
+    // -----類別變數-----
+    private static boolean failed;
+
+    // -----類別方法-----
+    public static void main(final String[] args) {
+        final Shape[] shapes = GSON.fromJson("[{\"type\":\"circle\"},{\"r\":2,\"points\":[1,2],\"type\":\"circle\"}]", Shape[].class);
+        check("replayed members are bound", ((Circle) shapes[1]).r == 2 && ((Circle) shapes[1]).points[1] == 2);
+
+        fails("[{\"type\":\"circle\"},{\"r\":1.5,\"type\":\"circle\"}]", "$[1].r");
+        fails("[{\"points\":[1,true],\"type\":\"circle\"}]", "$[0].points[1]");
+        fails("{\"inner\":{\"r\":false},\"type\":\"circle\"}", "$.inner.r");
+        fails("{\"type\":\"circle\",\"r\":false}", "$.r");
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 檢查綁定失敗，且錯誤訊息以指定的路徑結尾。
+     *
+     * @param json 傳入JSON字串
+     * @param path 傳入預期的路徑
+     */
+    private static void fails(final String json, final String path) {
+        try {
+            if (json.startsWith("[")) {
+                GSON.fromJson(json, Shape[].class);
+            } else {
+                GSON.fromJson(json, Shape.class);
+            }
+            check(json + " fails", false);
+        } catch (final JsonSyntaxException ex) {
+            final String message = ex.getMessage();
+            check(json + " fails at " + path + " (" + message + ")", message != null && message.endsWith(" path " + path));
+        }
+    }
+
+    private static void check(final String name, final boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if (!passed) {
+            failed = true;
+        }
+    }
+
+    // -----建構子-----
+    /**
+     * 私有的建構子，將無法被實體化。
+     */
+    private ReplayingJsonReaderPathTest() {
+
+    }
+}
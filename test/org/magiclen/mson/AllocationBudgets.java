@@ -0,0 +1,235 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.mson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import org.magiclen.gson.Gson;
+import org.magiclen.json.JSONObject;
+
+/**
+ * 檢查解析與輸出JSON時，每次呼叫配置的位元組數是否超出預算。以ThreadMXBean.getThreadAllocatedBytes量測，不需要任何測試框架。
+ *
+ * <p>
+ * 每個操作先暖機，讓JIT編譯完成，再分成數輪各呼叫多次，取每次呼叫配置量最少的一輪，以排除偶發的配置。預算寫在同目錄的AllocationBudgets.properties，測試文件為同目錄的AllocationBudgets.json。有操作超出預算、缺少預算，或是有預算沒有對應的操作時，以結束碼1結束。
+ *
+ * @author Magic Len
+ */
+public final class AllocationBudgets {
+
+    // -----內部類別-----
+    /**
+     * 要量測的操作。
+     */
+    private static abstract class Operation {
+
+        final String name;
+
+        Operation(final String name) {
+            this.name = name;
+        }
+
+        abstract Object run();
+    }
+
+    /**
+     * 測試文件的物件模型，供Gson綁定。
+     */
+    static final class Catalog {
+
+        long id;
+        String name;
+        String updated;
+        List<String> tags;
+        List<Author> authors;
+        List<Item> items;
+    }
+
+    static final class Author {
+
+        int id;
+        String name;
+        String lang;
+        List<String> phones;
+        int[] birthday;
+    }
+
+    static final class Item {
+
+        long id;
+        String title;
+        double price;
+        int stock;
+        boolean available;
+        List<String> categories;
+    }
+
+    // -----類別常數-----
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int WARMUP_CALLS = 20000;
+    private static final int ROUNDS = 5;
+    private static final int CALLS_PER_ROUND = 2000;
+
+    // -----類別變數-----
+    /**
+     * 結果的雜湊值，使結果逸出，避免配置被逃逸分析消除。
+     */
+    private static int sink;
+
+    // -----類別方法-----
+    public static void main(final String[] args) throws IOException {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("This virtual machine cannot measure allocated bytes.");
+            System.exit(1);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        final String document = readDocument();
+        final Properties budgets = readBudgets();
+        final Gson gson = new Gson();
+        final JSONObject object = new JSONObject(document);
+        final Catalog catalog = gson.fromJson(document, Catalog.class);
+
+        final List<Operation> operations = new ArrayList<>();
+        operations.add(new Operation("JSONObject.parse") {
+            @Override
+            Object run() {
+                return new JSONObject(document);
+            }
+        });
+        operations.add(new Operation("JSONObject.toString") {
+            @Override
+            Object run() {
+                return object.toString();
+            }
+        });
+        operations.add(new Operation("Mson.toString.format") {
+            @Override
+            Object run() {
+                return Mson.toString(object, true);
+            }
+        });
+        operations.add(new Operation("Gson.fromJson") {
+            @Override
+            Object run() {
+                return gson.fromJson(document, Catalog.class);
+            }
+        });
+        operations.add(new Operation("Gson.toJson") {
+            @Override
+            Object run() {
+                return gson.toJson(catalog);
+            }
+        });
+
+        boolean failed = false;
+        final Set<String> unused = new TreeSet<>(budgets.stringPropertyNames());
+        System.out.printf("%-24s %12s %12s%n", "operation", "bytes/call", "budget");
+        for (final Operation operation : operations) {
+            unused.remove(operation.name);
+            final long allocated = measure(threads, operation);
+            final String budget = budgets.getProperty(operation.name);
+            if (budget == null) {
+                System.out.printf("%-24s %12d %12s  FAIL: no budget%n", operation.name, allocated, "-");
+                failed = true;
+            } else if (allocated > Long.parseLong(budget.trim())) {
+                System.out.printf("%-24s %12d %12s  FAIL: over budget%n", operation.name, allocated, budget.trim());
+                failed = true;
+            } else {
+                System.out.printf("%-24s %12d %12s%n", operation.name, allocated, budget.trim());
+            }
+        }
+        for (final String name : unused) {
+            System.out.printf("%-24s %12s %12s  FAIL: no such operation%n", name, "-", budgets.getProperty(name).trim());
+            failed = true;
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 量測操作每次呼叫配置的位元組數。
+     *
+     * @param threads 傳入ThreadMXBean
+     * @param operation 傳入操作
+     * @return 傳回配置量最少的一輪中，每次呼叫配置的位元組數
+     */
+    private static long measure(final com.sun.management.ThreadMXBean threads, final Operation operation) {
+        final long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            sink ^= System.identityHashCode(operation.run());
+        }
+        long least = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long start = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < CALLS_PER_ROUND; i++) {
+                sink ^= System.identityHashCode(operation.run());
+            }
+            least = Math.min(least, threads.getThreadAllocatedBytes(thread) - start);
+        }
+        return least / CALLS_PER_ROUND;
+    }
+
+    private static String readDocument() throws IOException {
+        try (final InputStream in = open("AllocationBudgets.json")) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, count);
+            }
+            return new String(bytes.toByteArray(), UTF_8);
+        }
+    }
+
+    private static Properties readBudgets() throws IOException {
+        try (final Reader reader = new InputStreamReader(open("AllocationBudgets.properties"), UTF_8)) {
+            final Properties budgets = new Properties();
+            budgets.load(reader);
+            return budgets;
+        }
+    }
+
+    private static InputStream open(final String name) throws IOException {
+        final InputStream in = AllocationBudgets.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Cannot find " + name + " next to " + AllocationBudgets.class.getName());
+        }
+        return in;
+    }
+
+    // -----建構子-----
+    /**
+     * 私有的建構子，將無法被實體化。
+     */
+    private AllocationBudgets() {
+
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ * Copyright 2015-2017 magiclen.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.magiclen.mson;
+
+import org.magiclen.gson.JsonSyntaxException;
+import org.magiclen.json.JSONArray;
+import org.magiclen.json.JSONObject;
+
+/**
+ * 檢查bindObject與bindArray對數值的判斷是否和toObject一致：超出範圍或有小數的數值不能被縮小成int或long。有檢查失敗時，以結束碼1結束。
+ *
+ * @author Magic Len
+ */
+public final class MsonBindTest {
+
+    // -----內部類別-----
+    static final class Event {
+
+        String kind;
+        int n;
+        long total;
+        double ratio;
+    }
+
+    // -----類別常數-----
+    private static final MsonTypeSelector SELECTOR = MsonTypeSelector.byField("kind").when("a", Event.class);
+
+    // -----類別變數-----
+    private static boolean failed;
+
+    // -----類別方法-----
+    public static void main(final String[] args) {
+        final Event event = (Event) Mson.bindObject(new JSONObject("{\"kind\":\"a\",\"n\":2.0,\"total\":5000000000,\"ratio\":1.5}"), SELECTOR);
+        check("in-range values", event.n == 2 && event.total == 5000000000L && event.ratio == 1.5);
+
+        rejects("{\"kind\":\"a\",\"n\":5000000000}");
+        rejects("{\"kind\":\"a\",\"n\":1.5}");
+        rejects("{\"kind\":\"a\",\"total\":1.5}");
+        rejects("{\"kind\":\"a\",\"total\":1e19}");
+
+        try {
+            Mson.bindArray(new JSONArray("[{\"kind\":\"a\",\"n\":1},{\"kind\":\"a\",\"n\":5000000000}]"), SELECTOR);
+            check("bindArray rejects 5000000000 for an int", false);
+        } catch (final JsonSyntaxException ex) {
+            check("bindArray rejects 5000000000 for an int", true);
+        }
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 檢查bindObject拋出JsonSyntaxException，且toObject傳回null。
+     *
+     * @param json 傳入JSON物件的字串
+     */
+    private static void rejects(final String json) {
+        final JSONObject object = new JSONObject(json);
+        check("toObject rejects " + json, Mson.toObject(object, Event.class) == null);
+        try {
+            Mson.bindObject(object, SELECTOR);
+            check("bindObject rejects " + json, false);
+        } catch (final JsonSyntaxException ex) {
+            check("bindObject rejects " + json, true);
+        }
+    }
+
+    private static void check(final String name, final boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if (!passed) {
+            failed = true;
+        }
+    }
+
+    // -----建構子-----
+    /**
+     * 私有的建構子，將無法被實體化。
+     */
+    private MsonBindTest() {
+
+    }
+}